@@ -0,0 +1,55 @@
+package net.lobby_simulator_companion.loop.domain;
+
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.manual_testing.DataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of adding a match once the biggest rolling window is full.
+ *
+ * @author NickyRamone
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MatchLogBenchmark {
+
+    private static final int FULL_WINDOW = MatchLog.RollingGroup.LAST_1000_MATCHES.aggregateSize;
+    private static final int MATCH_POOL_SIZE = 1024;
+
+    private final Match[] matches = new Match[MATCH_POOL_SIZE];
+    private MatchLog matchLog;
+    private int nextMatch;
+
+
+    @Setup
+    public void setUp() {
+        DataGenerator dataGenerator = new DataGenerator(new Random(0));
+        for (int i = 0; i < MATCH_POOL_SIZE; i++) {
+            matches[i] = dataGenerator.randomMatch();
+        }
+
+        matchLog = new MatchLog();
+        for (int i = 0; i < FULL_WINDOW; i++) {
+            matchLog.add(matches[i % MATCH_POOL_SIZE]);
+        }
+    }
+
+
+    @Benchmark
+    public MatchLog add() {
+        matchLog.add(matches[nextMatch++ % MATCH_POOL_SIZE]);
+
+        return matchLog;
+    }
+
+}
@@ -0,0 +1,46 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import net.lobby_simulator_companion.loop.manual_testing.DataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author NickyRamone
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AggregateStatsBenchmark {
+
+    private static final int MATCH_POOL_SIZE = 1024;
+
+    private final Match[] matches = new Match[MATCH_POOL_SIZE];
+    private final AggregateStats stats = new AggregateStats();
+    private int nextMatch;
+
+
+    @Setup
+    public void setUp() {
+        DataGenerator dataGenerator = new DataGenerator(new Random(0));
+        for (int i = 0; i < MATCH_POOL_SIZE; i++) {
+            matches[i] = dataGenerator.randomMatch();
+        }
+    }
+
+
+    @Benchmark
+    public AggregateStats addMatchStats() {
+        stats.addMatchStats(matches[nextMatch++ % MATCH_POOL_SIZE]);
+
+        return stats;
+    }
+
+}
@@ -0,0 +1,124 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import net.lobby_simulator_companion.loop.config.AppProperties;
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
+import net.lobby_simulator_companion.loop.domain.LoopData;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.manual_testing.DataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Saving and loading the data file, encrypted like in the app, in the binary format and in the JSON format of
+ * older versions.
+ *
+ * @author NickyRamone
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoopRepositoryBenchmark {
+
+    private static final String STORAGE_FILE = "stabd-benchmark.dat";
+
+    @Param({"100", "1000", "10000"})
+    private int players;
+
+    @Param({"1000"})
+    private int matches;
+
+    @Param({"binary", "json"})
+    private String format;
+
+    private File appHome;
+    private LoopRepository repository;
+    private LoopData loopData;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        appHome = Files.createTempDirectory("stabd-benchmark").toFile();
+        AppProperties appProperties = mock(AppProperties.class);
+        when(appProperties.get("app.home")).thenReturn(appHome.getAbsolutePath());
+        when(appProperties.get("storage.file")).thenReturn(STORAGE_FILE);
+        when(appProperties.getBoolean("storage.read.encrypted")).thenReturn(true);
+        when(appProperties.getBoolean("storage.write.encrypted")).thenReturn(true);
+        when(appProperties.get("storage.write.format")).thenReturn(format);
+
+        repository = new LoopRepository(appProperties, LoopGsonFactory.gson(false));
+        loopData = generateData();
+        repository.save(loopData);
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = appHome.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        appHome.delete();
+    }
+
+
+    @Benchmark
+    public LoopData save() throws IOException {
+        repository.save(loopData);
+
+        return loopData;
+    }
+
+    /**
+     * What is saved periodically after a match: one player and the stats.
+     */
+    @Benchmark
+    public LoopData saveChanges() throws IOException {
+        repository.saveChanges(Collections.singletonList(loopData.getPlayers().get(0)), loopData.getStats());
+
+        return loopData;
+    }
+
+    @Benchmark
+    public LoopData load() throws IOException {
+        return repository.load();
+    }
+
+
+    private LoopData generateData() {
+        DataGenerator dataGenerator = new DataGenerator(new Random(0));
+        LoopData data = new LoopData();
+
+        List<Player> playerList = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            playerList.add(dataGenerator.randomPlayer());
+        }
+        data.addPlayers(playerList);
+
+        for (int i = 0; i < matches; i++) {
+            data.getMatchLog().add(dataGenerator.randomMatch());
+        }
+
+        return data;
+    }
+
+}
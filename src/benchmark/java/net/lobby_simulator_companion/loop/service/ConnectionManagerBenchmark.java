@@ -0,0 +1,122 @@
+package net.lobby_simulator_companion.loop.service;
+
+import net.lobby_simulator_companion.loop.domain.Connection;
+import net.lobby_simulator_companion.loop.service.PcapCorpus.CaptureWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replay of synthetic lobby captures (see {@link PcapCorpus}) through the P2P connection manager, as fast as the
+ * capture can be read.
+ *
+ * @author NickyRamone
+ */
+@State(Scope.Thread)
+public class ConnectionManagerBenchmark {
+
+    private static final int LOBBIES = 10;
+
+    private File lobbiesCapture;
+    private File lobbyCapture;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        lobbiesCapture = PcapCorpus.newCaptureFile();
+        try (CaptureWriter capture = new CaptureWriter(lobbiesCapture)) {
+            long time = PcapCorpus.START_TIME;
+            for (int i = 0; i < LOBBIES; i++) {
+                time = PcapCorpus.writeP2pLobby(capture, time);
+            }
+        }
+
+        lobbyCapture = PcapCorpus.newCaptureFile();
+        try (CaptureWriter capture = new CaptureWriter(lobbyCapture)) {
+            PcapCorpus.writeP2pLobby(capture, PcapCorpus.START_TIME);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        lobbiesCapture.delete();
+        lobbyCapture.delete();
+    }
+
+
+    /**
+     * Score is in packets per second.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(LOBBIES * PcapCorpus.P2P_LOBBY_PACKETS)
+    public void replayLobbies(Blackhole blackhole) throws IOException {
+        PacketSource packetSource = new PcapFilePacketSource(lobbiesCapture, PcapFilePacketSource.Speed.MAX);
+        new P2pConnectionManager(PcapCorpus.localAddress(), new BlackholeSnifferListener(blackhole, null),
+                packetSource).start();
+    }
+
+    /**
+     * Time from starting the replay of a lobby until its connection is notified (the handshake comes after some
+     * unrelated traffic, like in a real capture).
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void detectConnection(Blackhole blackhole) throws IOException {
+        PacketSource packetSource = new PcapFilePacketSource(lobbyCapture, PcapFilePacketSource.Speed.MAX);
+        new P2pConnectionManager(PcapCorpus.localAddress(), new BlackholeSnifferListener(blackhole, packetSource),
+                packetSource).start();
+    }
+
+
+    /**
+     * Consumes the notifications; optionally stops the replay as soon as a connection is notified.
+     */
+    private static final class BlackholeSnifferListener implements SnifferListener {
+
+        private final Blackhole blackhole;
+        private final PacketSource stopOnConnect;
+
+        BlackholeSnifferListener(Blackhole blackhole, PacketSource stopOnConnect) {
+            this.blackhole = blackhole;
+            this.stopOnConnect = stopOnConnect;
+        }
+
+        @Override
+        public void notifyMatchConnect(Connection connection) {
+            blackhole.consume(connection);
+            if (stopOnConnect != null) {
+                stopOnConnect.breakLoop();
+            }
+        }
+
+        @Override
+        public void notifyMatchDisconnect() {
+            blackhole.consume(true);
+        }
+
+        @Override
+        public void notifyPingUpdate(int ping) {
+            blackhole.consume(ping);
+        }
+
+        @Override
+        public void handleException(Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package net.lobby_simulator_companion.loop.service;
+
+import net.lobby_simulator_companion.loop.service.log_processing.impl.ChaseLogProcessor;
+import net.lobby_simulator_companion.loop.service.log_processing.impl.KillerLogProcessor;
+import net.lobby_simulator_companion.loop.service.log_processing.impl.MainLogProcessor;
+import net.lobby_simulator_companion.loop.service.log_processing.impl.RealmMapLogProcessor;
+import net.lobby_simulator_companion.loop.util.event.EventSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the processor chain over a synthetic log corpus (see {@link LogCorpus}).
+ *
+ * @author NickyRamone
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DbdLogMonitorBenchmark {
+
+    private String[] lines;
+    private File logFile;
+    private DbdLogMonitor logMonitor;
+
+
+    @Setup
+    public void setUp() throws IOException {
+        lines = LogCorpus.generate(LogCorpus.DEFAULT_MATCHES);
+        logFile = File.createTempFile("dbd-benchmark-log_", ".log");
+
+        EventSupport eventSupport = new EventSupport();
+        logMonitor = new DbdLogMonitor(eventSupport, logFile);
+        logMonitor.registerProcessor(new MainLogProcessor(eventSupport));
+        logMonitor.registerProcessor(new KillerLogProcessor(eventSupport));
+        logMonitor.registerProcessor(new RealmMapLogProcessor(eventSupport));
+        logMonitor.registerProcessor(new ChaseLogProcessor(eventSupport));
+    }
+
+    @TearDown
+    public void tearDown() {
+        logFile.delete();
+    }
+
+
+    /**
+     * Score is in lines per second.
+     */
+    @Benchmark
+    @OperationsPerInvocation(LogCorpus.LINES_PER_BENCHMARK)
+    public void processLine() {
+        for (int i = 0; i < LogCorpus.LINES_PER_BENCHMARK; i++) {
+            logMonitor.processLine(lines[i % lines.length]);
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package net.lobby_simulator_companion.loop.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic DBD log made of complete matches (queue, lobby, match with chases, post-game) padded with the kind of
+ * noise lines that make up most of a real log.
+ *
+ * @author NickyRamone
+ */
+final class LogCorpus {
+
+    static final int DEFAULT_MATCHES = 20;
+    static final int LINES_PER_BENCHMARK = 10_000;
+
+    private static final int NOISE_LINES_PER_EVENT = 20;
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("u.MM.dd-HH.mm.ss:SSS");
+
+    private static final String[] MATCH_EVENTS = {
+            "LogHttp: Display: [Request] POST https://latest.live.dbd.bhvronline.com/api/v1/queue]",
+            "LogNet: UPendingNetGame::SendInitialJoin: Sending hello. [UNetConnection] RemoteAddr: 10.12.34.56:7777",
+            "LogOnline: Verbose: Mirrors: [FOnlineSessionMirrors::AddSessionPlayer] Session:GameSession "
+                    + "PlayerId:8a1b2c3d-1111-2222-3333-444455556666|76561198000000000",
+            "LogCustomization: --> TR_Head01",
+            "ProceduralLevelGeneration: InitLevel: Theme: Industrial Map: Ind_Storehouse",
+            "GameFlow: ACollectable::BeginPlay",
+            "LogOnline: ^^^ OnEnteringOnlineMultiplayer ^^^",
+            "Interaction: Player [BP_CamperMale01_C_0] is in chase.",
+            "Interaction: Player [BP_CamperMale01_C_0] is not in chase anymore.",
+            "Interaction: Player [BP_CamperFemale08_Character_C_0] is in chase.",
+            "Interaction: Player [BP_CamperFemale08_Character_C_0] is not in chase anymore.",
+            "LogDBDGeneral: player escaped = true",
+            "LogHttp: Display: [Request] POST https://latest.live.dbd.bhvronline.com/api/v1/softWallet/put/analytics",
+            "GameFlow: ADBDGameState::SetGameLevelEnded - Game marked as ended with reason 'Normal'",
+            "LogOnline: FOnlineAsyncTaskMirrorsDestroyMatch"
+    };
+
+    private static final String[] NOISE = {
+            "LogAudio: Display: Audio Device unregistered from world 'None'.",
+            "LogAnimMontage: Warning: Montage 'AM_Idle' has no slot group",
+            "LogSkeletalMesh: USkeletalMeshComponent::InitArticulated : Physics asset is missing",
+            "LogNet: NotifyAcceptingChannel Control 0 server World /Game/Maps/OfflineLobby.OfflineLobby: Accepted",
+            "LogStreaming: Display: Flushing async loaders.",
+            "LogHttp: Warning: 00000123456789: request failed, libcurl error: 0 (No error)"
+    };
+
+
+    private LogCorpus() {
+    }
+
+
+    static String[] generate(int matches) {
+        List<String> lines = new ArrayList<>();
+        LocalDateTime timestamp = LocalDateTime.of(2020, 7, 10, 20, 0);
+        int frame = 0;
+
+        for (int m = 0; m < matches; m++) {
+            for (String event : MATCH_EVENTS) {
+                for (int i = 0; i < NOISE_LINES_PER_EVENT; i++) {
+                    timestamp = timestamp.plusNanos(250_000_000);
+                    lines.add(line(timestamp, frame++, NOISE[(m + i) % NOISE.length]));
+                }
+                timestamp = timestamp.plusSeconds(30);
+                lines.add(line(timestamp, frame++, event));
+            }
+        }
+
+        return lines.toArray(new String[0]);
+    }
+
+    private static String line(LocalDateTime timestamp, int frame, String message) {
+        return String.format("[%s][%3d]%s", DATE_TIME_FORMATTER.format(timestamp), frame % 1000, message);
+    }
+
+}
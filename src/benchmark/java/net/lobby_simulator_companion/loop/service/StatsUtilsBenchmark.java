@@ -0,0 +1,50 @@
+package net.lobby_simulator_companion.loop.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author NickyRamone
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StatsUtilsBenchmark {
+
+    /**
+     * Number of distinct elements (e.g., maps or killers).
+     */
+    @Param({"20", "40"})
+    private int size;
+
+    private List<Integer> distribution;
+
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(0);
+        distribution = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            distribution.add(random.nextInt(50));
+        }
+    }
+
+
+    @Benchmark
+    public float rateDistribution() {
+        return StatsUtils.rateDistribution(distribution);
+    }
+
+}
@@ -0,0 +1,51 @@
+package net.lobby_simulator_companion.loop.service.log_processing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @author NickyRamone
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LogProcessorUtilBenchmark {
+
+    /**
+     * How timestamps used to be parsed, as a baseline.
+     */
+    private static final Pattern PATTERN__TIMESTAMP = Pattern.compile("^\\[([^\\[\\]]+)\\].+");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("u.MM.dd-HH.mm.ss:SSS");
+
+    private final String logLine =
+            "[2020.07.10-23.09.36:685][979]Interaction: Player [BP_CamperMale01_C_0] is in chase.";
+
+
+    @Benchmark
+    public LocalDateTime extractTimestampWithRegexAndFormatter() {
+        Matcher matcher = PATTERN__TIMESTAMP.matcher(logLine);
+
+        return matcher.find() ? LocalDateTime.parse(matcher.group(1), DATE_TIME_FORMATTER) : null;
+    }
+
+    @Benchmark
+    public LocalDateTime extractTimestamp() {
+        return LogProcessorUtil.extractTimestamp(logLine);
+    }
+
+    @Benchmark
+    public long extractTimestampMillis() {
+        return LogProcessorUtil.extractTimestampMillis(logLine);
+    }
+
+}
@@ -4,6 +4,7 @@ import net.lobby_simulator_companion.loop.config.AppProperties;
 import net.lobby_simulator_companion.loop.domain.Connection;
 import net.lobby_simulator_companion.loop.service.ConnectionManager;
 import net.lobby_simulator_companion.loop.service.GameEvent;
+import net.lobby_simulator_companion.loop.service.LoopDataService;
 import net.lobby_simulator_companion.loop.service.SnifferListener;
 import net.lobby_simulator_companion.loop.ui.MainWindow;
 import net.lobby_simulator_companion.loop.util.FileUtil;
@@ -23,6 +24,10 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * @author PsiLupan
@@ -31,6 +36,8 @@ import java.nio.file.Path;
  */
 public class Boot {
 
+    private static final String ARG__REPLAY = "--replay";
+
     private static Logger log;
     private static MainWindow ui;
 
@@ -40,6 +47,10 @@ public class Boot {
     public static void main(String[] args) {
         try {
             configureLogger();
+            if (args.length > 0 && ARG__REPLAY.equals(args[0])) {
+                replayLogs(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
             init();
         } catch (Exception e) {
             log.error("Failed to initialize application: {}", e.getMessage(), e);
@@ -75,6 +86,37 @@ public class Boot {
     }
 
 
+    /**
+     * Headless mode for importing the matches of old DBD logs into the stored data.
+     *
+     * @param logPaths log files, or directories containing log files.
+     */
+    private static void replayLogs(String[] logPaths) {
+        int status = 0;
+
+        try {
+            LoopDataService dataService = Factory.loopDataService();
+            dataService.start();
+
+            List<File> logFiles = new ArrayList<>();
+            for (String logPath : logPaths) {
+                File file = new File(logPath);
+                File[] dirLogFiles = file.listFiles((dir, name) -> name.endsWith(".log"));
+                logFiles.addAll(dirLogFiles != null ? Arrays.asList(dirLogFiles) : Collections.singletonList(file));
+            }
+
+            int matchCount = Factory.dbdLogReplayer().replay(logFiles);
+            log.info("Imported {} matches from {} log files.", matchCount, logFiles.size());
+            dataService.save();
+        } catch (Exception e) {
+            log.error("Failed to replay logs.", e);
+            status = 1;
+        }
+
+        System.exit(status);
+    }
+
+
     private static void initServicesAndEnableUi() throws IOException, NotOpenException, PcapNativeException {
         if (!Factory.settings().getBoolean("network.interface.enabled", true)) {
             log.info("Lobby region detection is disabled.");
@@ -7,6 +7,8 @@ import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
 import net.lobby_simulator_companion.loop.config.Settings;
 import net.lobby_simulator_companion.loop.repository.IpWhoIsClient;
 import net.lobby_simulator_companion.loop.repository.LoopRepository;
+import net.lobby_simulator_companion.loop.repository.MatchHistoryRepository;
+import net.lobby_simulator_companion.loop.repository.PlayerRepository;
 import net.lobby_simulator_companion.loop.repository.ServerDao;
 import net.lobby_simulator_companion.loop.repository.SteamProfileDao;
 import net.lobby_simulator_companion.loop.service.*;
@@ -19,12 +21,18 @@ import net.lobby_simulator_companion.loop.service.plugin.PluginManager;
 import net.lobby_simulator_companion.loop.ui.*;
 import net.lobby_simulator_companion.loop.ui.common.UiEventOrchestrator;
 import net.lobby_simulator_companion.loop.ui.startup.PluginLoadUi;
+import net.lobby_simulator_companion.loop.util.EdtUpdateCoalescer;
+import net.lobby_simulator_companion.loop.util.Scheduler;
+import net.lobby_simulator_companion.loop.util.SupersedingTaskRunner;
 import net.lobby_simulator_companion.loop.util.event.EventSupport;
+import net.lobby_simulator_companion.loop.util.event.QueuedEventSupport;
 
 import java.io.File;
 import java.net.InetAddress;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 
 import static net.lobby_simulator_companion.loop.util.LangUtil.unchecked;
@@ -40,6 +48,9 @@ import static net.lobby_simulator_companion.loop.util.LangUtil.unchecked;
 public final class Factory {
 
     private static final String PROPERTY__WRITE_ENCRYPTED = "storage.write.encrypted";
+    private static final int BACKGROUND_THREADS = 2;
+    private static final int BACKGROUND_QUEUE_CAPACITY = 16;
+    private static final int DBD_LOG_EVENT_QUEUE_CAPACITY = 1024;
     private static final Map<Class, Object> instances = new HashMap<>();
 
     private Factory() {
@@ -68,19 +79,35 @@ public final class Factory {
     }
 
     public static Settings settings() {
-        return getInstance(Settings.class, unchecked(Settings::new));
+        return getInstance(Settings.class, unchecked(() -> new Settings(scheduler())));
+    }
+
+    public static Scheduler scheduler() {
+        return getInstance(Scheduler.class, Scheduler::new);
+    }
+
+    /**
+     * For short-lived background tasks, like lookups which may need to go to the network.
+     */
+    public static ExecutorService backgroundExecutor() {
+        return getInstance(ExecutorService.class, () -> SupersedingTaskRunner.newBoundedExecutor(
+                "background", BACKGROUND_THREADS, BACKGROUND_QUEUE_CAPACITY));
+    }
+
+    public static EdtUpdateCoalescer edtUpdateCoalescer() {
+        return getInstance(EdtUpdateCoalescer.class, EdtUpdateCoalescer::new);
     }
 
     public static ConnectionManager dedicatedServerConnectionManager(InetAddress localAddr, SnifferListener snifferListener) {
 
         return getInstance(ConnectionManager.class, unchecked(
-                () -> new DedicatedServerConnectionManager(localAddr, snifferListener)));
+                () -> new DedicatedServerConnectionManager(localAddr, snifferListener, scheduler())));
     }
 
     public static ConnectionManager p2pConnectionManager(InetAddress localAddr, SnifferListener snifferListener) {
 
         return getInstance(ConnectionManager.class, unchecked(
-                () -> new P2pConnectionManager(localAddr, snifferListener)));
+                () -> new P2pConnectionManager(localAddr, snifferListener, scheduler())));
     }
 
     public static LoopRepository loopRepository() {
@@ -88,9 +115,18 @@ public final class Factory {
                 () -> new LoopRepository(appProperties(), gson()));
     }
 
+    public static MatchHistoryRepository matchHistoryRepository() {
+        return getInstance(MatchHistoryRepository.class, () -> new MatchHistoryRepository(appProperties()));
+    }
+
+    public static PlayerRepository playerRepository() {
+        return getInstance(PlayerRepository.class, () -> new PlayerRepository(appProperties()));
+    }
+
     public static LoopDataService loopDataService() {
         return getInstance(LoopDataService.class, unchecked(
-                () -> new LoopDataService(loopRepository())));
+                () -> new LoopDataService(loopRepository(), matchHistoryRepository(), playerRepository(),
+                        scheduler())));
     }
 
     public static PluginLoadUi pluginLoadUi() {
@@ -121,7 +157,9 @@ public final class Factory {
         return getInstance(DbdLogMonitor.class, unchecked(() -> {
                     DbdLogMonitor obj = appProperties().getBoolean("debug.panel") ?
                             new DbdLogMonitor(dbdLogEventSupport(), File.createTempFile("dbd-mock-log_", ".log"))
-                            : new DbdLogMonitor(dbdLogEventSupport());
+                            : new DbdLogMonitor(dbdLogEventSupport(), DbdLogMonitor.getDefaultLogFile(),
+                            Paths.get(appProperties().get("app.home"))
+                                    .resolve(appProperties().get("dbd.log.checkpoint.file")).toFile());
 
                     obj.registerProcessor(mainLogProcessor());
                     obj.registerProcessor(killerLogProcessor());
@@ -133,8 +171,16 @@ public final class Factory {
         );
     }
 
+    public static DbdLogReplayer dbdLogReplayer() {
+        return getInstance(DbdLogReplayer.class, () -> new DbdLogReplayer(loopDataService()));
+    }
+
+    /**
+     * Log events are delivered on their own thread, so that slow listeners do not hold back log processing.
+     */
     private static EventSupport dbdLogEventSupport() {
-        return getInstance(EventSupport.class, EventSupport::new);
+        return getInstance(EventSupport.class,
+                () -> new QueuedEventSupport("dbd-log-events", DBD_LOG_EVENT_QUEUE_CAPACITY));
     }
 
 
@@ -161,13 +207,14 @@ public final class Factory {
 //                        dbdLogMonitor(),
                         loopDataService(),
                         steamProfileDao(),
-                        chaseEventManager()
+                        chaseEventManager(),
+                        backgroundExecutor()
                 ));
     }
 
     private static ChaseEventManager chaseEventManager() {
         return getInstance(ChaseEventManager.class,
-                () -> new ChaseEventManager(dbdLogMonitor()));
+                () -> new ChaseEventManager(dbdLogMonitor(), edtUpdateCoalescer()));
     }
 
     public static NetworkInterfaceFrame networkInterfaceFrame() {
@@ -178,7 +225,8 @@ public final class Factory {
         return getInstance(MainWindow.class, () ->
                 new MainWindow(settings(), appProperties(), loopDataService(),
                         gameStateManager(), uiEventOrchestrator(),
-                        serverPanel(), matchPanel(), killerPanel(), statsPanel(), survivalInputPanel()));
+                        serverPanel(), matchPanel(), killerPanel(), statsPanel(), survivalInputPanel(),
+                        edtUpdateCoalescer()));
     }
 
     public static SurvivalInputPanel survivalInputPanel() {
@@ -188,33 +236,37 @@ public final class Factory {
 
     public static ServerPanel serverPanel() {
         return getInstance(ServerPanel.class, () -> new ServerPanel(
-                settings(), appProperties(), gameStateManager(), uiEventOrchestrator(), serverDao()));
+                settings(), appProperties(), gameStateManager(), uiEventOrchestrator(), serverDao(),
+                backgroundExecutor()));
     }
 
     public static KillerPanel killerPanel() {
         return getInstance(KillerPanel.class, () ->
                 new KillerPanel(settings(), loopDataService(), gameStateManager(),
-                        uiEventOrchestrator()));
+                        uiEventOrchestrator(), scheduler(), edtUpdateCoalescer()));
     }
 
     public static MatchPanel matchPanel() {
-        return getInstance(MatchPanel.class, () -> new MatchPanel(settings(), gameStateManager(), uiEventOrchestrator()));
+        return getInstance(MatchPanel.class, () ->
+                new MatchPanel(settings(), gameStateManager(), uiEventOrchestrator(), edtUpdateCoalescer()));
     }
 
     public static StatsPanel statsPanel() {
         return getInstance(StatsPanel.class, () ->
                 new StatsPanel(settings(), loopDataService(), gameStateManager(), uiEventOrchestrator(),
-                        periodAggregateStatsPanel(), rollingAggregateStatsPanel()));
+                        periodAggregateStatsPanel(), rollingAggregateStatsPanel(), edtUpdateCoalescer()));
     }
 
     public static PeriodAggregateStatsPanel periodAggregateStatsPanel() {
         return getInstance(PeriodAggregateStatsPanel.class, () ->
-                new PeriodAggregateStatsPanel(settings(), loopDataService(), gameStateManager()));
+                new PeriodAggregateStatsPanel(settings(), loopDataService(), gameStateManager(),
+                        edtUpdateCoalescer()));
     }
 
     public static RollingAggregateStatsPanel rollingAggregateStatsPanel() {
         return getInstance(RollingAggregateStatsPanel.class, () ->
-                new RollingAggregateStatsPanel(settings(), loopDataService(), gameStateManager()));
+                new RollingAggregateStatsPanel(settings(), loopDataService(), gameStateManager(),
+                        edtUpdateCoalescer()));
     }
 
 
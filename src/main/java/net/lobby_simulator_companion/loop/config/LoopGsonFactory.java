@@ -30,9 +30,8 @@ public class LoopGsonFactory {
 
     private void configureTypeAdapters(GsonBuilder gsonBuilder) {
         gsonBuilder.registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter());
-        gsonBuilder.registerTypeAdapter(Stats.class, new Stats.Serializer());
-        gsonBuilder.registerTypeAdapter(Stats.class, new Stats.Deserializer());
-        gsonBuilder.registerTypeAdapter(MatchLog.class, new MatchLog.Deserializer());
+        gsonBuilder.registerTypeAdapterFactory(new Stats.JsonAdapterFactory());
+        gsonBuilder.registerTypeAdapterFactory(new MatchLog.JsonAdapterFactory());
         gsonBuilder.registerTypeAdapterFactory(new LowercaseEnumTypeAdapterFactory());
     }
 
@@ -3,6 +3,7 @@ package net.lobby_simulator_companion.loop.config;
 import lombok.extern.slf4j.Slf4j;
 import net.lobby_simulator_companion.loop.Factory;
 import net.lobby_simulator_companion.loop.util.FileUtil;
+import net.lobby_simulator_companion.loop.util.Scheduler;
 import org.ini4j.Profile;
 import org.ini4j.Wini;
 
@@ -21,8 +22,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 import static java.time.temporal.ChronoUnit.DAYS;
 
@@ -52,7 +52,7 @@ public class Settings {
     private Instant lastChange = Instant.now();
 
 
-    public Settings() throws IOException {
+    public Settings(Scheduler scheduler) throws IOException {
         if (!SETTINGS_FILE.exists()) {
             if (!SETTINGS_FILE.createNewFile()) {
                 throw new IOException("Failed to initialize settings manager. File does not exist "
@@ -66,13 +66,8 @@ public class Settings {
         }
         globalSection = ini.get("?");
 
-        Timer timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                save();
-            }
-        }, SAVE_INTERVAL_SECONDS * 1000, SAVE_INTERVAL_SECONDS * 1000);
+        scheduler.scheduleAtFixedRate("settings-save", this::save,
+                SAVE_INTERVAL_SECONDS, SAVE_INTERVAL_SECONDS, TimeUnit.SECONDS);
 
         initSwitches();
     }
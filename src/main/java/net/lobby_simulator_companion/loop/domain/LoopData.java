@@ -5,6 +5,7 @@ import net.lobby_simulator_companion.loop.domain.stats.Stats;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -17,10 +18,20 @@ public class LoopData {
 
     private final int version = 3;
     private final List<Player> players = new ArrayList<>();
-    private final Stats stats = new Stats();
+    private final Stats stats;
     private final MatchLog matchLog = new MatchLog();
 
 
+    public LoopData() {
+        this(Collections.emptyList(), new Stats());
+    }
+
+    public LoopData(Collection<Player> players, Stats stats) {
+        this.players.addAll(players);
+        this.stats = stats;
+    }
+
+
     public void addPlayers(Collection<Player> players) {
         this.players.addAll(players);
     }
@@ -1,20 +1,20 @@
 package net.lobby_simulator_companion.loop.domain;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import lombok.RequiredArgsConstructor;
 import net.lobby_simulator_companion.loop.domain.stats.AggregateStats;
 import net.lobby_simulator_companion.loop.domain.stats.Match;
-import org.apache.commons.collections4.queue.CircularFifoQueue;
+import net.lobby_simulator_companion.loop.domain.stats.MatchStatsIndex;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 import static java.lang.Math.max;
 
@@ -41,92 +41,137 @@ public class MatchLog {
         }
     }
 
-    private final CircularFifoQueue<Match> matches;
-    private final transient Map<RollingGroup, AggregateStats> statsByGroup = new HashMap<>();
-
-
-    public MatchLog() {
-        int maxMatchesSupported = Arrays.stream(RollingGroup.values())
-                .mapToInt(g -> g.aggregateSize)
-                .reduce(0, (result, groupSize) -> max(groupSize, result));
-
-        matches = new CircularFifoQueue<>(maxMatchesSupported);
+    /**
+     * Maximum number of matches kept in the log (the size of the biggest group).
+     */
+    public static final int CAPACITY = Arrays.stream(RollingGroup.values())
+            .mapToInt(g -> g.aggregateSize)
+            .reduce(0, (result, groupSize) -> max(groupSize, result));
 
-        for (RollingGroup group : RollingGroup.values()) {
-            statsByGroup.put(group, new AggregateStats());
-        }
-    }
+    /**
+     * Not stored in the data file; matches are stored in the match history.
+     * Data files of older versions still include the matches, so they can be imported into the history.
+     */
+    private transient MatchStatsIndex statsIndex = new MatchStatsIndex(CAPACITY);
 
 
     public void add(Match match) {
-
-        for (RollingGroup group : RollingGroup.values()) {
-            recalculateGroupStatsForNewMatch(group, match);
-        }
-
-        matches.add(match);
+        statsIndex.add(match);
     }
 
+    /**
+     * Adds matches played in the past (for example, the ones found in old logs), so that the log stays in
+     * chronological order. If there are more matches than fit in the log, the oldest ones are dropped, whether they
+     * were already in the log or not.
+     */
+    public void addPastMatches(List<Match> pastMatches) {
+        List<Match> matches = getMatches();
+        matches.addAll(pastMatches);
+        // stable sort: matches already in the log go first when the start times are the same
+        matches.sort(Match.START_TIME_ORDER);
+
+        statsIndex = new MatchStatsIndex(CAPACITY);
+        matches.subList(Math.max(0, matches.size() - CAPACITY), matches.size()).forEach(statsIndex::add);
+    }
 
     /**
-     * When the queue is full we cannot calculate the escape streaks/records in O(1) with no additional structure.
-     * As a simplification, we will recalculate the stats for every group.
+     * @return the matches in the log, from oldest to newest.
      */
-    private void recalculateGroupStatsForNewMatch(RollingGroup group, Match match) {
+    public List<Match> getMatches() {
+        return statsIndex.getMatches();
+    }
 
-        AggregateStats stats = statsByGroup.get(group);
-        int startIdx = matches.size() - group.aggregateSize + 1;
 
-        if (startIdx >= 0) {
-            stats.reset();
-            for (int i = startIdx; i < matches.size(); i++) {
-                stats.addMatchStats(matches.get(i));
-            }
-        }
+    public Match getOldestMatchForGroup(RollingGroup group) {
+        return getOldestMatch(group.aggregateSize);
+    }
 
-        stats.addMatchStats(match);
+    /**
+     * @return the oldest of the last N matches, or null if there are no matches.
+     */
+    public Match getOldestMatch(int lastMatches) {
+        return statsIndex.getOldestMatch(lastMatches);
     }
 
-    private int getGroupOldestMatchIndex(RollingGroup group) {
-        if (matches.isEmpty()) {
-            return -1;
-        }
+    public AggregateStats getStats(RollingGroup group) {
+        return getStats(group.aggregateSize);
+    }
 
-        if (matches.size() <= group.aggregateSize) {
-            return 0;
-        }
+    /**
+     * @param lastMatches number of matches to aggregate; it can be any number up to the size of the biggest group.
+     */
+    public AggregateStats getStats(int lastMatches) {
+        return statsIndex.getStats(lastMatches);
+    }
 
-        return matches.size() - group.aggregateSize + 1;
+    public int matchCount() {
+        return statsIndex.size();
     }
 
-    public Match getOldestMatchForGroup(RollingGroup group) {
-        int idx = getGroupOldestMatchIndex(group);
+    /**
+     * @return a log with the same matches (which are shared, not copied).
+     */
+    public MatchLog copy() {
+        MatchLog copy = new MatchLog();
+        getMatches().forEach(copy::add);
 
-        return idx >= 0? matches.get(idx): null;
+        return copy;
     }
 
 
-    public AggregateStats getStats(RollingGroup group) {
-        return statsByGroup.get(group);
-    }
+    /**
+     * Reads the match log as a stream, without building a JSON tree first.
+     * Matches are only found in data files of older versions; they are added to the log as they are read.
+     */
+    public static final class JsonAdapterFactory implements TypeAdapterFactory {
 
-    public int matchCount() {
-        return matches.size();
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+            if (typeToken.getRawType() != MatchLog.class) {
+                return null;
+            }
+            return (TypeAdapter<T>) new MatchLogTypeAdapter(gson.getAdapter(Match.class));
+        }
     }
 
+    @RequiredArgsConstructor
+    private static final class MatchLogTypeAdapter extends TypeAdapter<MatchLog> {
+
+        private final TypeAdapter<Match> matchAdapter;
+
 
-    public static class Deserializer implements JsonDeserializer<MatchLog> {
+        @Override
+        public void write(JsonWriter out, MatchLog src) throws IOException {
+            if (src == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.endObject();
+        }
 
         @Override
-        public MatchLog deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+        public MatchLog read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
             MatchLog result = new MatchLog();
-            JsonObject matchLog = (JsonObject) json;
-            JsonArray matches = matchLog.getAsJsonArray("matches");
 
-            for (JsonElement e : matches) {
-                Match match = context.deserialize(e, Match.class);
-                result.add(match);
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("matches".equals(in.nextName()) && in.peek() == JsonToken.BEGIN_ARRAY) {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        result.add(matchAdapter.read(in));
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
             }
+            in.endObject();
 
             return result;
         }
@@ -4,11 +4,10 @@ import com.google.gson.annotations.SerializedName;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import net.lobby_simulator_companion.loop.util.Md5;
 
 import java.io.Serializable;
 import java.net.InetAddress;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -93,37 +92,23 @@ public class Player implements Serializable, Cloneable {
         rating = Rating.UNRATED;
     }
 
-    public void setIpAddress(InetAddress address) {
-        byte[] md5 = hashWithMd5(address.getAddress());
-        ipHash = hexToString(md5);
-    }
-
-    private byte[] hashWithMd5(byte[] bytes) {
-
-        MessageDigest md5Digest = null;
+    /**
+     * @return a copy of this player that does not change when this player does.
+     */
+    public Player copy() {
         try {
-            md5Digest = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+            Player copy = (Player) super.clone();
+            copy.names = new ArrayList<>(names);
 
-        md5Digest.update(bytes);
-
-        return md5Digest.digest();
-    }
-
-    private String hexToString(byte[] bytes) {
-
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : bytes) {
-            String hex = Integer.toHexString(0xFF & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
-            }
-            hexString.append(hex);
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
         }
+    }
 
-        return hexString.toString();
+    public void setIpAddress(InetAddress address) {
+        byte[] md5 = Md5.digest(address.getAddress());
+        ipHash = Md5.toHex(Md5.high(md5), Md5.low(md5));
     }
 
     public void updateLastSeen() {
@@ -69,6 +69,30 @@ public class AggregateStats {
         aggregateMapStats(matchStats);
     }
 
+    /**
+     * Adds the stats of matches played before the ones aggregated here.
+     * The current streaks are kept, since they continue from the latest match; only the longest streaks can change.
+     */
+    public void addPastStats(AggregateStats pastStats) {
+        lobbiesFound += pastStats.lobbiesFound;
+        secondsQueued += pastStats.secondsQueued;
+        secondsWaited += pastStats.secondsWaited;
+        secondsPlayed += pastStats.secondsPlayed;
+        matchesPlayed += pastStats.matchesPlayed;
+        escapes += pastStats.escapes;
+        maxEscapesInARow = max(maxEscapesInARow, pastStats.maxEscapesInARow);
+        deaths += pastStats.deaths;
+        maxDeathsInARow = max(maxDeathsInARow, pastStats.maxDeathsInARow);
+        kill0s += pastStats.kill0s;
+        kill1s += pastStats.kill1s;
+        kill2s += pastStats.kill2s;
+        kill3s += pastStats.kill3s;
+        kill4s += pastStats.kill4s;
+        kill5s += pastStats.kill5s;
+        pastStats.killersStats.forEach((killer, stats) -> getKillerStats(killer).add(stats));
+        pastStats.mapStats.forEach((realmMap, stats) -> getMapStats(realmMap).add(stats));
+    }
+
     private void updateKillCount(int killCount) {
         if (killCount == 0) {
             kill0s++;
@@ -56,6 +56,13 @@ public class KillerStats {
         matchTime -= seconds;
     }
 
+    void add(KillerStats other) {
+        matches += other.matches;
+        escapes += other.escapes;
+        deaths += other.deaths;
+        matchTime += other.matchTime;
+    }
+
     @Override
     public KillerStats clone() {
         return toBuilder().build();
@@ -56,6 +56,13 @@ public class MapStats {
         matchTime -= seconds;
     }
 
+    void add(MapStats other) {
+        matches += other.matches;
+        escapes += other.escapes;
+        deaths += other.deaths;
+        matchTime += other.matchTime;
+    }
+
     @Override
     protected MapStats clone() {
         return toBuilder().build();
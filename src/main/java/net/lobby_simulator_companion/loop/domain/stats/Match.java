@@ -9,6 +9,7 @@ import net.lobby_simulator_companion.loop.domain.RealmMap;
 
 import java.net.InetAddress;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.Optional;
 
 /**
@@ -20,6 +21,12 @@ import java.util.Optional;
 @Data
 public class Match {
 
+    /**
+     * Chronological order (matches without start time go first).
+     */
+    public static final Comparator<Match> START_TIME_ORDER = Comparator.comparing(Match::getMatchStartTime,
+            Comparator.nullsFirst(Comparator.naturalOrder()));
+
     private transient Integer lobbiesFound;
     private transient Integer secondsQueued;
     private transient Integer secondsWaited;
@@ -0,0 +1,241 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+import net.lobby_simulator_companion.loop.util.FenwickTree;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.lang.Math.min;
+
+/**
+ * Index over the last matches played (up to a fixed capacity) that can aggregate the stats of the last N matches,
+ * for any N.
+ * <p>
+ * Matches are stored in a circular buffer. Every counter has its own Fenwick tree over the buffer and streaks are
+ * kept in a segment tree, so adding a match and aggregating any window take O(log n), regardless of how many
+ * windows are being followed.
+ *
+ * @author NickyRamone
+ */
+public class MatchStatsIndex {
+
+    /**
+     * Counters of a killer or a map.
+     */
+    private static final class GroupCounters {
+        final FenwickTree matches;
+        final FenwickTree escapes;
+        final FenwickTree deaths;
+        final FenwickTree matchTime;
+
+        GroupCounters(int capacity) {
+            matches = new FenwickTree(capacity);
+            escapes = new FenwickTree(capacity);
+            deaths = new FenwickTree(capacity);
+            matchTime = new FenwickTree(capacity);
+        }
+
+        void add(int index, Match match, int sign) {
+            matches.add(index, sign);
+            matchTime.add(index, sign * secondsPlayed(match));
+
+            if (match.escaped()) {
+                escapes.add(index, sign);
+            } else if (match.died()) {
+                deaths.add(index, sign);
+            }
+        }
+    }
+
+    private static final int MAX_KILL_COUNT = 5;
+
+    private final Match[] matches;
+    private long matchesAdded;
+
+    private final FenwickTree lobbiesFound;
+    private final FenwickTree secondsQueued;
+    private final FenwickTree secondsWaited;
+    private final FenwickTree secondsPlayed;
+    private final FenwickTree escapes;
+    private final FenwickTree deaths;
+    private final FenwickTree[] killCounts = new FenwickTree[MAX_KILL_COUNT + 1];
+    private final Map<Killer, GroupCounters> killerCounters = new EnumMap<>(Killer.class);
+    private final Map<RealmMap, GroupCounters> mapCounters = new EnumMap<>(RealmMap.class);
+    private final StreakSegmentTree streaks;
+
+
+    public MatchStatsIndex(int capacity) {
+        matches = new Match[capacity];
+        lobbiesFound = new FenwickTree(capacity);
+        secondsQueued = new FenwickTree(capacity);
+        secondsWaited = new FenwickTree(capacity);
+        secondsPlayed = new FenwickTree(capacity);
+        escapes = new FenwickTree(capacity);
+        deaths = new FenwickTree(capacity);
+        for (int i = 0; i < killCounts.length; i++) {
+            killCounts[i] = new FenwickTree(capacity);
+        }
+        streaks = new StreakSegmentTree(capacity);
+    }
+
+
+    /**
+     * Adds a match, replacing the oldest one if the index is full.
+     */
+    public void add(Match match) {
+        int index = (int) (matchesAdded % matches.length);
+        Match replacedMatch = matches[index];
+
+        if (replacedMatch != null) {
+            updateCounters(index, replacedMatch, -1);
+        }
+
+        matches[index] = match;
+        matchesAdded++;
+        updateCounters(index, match, 1);
+        streaks.set(index, StreakSegmentTree.Segment.of(match));
+    }
+
+    public int capacity() {
+        return matches.length;
+    }
+
+    public int size() {
+        return (int) min(matchesAdded, matches.length);
+    }
+
+    /**
+     * @param lastMatches number of matches to aggregate; if there are less, all of them are aggregated.
+     */
+    public AggregateStats getStats(int lastMatches) {
+        int n = Math.max(0, min(lastMatches, size()));
+        int from = (int) ((matchesAdded - n) % matches.length);
+        int to = from + n;
+
+        StreakSegmentTree.Segment streak;
+        if (to <= matches.length) {
+            streak = streaks.query(from, to);
+        } else {
+            streak = streaks.query(from, matches.length).concat(streaks.query(0, to - matches.length));
+        }
+
+        AggregateStats stats = AggregateStats.builder()
+                .lobbiesFound(sum(lobbiesFound, from, to))
+                .secondsQueued(sum(secondsQueued, from, to))
+                .secondsWaited(sum(secondsWaited, from, to))
+                .secondsPlayed(sum(secondsPlayed, from, to))
+                .matchesPlayed(n)
+                .escapes(sum(escapes, from, to))
+                .escapesInARow(streak.trailingEscapes)
+                .maxEscapesInARow(streak.maxEscapesInARow)
+                .deaths(sum(deaths, from, to))
+                .deathsInARow(streak.trailingDeaths)
+                .maxDeathsInARow(streak.maxDeathsInARow)
+                .kill0s(sum(killCounts[0], from, to))
+                .kill1s(sum(killCounts[1], from, to))
+                .kill2s(sum(killCounts[2], from, to))
+                .kill3s(sum(killCounts[3], from, to))
+                .kill4s(sum(killCounts[4], from, to))
+                .kill5s(sum(killCounts[5], from, to))
+                .build();
+
+        for (Map.Entry<Killer, GroupCounters> entry : killerCounters.entrySet()) {
+            GroupCounters counters = entry.getValue();
+            int matchCount = sum(counters.matches, from, to);
+            if (matchCount > 0) {
+                stats.getKillersStats().put(entry.getKey(), KillerStats.builder()
+                        .matches(matchCount)
+                        .escapes(sum(counters.escapes, from, to))
+                        .deaths(sum(counters.deaths, from, to))
+                        .matchTime(sum(counters.matchTime, from, to))
+                        .build());
+            }
+        }
+
+        for (Map.Entry<RealmMap, GroupCounters> entry : mapCounters.entrySet()) {
+            GroupCounters counters = entry.getValue();
+            int matchCount = sum(counters.matches, from, to);
+            if (matchCount > 0) {
+                stats.getMapStats().put(entry.getKey(), MapStats.builder()
+                        .matches(matchCount)
+                        .escapes(sum(counters.escapes, from, to))
+                        .deaths(sum(counters.deaths, from, to))
+                        .matchTime(sum(counters.matchTime, from, to))
+                        .build());
+            }
+        }
+
+        return stats;
+    }
+
+    /**
+     * @return the matches in the index, from oldest to newest.
+     */
+    public List<Match> getMatches() {
+        List<Match> result = new ArrayList<>(size());
+        for (long i = matchesAdded - size(); i < matchesAdded; i++) {
+            result.add(matches[(int) (i % matches.length)]);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the oldest of the last N matches, or null if there are no matches.
+     */
+    public Match getOldestMatch(int lastMatches) {
+        int n = min(lastMatches, size());
+
+        return n > 0 ? matches[(int) ((matchesAdded - n) % matches.length)] : null;
+    }
+
+
+    private void updateCounters(int index, Match match, int sign) {
+        lobbiesFound.add(index, sign * Optional.ofNullable(match.getLobbiesFound()).orElse(0));
+        secondsQueued.add(index, sign * Optional.ofNullable(match.getSecondsQueued()).orElse(0));
+        secondsWaited.add(index, sign * Optional.ofNullable(match.getSecondsWaited()).orElse(0));
+        secondsPlayed.add(index, sign * secondsPlayed(match));
+
+        if (match.escaped()) {
+            escapes.add(index, sign);
+        } else if (match.died()) {
+            deaths.add(index, sign);
+        }
+
+        Integer killCount = match.getKillCount();
+        if (killCount != null && killCount >= 0 && killCount <= MAX_KILL_COUNT) {
+            killCounts[killCount].add(index, sign);
+        }
+
+        Killer killer = Optional.ofNullable(match.getKiller()).orElse(Killer.UNIDENTIFIED);
+        getCounters(killerCounters, killer).add(index, match, sign);
+
+        RealmMap realmMap = Optional.ofNullable(match.getRealmMap()).orElse(RealmMap.UNIDENTIFIED);
+        getCounters(mapCounters, realmMap).add(index, match, sign);
+    }
+
+    private <K> GroupCounters getCounters(Map<K, GroupCounters> countersByKey, K key) {
+        return countersByKey.computeIfAbsent(key, k -> new GroupCounters(matches.length));
+    }
+
+    /**
+     * Sums the values in [from, to), where the range may wrap around the end of the circular buffer.
+     */
+    private int sum(FenwickTree tree, int from, int to) {
+        if (to <= tree.size()) {
+            return tree.sum(from, to);
+        }
+
+        return tree.sum(from, tree.size()) + tree.sum(0, to - tree.size());
+    }
+
+    private static int secondsPlayed(Match match) {
+        return Optional.ofNullable(match.getSecondsPlayed()).orElse(0);
+    }
+
+}
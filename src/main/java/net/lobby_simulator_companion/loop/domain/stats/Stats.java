@@ -1,12 +1,13 @@
 package net.lobby_simulator_companion.loop.domain.stats;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.Gson;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import lombok.RequiredArgsConstructor;
 import net.lobby_simulator_companion.loop.domain.stats.periodic.DailyStats;
 import net.lobby_simulator_companion.loop.domain.stats.periodic.GlobalStats;
@@ -15,9 +16,10 @@ import net.lobby_simulator_companion.loop.domain.stats.periodic.PeriodStats;
 import net.lobby_simulator_companion.loop.domain.stats.periodic.WeeklyStats;
 import net.lobby_simulator_companion.loop.domain.stats.periodic.YearlyStats;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
@@ -62,62 +64,102 @@ public class Stats {
     }
 
 
+    /**
+     * Replaces the stats of every period with the ones of the given stats.
+     */
+    public void replaceWith(Stats stats) {
+        System.arraycopy(stats.periodsStats, 0, periodsStats, 0, periodsStats.length);
+    }
+
     public void addMatchStats(Match matchStats) {
         for (PeriodStats p : periodsStats) {
             p.addMatchStats(matchStats);
         }
     }
 
+    /**
+     * Adds matches played in the past (for example, the ones found in old logs), each one only to the stats of the
+     * periods in which it started. The streaks among them are counted, but they do not change the current streaks.
+     *
+     * @param matches in chronological order.
+     */
+    public void addPastMatchStats(List<Match> matches) {
+        for (PeriodStats periodStats : periodsStats) {
+            AggregateStats pastStats = new AggregateStats();
+            matches.stream()
+                    .filter(m -> periodStats.includes(m.getMatchStartTime()))
+                    .forEach(pastStats::addMatchStats);
+            periodStats.addPastStats(pastStats);
+        }
+    }
+
     public Stream<PeriodStats> asStream() {
         return Arrays.stream(periodsStats);
     }
 
 
-    public static final class Serializer implements JsonSerializer<Stats> {
-        @Override
-        public JsonElement serialize(Stats src, Type typeOfSrc, JsonSerializationContext context) {
-            JsonObject jsonObj = new JsonObject();
+    /**
+     * Reads and writes the stats as a stream, without building a JSON tree first.
+     */
+    public static final class JsonAdapterFactory implements TypeAdapterFactory {
 
-            for (Stats.Period period : Stats.Period.values()) {
-                jsonObj.add(period.name().toLowerCase(), context.serialize(src.get(period)));
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+            if (typeToken.getRawType() != Stats.class) {
+                return null;
             }
-
-            return jsonObj;
+            return (TypeAdapter<T>) new StatsTypeAdapter(gson);
         }
     }
 
+    private static final class StatsTypeAdapter extends TypeAdapter<Stats> {
 
-    public static final class Deserializer implements JsonDeserializer<Stats> {
+        private final TypeAdapter<?>[] periodAdapters = new TypeAdapter<?>[Period.values().length];
 
+
+        StatsTypeAdapter(Gson gson) {
+            periodAdapters[Period.DAILY.ordinal()] = gson.getAdapter(DailyStats.class);
+            periodAdapters[Period.WEEKLY.ordinal()] = gson.getAdapter(WeeklyStats.class);
+            periodAdapters[Period.MONTHLY.ordinal()] = gson.getAdapter(MonthlyStats.class);
+            periodAdapters[Period.YEARLY.ordinal()] = gson.getAdapter(YearlyStats.class);
+            periodAdapters[Period.GLOBAL.ordinal()] = gson.getAdapter(GlobalStats.class);
+        }
+
+        @SuppressWarnings("unchecked")
         @Override
-        public Stats deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+        public void write(JsonWriter out, Stats src) throws IOException {
+            if (src == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            for (Period period : Period.values()) {
+                out.name(period.name().toLowerCase());
+                ((TypeAdapter<PeriodStats>) periodAdapters[period.ordinal()]).write(out, src.get(period));
+            }
+            out.endObject();
+        }
+
+        @Override
+        public Stats read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
             Stats result = new Stats();
 
-            JsonObject jsonObj = json.getAsJsonObject();
-            jsonObj.entrySet().forEach(e -> {
-                Stats.Period period = Stats.Period.valueOf(e.getKey().toUpperCase());
-                PeriodStats periodStats = null;
-
-                switch (period) {
-                    case DAILY:
-                        periodStats = context.deserialize(e.getValue(), DailyStats.class);
-                        break;
-                    case WEEKLY:
-                        periodStats = context.deserialize(e.getValue(), WeeklyStats.class);
-                        break;
-                    case MONTHLY:
-                        periodStats = context.deserialize(e.getValue(), MonthlyStats.class);
-                        break;
-                    case YEARLY:
-                        periodStats = context.deserialize(e.getValue(), YearlyStats.class);
-                        break;
-                    case GLOBAL:
-                        periodStats = context.deserialize(e.getValue(), GlobalStats.class);
-                        break;
+            in.beginObject();
+            while (in.hasNext()) {
+                Period period;
+                try {
+                    period = Period.valueOf(in.nextName().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new JsonParseException("Unknown stats period.", e);
                 }
-
-                result.set(period, periodStats);
-            });
+                result.set(period, (PeriodStats) periodAdapters[period.ordinal()].read(in));
+            }
+            in.endObject();
 
             return result;
         }
@@ -0,0 +1,103 @@
+package net.lobby_simulator_companion.loop.domain.stats;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+
+import static java.lang.Math.max;
+
+/**
+ * Segment tree over the results of a fixed number of matches, for finding the escape/death streaks of any range of
+ * matches in O(log n).
+ * Like in {@link AggregateStats}, matches without a result do not break streaks.
+ *
+ * @author NickyRamone
+ */
+final class StreakSegmentTree {
+
+    /**
+     * Streak information of a range of consecutive matches.
+     */
+    @RequiredArgsConstructor
+    static final class Segment {
+        static final Segment EMPTY = new Segment(0, 0, 0, 0, 0, 0, 0, 0);
+        static final Segment ESCAPE = new Segment(1, 1, 1, 1, 0, 0, 0, 0);
+        static final Segment DEATH = new Segment(0, 0, 0, 0, 1, 1, 1, 1);
+
+        final int escapes;
+        /** Escapes in a row at the start of the range. */
+        final int leadingEscapes;
+        /** Escapes in a row at the end of the range. */
+        final int trailingEscapes;
+        final int maxEscapesInARow;
+        final int deaths;
+        final int leadingDeaths;
+        final int trailingDeaths;
+        final int maxDeathsInARow;
+
+
+        static Segment of(Match match) {
+            return match.escaped() ? ESCAPE : match.died() ? DEATH : EMPTY;
+        }
+
+        /**
+         * @param next the range that immediately follows this one.
+         */
+        Segment concat(Segment next) {
+            return new Segment(
+                    escapes + next.escapes,
+                    deaths == 0 ? escapes + next.leadingEscapes : leadingEscapes,
+                    next.deaths == 0 ? trailingEscapes + next.escapes : next.trailingEscapes,
+                    max(max(maxEscapesInARow, next.maxEscapesInARow), trailingEscapes + next.leadingEscapes),
+                    deaths + next.deaths,
+                    escapes == 0 ? deaths + next.leadingDeaths : leadingDeaths,
+                    next.escapes == 0 ? trailingDeaths + next.deaths : next.trailingDeaths,
+                    max(max(maxDeathsInARow, next.maxDeathsInARow), trailingDeaths + next.leadingDeaths));
+        }
+    }
+
+    private final int leafCount;
+    private final Segment[] nodes;
+
+
+    StreakSegmentTree(int size) {
+        int leaves = 1;
+        while (leaves < size) {
+            leaves <<= 1;
+        }
+
+        leafCount = leaves;
+        nodes = new Segment[2 * leaves];
+        Arrays.fill(nodes, Segment.EMPTY);
+    }
+
+
+    void set(int index, Segment segment) {
+        int node = leafCount + index;
+        nodes[node] = segment;
+
+        for (node >>= 1; node > 0; node >>= 1) {
+            nodes[node] = nodes[2 * node].concat(nodes[2 * node + 1]);
+        }
+    }
+
+    /**
+     * @return streaks of the matches in [fromIndex, toIndex)
+     */
+    Segment query(int fromIndex, int toIndex) {
+        Segment left = Segment.EMPTY;
+        Segment right = Segment.EMPTY;
+
+        for (int l = leafCount + fromIndex, r = leafCount + toIndex; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                left = left.concat(nodes[l++]);
+            }
+            if ((r & 1) == 1) {
+                right = nodes[--r].concat(right);
+            }
+        }
+
+        return left.concat(right);
+    }
+
+}
@@ -11,6 +11,14 @@ public class GlobalStats extends PeriodStats {
         super(now);
     }
 
+    /**
+     * The global stats include every match, even the ones played before they were started.
+     */
+    @Override
+    public boolean includes(LocalDateTime time) {
+        return true;
+    }
+
     @Override
     protected LocalDateTime getPeriodStart(LocalDateTime now) {
         return now;
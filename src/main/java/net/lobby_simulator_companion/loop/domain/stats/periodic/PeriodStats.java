@@ -29,6 +29,13 @@ public abstract class PeriodStats extends AggregateStats {
         periodEnd = getPeriodEnd(now);
     }
 
+    /**
+     * @return true if the given time falls within this period.
+     */
+    public boolean includes(LocalDateTime time) {
+        return time != null && !time.isBefore(periodStart) && (periodEnd == null || !time.isAfter(periodEnd));
+    }
+
     abstract LocalDateTime getPeriodStart(LocalDateTime now);
 
     abstract LocalDateTime getPeriodEnd(LocalDateTime now);
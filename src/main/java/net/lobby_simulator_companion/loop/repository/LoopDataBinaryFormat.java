@@ -0,0 +1,272 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import com.google.gson.Gson;
+import net.lobby_simulator_companion.loop.domain.LoopData;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.stats.Stats;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary encoding of the data file (version 4 onwards; up to version 3, the data file was JSON).
+ * <p>
+ * The file starts with a header (magic number, version, flags and payload length) followed by the (deflated)
+ * payload, which is a sequence of blocks. Every block has a type, a length and a CRC of its contents, so corruption
+ * is detected instead of silently loading wrong data, and unknown blocks can be skipped.
+ * <p>
+ * Players are stored field by field (see {@link PlayerCodec}). The stats are a few hundred bytes with many optional
+ * parts, so their block holds their JSON encoding.
+ * <p>
+ * If encrypted, the payload is encrypted with AES-CTR and authenticated (together with the header) with
+ * HMAC-SHA256 (encrypt-then-MAC; AES-GCM would be the obvious choice, but it is several times slower on Java 8).
+ * The keys are part of the source code, so this only hides the data from casual inspection and detects accidental
+ * corruption; anyone can forge a file that passes the check.
+ *
+ * @author NickyRamone
+ */
+class LoopDataBinaryFormat {
+
+    static final int MAGIC = 0x53544244; // "STBD"
+    static final int FORMAT_VERSION = 4;
+    private static final int HEADER_SIZE = 16;
+    private static final int FLAG__ENCRYPTED = 1;
+    private static final int FLAG__COMPRESSED = 2;
+
+    private static final int BLOCK__PLAYERS = 1;
+    private static final int BLOCK__STATS = 2;
+
+    private static final byte[] CIPHER_KEY_MATERIAL = new byte[]{
+            71, -12, 5, 99, -83, 40, 17, -2, 64, -101, 33, 8, -47, 120, -9, 56};
+    private static final byte[] MAC_KEY_MATERIAL = new byte[]{
+            -38, 90, 3, -115, 27, 66, -4, 81, 12, -77, 105, 49, -60, 7, 31, -92};
+    private static final int IV_LENGTH = 16;
+    private static final int MAC_LENGTH = 32;
+
+    private final Gson gson;
+    private final SecureRandom random = new SecureRandom();
+
+
+    LoopDataBinaryFormat(Gson gson) {
+        this.gson = gson;
+    }
+
+
+    static boolean isBinary(byte[] fileStart) {
+        return fileStart.length >= 4 && ByteBuffer.wrap(fileStart).getInt() == MAGIC;
+    }
+
+    byte[] encode(LoopData loopData, boolean encrypted) throws IOException {
+        ByteArrayOutputStream payloadStream = new ByteArrayOutputStream(64 + 128 * loopData.getPlayers().size());
+        writeBlock(payloadStream, BLOCK__PLAYERS, encodePlayers(loopData.getPlayers()));
+        writeBlock(payloadStream, BLOCK__STATS,
+                gson.toJson(loopData.getStats(), Stats.class).getBytes(StandardCharsets.UTF_8));
+        byte[] payload = payloadStream.toByteArray();
+        byte[] storedPayload = compress(payload);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putInt(FLAG__COMPRESSED | (encrypted ? FLAG__ENCRYPTED : 0))
+                .putInt(payload.length);
+
+        if (!encrypted) {
+            return ByteBuffer.allocate(HEADER_SIZE + storedPayload.length)
+                    .put(header.array()).put(storedPayload).array();
+        }
+
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        byte[] encryptedPayload = crypt(Cipher.ENCRYPT_MODE, iv, storedPayload);
+        byte[] mac = mac(header.array(), iv, encryptedPayload);
+
+        return ByteBuffer.allocate(HEADER_SIZE + iv.length + encryptedPayload.length + mac.length)
+                .put(header.array()).put(iv).put(encryptedPayload).put(mac).array();
+    }
+
+    LoopData decode(ByteBuffer buffer) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        buffer.get(header);
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+        if (headerBuffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary data file.");
+        }
+        int version = headerBuffer.getInt();
+        if (version > FORMAT_VERSION) {
+            throw new IOException("Data file version " + version + " is newer than this app supports.");
+        }
+        int flags = headerBuffer.getInt();
+        int payloadLength = headerBuffer.getInt();
+
+        ByteBuffer payload;
+        if ((flags & FLAG__ENCRYPTED) != 0) {
+            if (buffer.remaining() < IV_LENGTH + MAC_LENGTH) {
+                throw new IOException("Data file is truncated.");
+            }
+            byte[] iv = new byte[IV_LENGTH];
+            buffer.get(iv);
+            byte[] encryptedPayload = new byte[buffer.remaining() - MAC_LENGTH];
+            buffer.get(encryptedPayload);
+            byte[] mac = new byte[MAC_LENGTH];
+            buffer.get(mac);
+            if (!MessageDigest.isEqual(mac, mac(header, iv, encryptedPayload))) {
+                throw new IOException("Data file is corrupt (authentication failed).");
+            }
+            payload = ByteBuffer.wrap(crypt(Cipher.DECRYPT_MODE, iv, encryptedPayload));
+        } else {
+            payload = buffer.slice();
+        }
+        if ((flags & FLAG__COMPRESSED) != 0) {
+            payload = ByteBuffer.wrap(decompress(payload, payloadLength));
+        }
+        if (payload.remaining() != payloadLength) {
+            throw new IOException("Data file is truncated.");
+        }
+
+        List<Player> players = new ArrayList<>();
+        Stats stats = null;
+        while (payload.hasRemaining()) {
+            int blockType = payload.getInt();
+            ByteBuffer block = readBlock(payload);
+
+            if (blockType == BLOCK__PLAYERS) {
+                players = decodePlayers(block);
+            } else if (blockType == BLOCK__STATS) {
+                stats = gson.fromJson(StandardCharsets.UTF_8.decode(block).toString(), Stats.class);
+            }
+        }
+
+        return new LoopData(players, stats != null ? stats : new Stats());
+    }
+
+
+    private void writeBlock(ByteArrayOutputStream out, int blockType, byte[] contents) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(contents);
+
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(blockType);
+        dataOut.writeInt(contents.length);
+        dataOut.write(contents);
+        dataOut.writeInt((int) crc.getValue());
+    }
+
+    private ByteBuffer readBlock(ByteBuffer payload) throws IOException {
+        int length = payload.getInt();
+        if (length < 0 || length + 4 > payload.remaining()) {
+            throw new IOException("Data file block is truncated.");
+        }
+        ByteBuffer block = payload.slice();
+        block.limit(length);
+        payload.position(payload.position() + length);
+        int expectedCrc = payload.getInt();
+
+        CRC32 crc = new CRC32();
+        crc.update(block.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Data file block is corrupt (CRC mismatch).");
+        }
+
+        return block;
+    }
+
+
+    private byte[] encodePlayers(List<Player> players) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + 128 * players.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(players.size());
+        for (Player player : players) {
+            PlayerCodec.write(out, player);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private List<Player> decodePlayers(ByteBuffer in) {
+        int count = in.getInt();
+        List<Player> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            players.add(PlayerCodec.read(in));
+        }
+
+        return players;
+    }
+
+
+    private static byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(data);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        byte[] chunk = new byte[64 * 1024];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(ByteBuffer data, int length) throws IOException {
+        byte[] compressed = new byte[data.remaining()];
+        data.get(compressed);
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed);
+
+        byte[] result = new byte[length];
+        try {
+            int inflated = inflater.inflate(result);
+            if (inflated != length || !inflater.finished()) {
+                throw new IOException("Data file is truncated.");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Data file is corrupt.", e);
+        } finally {
+            inflater.end();
+        }
+
+        return result;
+    }
+
+    private static byte[] crypt(int mode, byte[] iv, byte[] data) throws IOException {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+            cipher.init(mode, new SecretKeySpec(CIPHER_KEY_MATERIAL, "AES"), new IvParameterSpec(iv));
+
+            return cipher.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to configure encryption.", e);
+        }
+    }
+
+    private static byte[] mac(byte[] header, byte[] iv, byte[] encryptedPayload) throws IOException {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(MAC_KEY_MATERIAL, "HmacSHA256"));
+            mac.update(header);
+            mac.update(iv);
+
+            return mac.doFinal(encryptedPayload);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to configure encryption.", e);
+        }
+    }
+
+}
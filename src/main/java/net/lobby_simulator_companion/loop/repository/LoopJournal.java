@@ -0,0 +1,123 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.stats.Stats;
+
+import javax.crypto.Cipher;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Append-only log of the changes made to the stored data since the data file was last written.
+ * <p>
+ * Every entry is a line holding the new state of whatever changed (players are stored whole), so replaying an entry
+ * more than once has no effect. Entries are encrypted if the data file is.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+class LoopJournal {
+
+    /**
+     * Changes made to the stored data.
+     */
+    static final class Entry {
+        final List<Player> players;
+        final Stats stats;
+
+        Entry(List<Player> players, Stats stats) {
+            this.players = players;
+            this.stats = stats;
+        }
+    }
+
+
+    private final File file;
+    private final Gson gson;
+    private final boolean encrypted;
+
+
+    LoopJournal(File file, Gson gson, boolean encrypted) {
+        this.file = file;
+        this.gson = gson;
+        this.encrypted = encrypted;
+    }
+
+
+    long size() {
+        return file.length();
+    }
+
+    void append(Entry entry) throws IOException {
+        String line = gson.toJson(entry);
+
+        if (encrypted) {
+            try {
+                line = Base64.getEncoder().encodeToString(
+                        LoopRepository.getCipher(false).doFinal(line.getBytes(StandardCharsets.UTF_8)));
+            } catch (Exception e) {
+                throw new IOException("Failed to encrypt journal entry.", e);
+            }
+        }
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                StandardCharsets.UTF_8))) {
+            writer.write(line);
+            writer.newLine();
+        }
+    }
+
+    /**
+     * @return the entries in the order they were appended.
+     * A broken last entry (for example, if the app was closed while writing it) is ignored.
+     */
+    List<Entry> read() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+
+        if (!file.exists()) {
+            return entries;
+        }
+
+        Cipher cipher = null;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                try {
+                    if (!line.startsWith("{")) {
+                        cipher = cipher != null ? cipher : LoopRepository.getCipher(true);
+                        line = new String(cipher.doFinal(Base64.getDecoder().decode(line)), StandardCharsets.UTF_8);
+                    }
+                    entries.add(gson.fromJson(line, Entry.class));
+                } catch (JsonParseException e) {
+                    log.warn("Ignoring broken journal entry.", e);
+                } catch (Exception e) {
+                    log.warn("Ignoring journal entry that could not be decrypted.", e);
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    void clear() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+}
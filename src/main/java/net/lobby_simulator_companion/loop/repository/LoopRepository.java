@@ -6,6 +6,8 @@ import com.google.gson.stream.JsonWriter;
 import lombok.extern.slf4j.Slf4j;
 import net.lobby_simulator_companion.loop.config.AppProperties;
 import net.lobby_simulator_companion.loop.domain.LoopData;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.stats.Stats;
 import net.lobby_simulator_companion.loop.util.FileUtil;
 
 import javax.crypto.Cipher;
@@ -23,10 +25,23 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -41,17 +56,25 @@ public class LoopRepository {
     private static final byte[] CIPHER_KEY_MATERIAL = new byte[]{2, 3, -57, 11, 73, 57, -66, 21};
     private static final String PROPERTY__READ_ENCRYPTED = "storage.read.encrypted";
     private static final String PROPERTY__WRITE_ENCRYPTED = "storage.write.encrypted";
+    private static final String PROPERTY__WRITE_FORMAT = "storage.write.format";
+    private static final String FORMAT__JSON = "json";
+    private static final long JOURNAL_COMPACTION_SIZE = 1024 * 1024;
 
     private AppProperties properties;
     private File saveFile;
     private final Gson gson;
     private final String jsonIndent;
+    private final LoopJournal journal;
+    private final LoopDataBinaryFormat binaryFormat;
 
 
     public LoopRepository(AppProperties properties, Gson gson) {
         this.properties = properties;
         this.gson = gson;
         saveFile = Paths.get(properties.get("app.home")).resolve(properties.get("storage.file")).toFile();
+        journal = new LoopJournal(new File(saveFile.getPath() + ".journal"), gson,
+                properties.getBoolean(PROPERTY__WRITE_ENCRYPTED));
+        binaryFormat = new LoopDataBinaryFormat(gson);
 
         if (properties.getBoolean(PROPERTY__WRITE_ENCRYPTED)) {
             jsonIndent = "";
@@ -66,15 +89,16 @@ public class LoopRepository {
 
         try {
             Instant loadStartTime = Instant.now();
-            Cipher cipher = getCipher(true);
-            JsonReader reader = createJsonReader(saveFile, cipher);
-            loopData = gson.fromJson(reader, LoopData.class);
-            reader.close();
+            long allocatedBytesAtStart = getAllocatedBytes();
+            loopData = readDataFile();
+            applyJournal(loopData);
             Duration elapsed = Duration.between(loadStartTime, Instant.now());
-            log.info("Loaded data ({} players; {} matches) in {} ms.",
+            long allocatedBytes = getAllocatedBytes() - allocatedBytesAtStart;
+            log.info("Loaded data ({} players; {} matches) in {} ms; allocated {} KB.",
                     loopData.getPlayers().size(),
                     loopData.getMatchLog().matchCount(),
-                    elapsed.toMillis());
+                    elapsed.toMillis(),
+                    allocatedBytesAtStart < 0 ? "n/a" : allocatedBytes / 1024);
 
         } catch (FileNotFoundException e1) {
             throw e1;
@@ -85,6 +109,13 @@ public class LoopRepository {
         return loopData;
     }
 
+    /**
+     * Writes the whole data file, which makes the journal of changes no longer needed.
+     * The data is written to a temporary file which then replaces the data file, so the data file is never left
+     * half-written.
+     *
+     * @param loopData data which is not being modified while saving (see {@link #snapshot(Collection, Stats)}).
+     */
     public void save(LoopData loopData) throws IOException {
         log.debug("Saving data ({} players)...", loopData.getPlayers().size());
         Instant saveStartTime = Instant.now();
@@ -92,10 +123,13 @@ public class LoopRepository {
             FileUtil.saveFile(this.saveFile, "");
         }
 
-        JsonWriter writer = createJsonWriter();
-        writer.setIndent(jsonIndent);
-        gson.toJson(loopData, LoopData.class, writer);
-        writer.close();
+        File tempFile = new File(saveFile.getPath() + ".tmp");
+        writeDataFile(tempFile, loopData);
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        replaceFile(tempFile, saveFile);
+        journal.clear();
         Duration elapsed = Duration.between(saveStartTime, Instant.now());
         log.debug("Saved data ({} players; {} matches) in {} ms.",
                 loopData.getPlayers().size(),
@@ -104,6 +138,122 @@ public class LoopRepository {
     }
 
 
+    /**
+     * Copies the data to be saved, so that it can be written while the app keeps modifying the original.
+     * Copying is much faster than writing, so changes only need to be held back while copying.
+     */
+    public LoopData snapshot(Collection<Player> players, Stats stats) {
+        List<Player> playersCopy = players.stream().map(Player::copy).collect(Collectors.toList());
+
+        return new LoopData(playersCopy, copy(stats));
+    }
+
+    public Stats copy(Stats stats) {
+        return gson.fromJson(gson.toJsonTree(stats, Stats.class), Stats.class);
+    }
+
+    /**
+     * Stores only what changed since the last save, by adding it to the journal.
+     *
+     * @param changedPlayers players that were added or modified.
+     * @param stats          the stats, if they changed; otherwise, null.
+     */
+    public void saveChanges(List<Player> changedPlayers, Stats stats) throws IOException {
+        Instant saveStartTime = Instant.now();
+        journal.append(new LoopJournal.Entry(changedPlayers, stats));
+        log.debug("Saved changes ({} players) in {} ms.",
+                changedPlayers.size(), Duration.between(saveStartTime, Instant.now()).toMillis());
+    }
+
+    /**
+     * @return whether the journal has grown enough to be worth writing the whole data file (and discarding the
+     * journal).
+     */
+    public boolean isCompactionDue() {
+        return journal.size() >= JOURNAL_COMPACTION_SIZE;
+    }
+
+    /**
+     * @return the number of bytes allocated so far by the current thread, or -1 if the JVM cannot tell.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+
+        return sunThreadBean.isThreadAllocatedMemoryEnabled()
+                ? sunThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId())
+                : -1;
+    }
+
+    private void applyJournal(LoopData loopData) throws IOException {
+        List<LoopJournal.Entry> entries = journal.read();
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Map<String, Player> players = new LinkedHashMap<>();
+        loopData.getPlayers().forEach(p -> players.put(p.getIpHash(), p));
+
+        for (LoopJournal.Entry entry : entries) {
+            if (entry.players != null) {
+                entry.players.forEach(p -> players.put(p.getIpHash(), p));
+            }
+            if (entry.stats != null) {
+                loopData.getStats().replaceWith(entry.stats);
+            }
+        }
+
+        loopData.getPlayers().clear();
+        loopData.addPlayers(players.values());
+        log.info("Applied {} journal entries.", entries.size());
+    }
+
+
+    /**
+     * Reads the data file, whether it is in the binary format or in the JSON format of older versions.
+     */
+    private LoopData readDataFile() throws Exception {
+        byte[] fileStart = new byte[4];
+        try (InputStream inputStream = new FileInputStream(saveFile)) {
+            if (inputStream.read(fileStart) < fileStart.length) {
+                fileStart = new byte[0];
+            }
+        }
+
+        if (LoopDataBinaryFormat.isBinary(fileStart)) {
+            return binaryFormat.decode(ByteBuffer.wrap(Files.readAllBytes(saveFile.toPath())));
+        }
+
+        try (JsonReader reader = createJsonReader(saveFile, getCipher(true))) {
+            return gson.fromJson(reader, LoopData.class);
+        }
+    }
+
+    private void writeDataFile(File file, LoopData loopData) throws IOException {
+        if (!FORMAT__JSON.equalsIgnoreCase(properties.get(PROPERTY__WRITE_FORMAT))) {
+            Files.write(file.toPath(), binaryFormat.encode(loopData, properties.getBoolean(PROPERTY__WRITE_ENCRYPTED)));
+            return;
+        }
+
+        try (JsonWriter writer = createJsonWriter(file)) {
+            writer.setIndent(jsonIndent);
+            gson.toJson(loopData, LoopData.class, writer);
+        }
+    }
+
+    private void replaceFile(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+
     private JsonReader createJsonReader(File file, Cipher cipher) throws IOException {
         InputStream inputStream;
 
@@ -125,7 +275,7 @@ public class LoopRepository {
     }
 
 
-    private JsonWriter createJsonWriter() throws IOException {
+    private JsonWriter createJsonWriter(File file) throws IOException {
         OutputStream outputStream;
 
         if (properties.getBoolean(PROPERTY__WRITE_ENCRYPTED)) {
@@ -136,9 +286,9 @@ public class LoopRepository {
                 log.error("Failed to configure encryption.", e);
                 throw new IOException(e.getMessage());
             }
-            outputStream = new GZIPOutputStream(new CipherOutputStream(new FileOutputStream(saveFile), cipher));
+            outputStream = new GZIPOutputStream(new CipherOutputStream(new FileOutputStream(file), cipher));
         } else {
-            outputStream = new FileOutputStream(this.saveFile.getAbsolutePath());
+            outputStream = new FileOutputStream(file);
         }
 
         return gson.newJsonWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
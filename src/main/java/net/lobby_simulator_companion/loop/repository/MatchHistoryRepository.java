@@ -0,0 +1,521 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.config.AppProperties;
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.MatchLog;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only store with the history of all the matches played.
+ * <p>
+ * Every match is stored as a fixed-width binary record, so the file can be memory-mapped and any match (or any
+ * field of every match) can be read without parsing anything.
+ * Killers and maps are stored as numeric codes. The codes are the enum ordinals at the time the file was created;
+ * the names they stand for are kept in a dictionary file next to the history, so that adding killers or maps to the
+ * enums does not break existing histories.
+ * The most recent matches are also kept in memory.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class MatchHistoryRepository implements Closeable {
+
+    private static final String PROPERTY__FILE = "storage.match_history.file";
+
+    private static final int MAGIC = 0x53544D48; // "STMH"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 96;
+
+    private static final int OFFSET__MATCH_START_TIME = 0;
+    private static final int OFFSET__LOBBIES_FOUND = 8;
+    private static final int OFFSET__SECONDS_QUEUED = 12;
+    private static final int OFFSET__SECONDS_WAITED = 16;
+    private static final int OFFSET__SECONDS_PLAYED = 20;
+    private static final int OFFSET__KILLER = 24;
+    private static final int OFFSET__REALM_MAP = 26;
+    private static final int OFFSET__ESCAPED = 28;
+    private static final int OFFSET__KILL_COUNT = 29;
+    private static final int OFFSET__KILLER_STEAM_ID = 32;
+    private static final int OFFSET__KILLER_IP_HASH = 40;
+    private static final int OFFSET__KILLER_DBD_ID = 56;
+
+    private static final int LENGTH__KILLER_IP_HASH = 16;
+    private static final int LENGTH__KILLER_DBD_ID = RECORD_SIZE - OFFSET__KILLER_DBD_ID;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final int NULL_INT = -1;
+    private static final long NULL_STEAM_ID = 0;
+
+
+    private final Path file;
+    private final Path dictionaryFile;
+    private final int tailSize;
+    private final Deque<Match> tail = new ArrayDeque<>();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final Codes<Killer> killerCodes = new Codes<>(Killer.class);
+    private final Codes<RealmMap> realmMapCodes = new Codes<>(RealmMap.class);
+
+    private FileChannel channel;
+    private long recordCount;
+
+
+    public MatchHistoryRepository(AppProperties properties) {
+        this(Paths.get(properties.get("app.home")).resolve(properties.get(PROPERTY__FILE)), MatchLog.CAPACITY);
+    }
+
+    /**
+     * @param tailSize number of the most recent matches that are kept in memory.
+     */
+    public MatchHistoryRepository(Path file, int tailSize) {
+        this.file = file;
+        this.dictionaryFile = file.resolveSibling(file.getFileName() + ".dict");
+        this.tailSize = tailSize;
+    }
+
+
+    public synchronized void open() throws IOException {
+        loadDictionary();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        if (channel.size() == 0) {
+            writeHeader();
+        } else {
+            checkHeader();
+        }
+
+        long dataSize = channel.size() - HEADER_SIZE;
+        recordCount = dataSize / RECORD_SIZE;
+
+        if (dataSize % RECORD_SIZE != 0) {
+            // the app was probably closed while writing the last record
+            log.warn("Discarding incomplete match record at the end of the match history.");
+            channel.truncate(HEADER_SIZE + recordCount * RECORD_SIZE);
+        }
+
+        loadTail();
+        log.info("Opened match history ({} matches).", recordCount);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            force();
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes the matches appended so far to the storage device, so that they survive a crash of the system.
+     */
+    public synchronized void force() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.force(false);
+        }
+    }
+
+    public synchronized long size() {
+        return recordCount;
+    }
+
+    public synchronized void append(Match match) throws IOException {
+        writeRecord(recordCount, match);
+        recordCount++;
+
+        tail.addLast(match);
+        if (tail.size() > tailSize) {
+            tail.removeFirst();
+        }
+    }
+
+    /**
+     * Adds matches played in the past (for example, the ones found in old logs), keeping the history in
+     * chronological order.
+     * <p>
+     * The stored matches played after the earliest of the new ones are rewritten after them, so this is meant for
+     * occasional imports. Records are written from the end of the file backwards, so if this is interrupted, some
+     * matches may end up stored twice, but none is lost.
+     */
+    public synchronized void insert(List<Match> matches) throws IOException {
+        if (matches.isEmpty()) {
+            return;
+        }
+        List<Match> newMatches = new ArrayList<>(matches);
+        newMatches.sort(Match.START_TIME_ORDER);
+        Match earliestMatch = newMatches.get(0);
+
+        Records records = records();
+        int from = records.size();
+        while (from > 0 && Match.START_TIME_ORDER.compare(records.get(from - 1), earliestMatch) > 0) {
+            from--;
+        }
+
+        List<Match> mergedMatches = new ArrayList<>(records.size() - from + newMatches.size());
+        for (int i = from; i < records.size(); i++) {
+            mergedMatches.add(records.get(i));
+        }
+        mergedMatches.addAll(newMatches);
+        // stable sort: stored matches go first when the start times are the same
+        mergedMatches.sort(Match.START_TIME_ORDER);
+
+        for (int i = mergedMatches.size() - 1; i >= 0; i--) {
+            writeRecord(from + i, mergedMatches.get(i));
+        }
+        recordCount = from + mergedMatches.size();
+        loadTail();
+    }
+
+    /**
+     * @return the most recent matches, from oldest to newest.
+     */
+    public synchronized List<Match> getTail() {
+        return new ArrayList<>(tail);
+    }
+
+    /**
+     * @return read-only view of all the matches stored so far, backed by the memory-mapped file.
+     * Matches appended afterwards are not included.
+     */
+    public synchronized Records records() throws IOException {
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, recordCount * RECORD_SIZE);
+
+        return new Records(buffer, (int) recordCount, killerCodes.values(), realmMapCodes.values());
+    }
+
+
+    private void writeRecord(long index, Match match) throws IOException {
+        writeBuffer.clear();
+        encode(match, writeBuffer);
+        writeBuffer.flip();
+
+        long position = HEADER_SIZE + index * RECORD_SIZE;
+        while (writeBuffer.hasRemaining()) {
+            position += channel.write(writeBuffer, position);
+        }
+    }
+
+    private void loadTail() throws IOException {
+        tail.clear();
+        Records records = records();
+        for (int i = (int) Math.max(0, recordCount - tailSize); i < recordCount; i++) {
+            tail.addLast(records.get(i));
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(RECORD_SIZE);
+        header.clear();
+        channel.write(header, 0);
+    }
+
+    private void checkHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION
+                || header.getInt() != RECORD_SIZE) {
+            throw new IOException("Unsupported match history file: " + file);
+        }
+    }
+
+    private void loadDictionary() throws IOException {
+        if (!Files.exists(dictionaryFile)) {
+            List<String> lines = new ArrayList<>();
+            for (Killer killer : Killer.values()) {
+                lines.add(killerCodes.dictionaryEntry(killer));
+            }
+            for (RealmMap realmMap : RealmMap.values()) {
+                lines.add(realmMapCodes.dictionaryEntry(realmMap));
+            }
+            Files.write(dictionaryFile, lines, StandardCharsets.UTF_8);
+        }
+
+        for (String line : Files.readAllLines(dictionaryFile, StandardCharsets.UTF_8)) {
+            if (!killerCodes.load(line) && !realmMapCodes.load(line)) {
+                log.warn("Ignoring unknown entry in match history dictionary: {}", line);
+            }
+        }
+    }
+
+    private <E extends Enum<E>> int getCode(Codes<E> codes, E value) throws IOException {
+        if (value == null) {
+            return NULL_INT;
+        }
+
+        Integer code = codes.get(value);
+        if (code == null) {
+            Files.write(dictionaryFile, Collections.singletonList(codes.dictionaryEntry(value)),
+                    StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            code = codes.add(value);
+        }
+
+        return code;
+    }
+
+    private void encode(Match match, ByteBuffer buffer) throws IOException {
+        buffer.putLong(OFFSET__MATCH_START_TIME, match.getMatchStartTime() == null ?
+                NULL_TIME : match.getMatchStartTime().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(OFFSET__LOBBIES_FOUND, toInt(match.getLobbiesFound()));
+        buffer.putInt(OFFSET__SECONDS_QUEUED, toInt(match.getSecondsQueued()));
+        buffer.putInt(OFFSET__SECONDS_WAITED, toInt(match.getSecondsWaited()));
+        buffer.putInt(OFFSET__SECONDS_PLAYED, toInt(match.getSecondsPlayed()));
+        buffer.putShort(OFFSET__KILLER, (short) getCode(killerCodes, match.getKiller()));
+        buffer.putShort(OFFSET__REALM_MAP, (short) getCode(realmMapCodes, match.getRealmMap()));
+        buffer.put(OFFSET__ESCAPED, match.getEscaped() == null ? NULL_INT : (byte) (match.getEscaped() ? 1 : 0));
+        buffer.put(OFFSET__KILL_COUNT, (byte) toInt(match.getKillCount()));
+        buffer.putLong(OFFSET__KILLER_STEAM_ID, parseSteamId(match.getKillerPlayerSteamId64()));
+        putHex(buffer, OFFSET__KILLER_IP_HASH, LENGTH__KILLER_IP_HASH, match.getKillerPlayerIpHash());
+        putAscii(buffer, OFFSET__KILLER_DBD_ID, LENGTH__KILLER_DBD_ID, match.getKillerPlayerDbdId());
+        buffer.position(RECORD_SIZE);
+    }
+
+    private static int toInt(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+
+    private static long parseSteamId(String steamId64) {
+        if (steamId64 == null) {
+            return NULL_STEAM_ID;
+        }
+
+        try {
+            return Long.parseLong(steamId64);
+        } catch (NumberFormatException e) {
+            return NULL_STEAM_ID;
+        }
+    }
+
+    /**
+     * Stores a hex string (like an MD5 hash) as bytes. Anything else is stored as zeros.
+     */
+    private static void putHex(ByteBuffer buffer, int offset, int length, String hex) {
+        boolean valid = hex != null && hex.length() == 2 * length
+                && hex.chars().allMatch(c -> Character.digit(c, 16) >= 0);
+
+        for (int i = 0; i < length; i++) {
+            buffer.put(offset + i, valid ?
+                    (byte) (Character.digit(hex.charAt(2 * i), 16) << 4 | Character.digit(hex.charAt(2 * i + 1), 16))
+                    : 0);
+        }
+    }
+
+    private static void putAscii(ByteBuffer buffer, int offset, int length, String text) {
+        for (int i = 0; i < length; i++) {
+            char c = text != null && i < text.length() ? text.charAt(i) : 0;
+            buffer.put(offset + i, c < 128 ? (byte) c : (byte) '?');
+        }
+    }
+
+
+    /**
+     * Read-only view of the stored matches.
+     * Single fields can be read for every match without creating Match objects.
+     */
+    public static final class Records {
+
+        private final ByteBuffer buffer;
+        private final int size;
+        private final List<Killer> killers;
+        private final List<RealmMap> realmMaps;
+
+
+        private Records(ByteBuffer buffer, int size, List<Killer> killers, List<RealmMap> realmMaps) {
+            this.buffer = buffer;
+            this.size = size;
+            this.killers = killers;
+            this.realmMaps = realmMaps;
+        }
+
+
+        public int size() {
+            return size;
+        }
+
+        public Match get(int index) {
+            int base = index * RECORD_SIZE;
+
+            return Match.builder()
+                    .matchStartTime(getMatchStartTime(index))
+                    .lobbiesFound(getInteger(base + OFFSET__LOBBIES_FOUND))
+                    .secondsQueued(getInteger(base + OFFSET__SECONDS_QUEUED))
+                    .secondsWaited(getInteger(base + OFFSET__SECONDS_WAITED))
+                    .secondsPlayed(getInteger(base + OFFSET__SECONDS_PLAYED))
+                    .killer(getKiller(index))
+                    .realmMap(getRealmMap(index))
+                    .escaped(getEscaped(index))
+                    .killCount(getKillCount(base))
+                    .killerPlayerSteamId64(getKillerSteamId(base))
+                    .killerPlayerIpHash(getKillerIpHash(base))
+                    .killerPlayerDbdId(getKillerDbdId(base))
+                    .build();
+        }
+
+        public LocalDateTime getMatchStartTime(int index) {
+            long epochSecond = buffer.getLong(index * RECORD_SIZE + OFFSET__MATCH_START_TIME);
+
+            return epochSecond == NULL_TIME ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+        }
+
+        public int getSecondsPlayed(int index) {
+            return Math.max(0, buffer.getInt(index * RECORD_SIZE + OFFSET__SECONDS_PLAYED));
+        }
+
+        public Killer getKiller(int index) {
+            return decode(killers, buffer.getShort(index * RECORD_SIZE + OFFSET__KILLER), Killer.UNIDENTIFIED);
+        }
+
+        public RealmMap getRealmMap(int index) {
+            return decode(realmMaps, buffer.getShort(index * RECORD_SIZE + OFFSET__REALM_MAP), RealmMap.UNIDENTIFIED);
+        }
+
+        public Boolean getEscaped(int index) {
+            byte escaped = buffer.get(index * RECORD_SIZE + OFFSET__ESCAPED);
+
+            return escaped == NULL_INT ? null : escaped == 1;
+        }
+
+
+        private Integer getInteger(int position) {
+            int value = buffer.getInt(position);
+
+            return value == NULL_INT ? null : value;
+        }
+
+        private Integer getKillCount(int base) {
+            byte killCount = buffer.get(base + OFFSET__KILL_COUNT);
+
+            return killCount == NULL_INT ? null : (int) killCount;
+        }
+
+        private String getKillerSteamId(int base) {
+            long steamId = buffer.getLong(base + OFFSET__KILLER_STEAM_ID);
+
+            return steamId == NULL_STEAM_ID ? null : String.valueOf(steamId);
+        }
+
+        private String getKillerIpHash(int base) {
+            StringBuilder hex = new StringBuilder(2 * LENGTH__KILLER_IP_HASH);
+            boolean empty = true;
+
+            for (int i = 0; i < LENGTH__KILLER_IP_HASH; i++) {
+                int b = buffer.get(base + OFFSET__KILLER_IP_HASH + i) & 0xFF;
+                empty &= b == 0;
+                hex.append(Character.forDigit(b >> 4, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return empty ? null : hex.toString();
+        }
+
+        private String getKillerDbdId(int base) {
+            StringBuilder text = new StringBuilder();
+
+            for (int i = 0; i < LENGTH__KILLER_DBD_ID; i++) {
+                byte c = buffer.get(base + OFFSET__KILLER_DBD_ID + i);
+                if (c == 0) {
+                    break;
+                }
+                text.append((char) c);
+            }
+
+            return text.length() == 0 ? null : text.toString();
+        }
+
+        private static <E> E decode(List<E> values, int code, E unknownValue) {
+            if (code == NULL_INT) {
+                return null;
+            }
+
+            E value = code < values.size() ? values.get(code) : null;
+
+            return value != null ? value : unknownValue;
+        }
+    }
+
+
+    /**
+     * Codes of the values of an enum, as stored in the dictionary file ("EnumName:CONSTANT_NAME" per line).
+     * Constants which no longer exist keep their code, but they cannot be decoded.
+     */
+    private static final class Codes<E extends Enum<E>> {
+
+        private final Class<E> enumClass;
+        private final String prefix;
+        private final List<E> values = new ArrayList<>();
+        private final Map<E, Integer> codes;
+
+
+        Codes(Class<E> enumClass) {
+            this.enumClass = enumClass;
+            this.prefix = enumClass.getSimpleName() + ":";
+            this.codes = new EnumMap<>(enumClass);
+        }
+
+
+        String dictionaryEntry(E value) {
+            return prefix + value.name();
+        }
+
+        boolean load(String dictionaryEntry) {
+            if (!dictionaryEntry.startsWith(prefix)) {
+                return false;
+            }
+
+            String name = dictionaryEntry.substring(prefix.length());
+            E value = null;
+            try {
+                value = Enum.valueOf(enumClass, name);
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown {} in match history dictionary: {}", enumClass.getSimpleName(), name);
+            }
+
+            if (value == null || codes.containsKey(value)) {
+                values.add(null);
+            } else {
+                add(value);
+            }
+
+            return true;
+        }
+
+        Integer get(E value) {
+            return codes.get(value);
+        }
+
+        int add(E value) {
+            int code = values.size();
+            codes.put(value, code);
+            values.add(value);
+
+            return code;
+        }
+
+        List<E> values() {
+            return new ArrayList<>(values);
+        }
+    }
+
+}
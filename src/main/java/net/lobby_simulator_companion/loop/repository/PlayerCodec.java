@@ -0,0 +1,173 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import lombok.experimental.UtilityClass;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.util.Md5;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Binary encoding of a player, shared by the files that store players.
+ * <p>
+ * IP hashes are stored as the 16 bytes of the MD5 hash, Steam IDs as numbers, DBD ids as the 16 bytes of the UUID,
+ * timestamps as epoch seconds and ratings as ordinals (anything in an unexpected form is stored as a string,
+ * instead).
+ *
+ * @author NickyRamone
+ */
+@UtilityClass
+class PlayerCodec {
+
+    private static final int FLAG__BINARY_IP_HASH = 1;
+    private static final int FLAG__NUMERIC_STEAM_ID = 2;
+    private static final int FLAG__UUID_DBD_ID = 4;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final int NULL_STRING = -1;
+
+    private static final Player.Rating[] RATINGS = Player.Rating.values();
+
+
+    static void write(DataOutputStream out, Player player) throws IOException {
+        boolean binaryIpHash = Md5.isHex(player.getIpHash());
+        Long steamId = toLong(player.getSteamId64());
+        UUID dbdId = toUuid(player.getDbdPlayerId());
+        out.writeByte((binaryIpHash ? FLAG__BINARY_IP_HASH : 0)
+                | (steamId != null ? FLAG__NUMERIC_STEAM_ID : 0)
+                | (dbdId != null ? FLAG__UUID_DBD_ID : 0));
+        if (binaryIpHash) {
+            out.writeLong(Md5.keyHigh(player.getIpHash()));
+            out.writeLong(Md5.keyLow(player.getIpHash()));
+        } else {
+            writeString(out, player.getIpHash());
+        }
+        if (steamId != null) {
+            out.writeLong(steamId);
+        } else {
+            writeString(out, player.getSteamId64());
+        }
+        if (dbdId != null) {
+            out.writeLong(dbdId.getMostSignificantBits());
+            out.writeLong(dbdId.getLeastSignificantBits());
+        } else {
+            writeString(out, player.getDbdPlayerId());
+        }
+        out.writeLong(toEpochSecond(player.getFirstSeen()));
+        out.writeLong(toEpochSecond(player.getLastSeen()));
+        out.writeInt(player.getTimesEncountered());
+        out.writeInt(player.getMatchesPlayed());
+        out.writeInt(player.getSecondsPlayed());
+        out.writeInt(player.getEscapes());
+        out.writeInt(player.getDeaths());
+        out.writeByte(player.getRating() != null ? player.getRating().ordinal() : -1);
+        out.writeByte(player.getNames().size());
+        for (String name : player.getNames()) {
+            writeString(out, name);
+        }
+        writeString(out, player.getDescription());
+    }
+
+    static Player read(ByteBuffer in) {
+        Player player = new Player();
+        int flags = in.get();
+        if ((flags & FLAG__BINARY_IP_HASH) != 0) {
+            player.setIpHash(Md5.toHex(in.getLong(), in.getLong()));
+        } else {
+            player.setIpHash(readString(in));
+        }
+        if ((flags & FLAG__NUMERIC_STEAM_ID) != 0) {
+            player.setSteamId64(String.valueOf(in.getLong()));
+        } else {
+            player.setSteamId64(readString(in));
+        }
+        if ((flags & FLAG__UUID_DBD_ID) != 0) {
+            player.setDbdPlayerId(new UUID(in.getLong(), in.getLong()).toString());
+        } else {
+            player.setDbdPlayerId(readString(in));
+        }
+        player.setFirstSeen(fromEpochSecond(in.getLong()));
+        player.setLastSeen(fromEpochSecond(in.getLong()));
+        player.setTimesEncountered(in.getInt());
+        player.setMatchesPlayed(in.getInt());
+        player.setSecondsPlayed(in.getInt());
+        player.setEscapes(in.getInt());
+        player.setDeaths(in.getInt());
+        int rating = in.get();
+        player.setRating(rating >= 0 && rating < RATINGS.length ? RATINGS[rating] : Player.Rating.UNRATED);
+        int nameCount = in.get() & 0xFF;
+        for (int i = 0; i < nameCount; i++) {
+            player.getNames().add(readString(in));
+        }
+        player.setDescription(readString(in));
+
+        return player;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the number (like a Steam ID), or null if the string is not a number or would not be written back the
+     * same way.
+     */
+    private static Long toLong(String value) {
+        if (value == null || value.isEmpty() || value.length() > 19
+                || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return null;
+        }
+        try {
+            long number = Long.parseLong(value);
+            return String.valueOf(number).equals(value) ? number : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the UUID (like a DBD player id), or null if the string is not a UUID in its canonical form.
+     */
+    private static UUID toUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time == null ? NULL_TIME : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromEpochSecond(long epochSecond) {
+        return epochSecond == NULL_TIME ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+}
@@ -0,0 +1,481 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.config.AppProperties;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.util.Md5;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk store of players, so that only the players in use need to be in memory.
+ * <p>
+ * Players are appended to a data file as variable-length records (see {@link PlayerCodec}); a modified player is
+ * appended again, and the old record becomes garbage which is discarded once it takes up most of the file.
+ * <p>
+ * Players are found through an index file: a memory-mapped hash table (open addressing, linear probing) of
+ * fixed-size slots, each with the IP hash (as two longs, see {@link Md5}) and the position of the player's latest
+ * record.
+ * The index remembers up to which position of the data file it is up to date; if it is not (for example, if the app
+ * was closed right after writing a record), it is rebuilt from the data file.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class PlayerRepository implements Closeable {
+
+    private static final String PROPERTY__FILE = "storage.players.file";
+
+    private static final int MAGIC = 0x5354504C; // "STPL"
+    private static final int INDEX_MAGIC = 0x53545049; // "STPI"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int INDEX_HEADER_SIZE = 32;
+    private static final int OFFSET__SLOT_COUNT = 8;
+    private static final int OFFSET__ENTRY_COUNT = 12;
+    private static final int OFFSET__INDEXED_DATA_SIZE = 16;
+    private static final int OFFSET__LIVE_DATA_SIZE = 24;
+    private static final int SLOT_SIZE = 24;
+    private static final int OFFSET__SLOT_RECORD_POSITION = 16;
+    private static final int MIN_SLOT_COUNT = 1024;
+    private static final float MAX_LOAD_FACTOR = 0.7f;
+
+    private static final long COMPACTION_MIN_GARBAGE = 1024 * 1024;
+
+    private final Path file;
+    private final Path indexFile;
+
+    private FileChannel channel;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int slotCount;
+    private int entryCount;
+    private long dataSize;
+    private long liveDataSize;
+
+
+    public PlayerRepository(AppProperties properties) {
+        this(Paths.get(properties.get("app.home")).resolve(properties.get(PROPERTY__FILE)));
+    }
+
+    public PlayerRepository(Path file) {
+        this.file = file;
+        this.indexFile = file.resolveSibling(file.getFileName() + ".idx");
+    }
+
+
+    public synchronized void open() throws IOException {
+        channel = openDataFile(file);
+        dataSize = channel.size();
+
+        if (!openIndex()) {
+            log.info("Rebuilding player index...");
+            rebuildIndex();
+        }
+
+        if (dataSize - HEADER_SIZE - liveDataSize > Math.max(COMPACTION_MIN_GARBAGE, liveDataSize)) {
+            compact();
+        }
+        log.info("Opened player database ({} players).", entryCount);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        index = null;
+        if (indexChannel != null) {
+            indexChannel.close();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public synchronized int size() {
+        return entryCount;
+    }
+
+    public synchronized boolean contains(String ipHash) {
+        return ipHash != null && findSlot(Md5.keyHigh(ipHash), Md5.keyLow(ipHash)) >= 0;
+    }
+
+    /**
+     * @return the stored player, or null if there is none with this IP hash.
+     * Every call returns a new instance.
+     */
+    public Player get(String ipHash) throws IOException {
+        if (ipHash == null) {
+            return null;
+        }
+        Player player = get(Md5.keyHigh(ipHash), Md5.keyLow(ipHash));
+
+        // the key of players whose IP hash is not an MD5 hash is a hash of it, so it could collide
+        return player != null && ipHash.equals(player.getIpHash()) ? player : null;
+    }
+
+    /**
+     * @param ipHashHigh high 64 bits of the IP hash (see {@link Md5}).
+     * @param ipHashLow  low 64 bits of the IP hash.
+     * @return the stored player, or null if there is none with this IP hash.
+     * Every call returns a new instance.
+     */
+    public synchronized Player get(long ipHashHigh, long ipHashLow) throws IOException {
+        int slot = findSlot(ipHashHigh, ipHashLow);
+        if (slot < 0) {
+            return null;
+        }
+        ByteBuffer contents = readRecordContents(index.getLong(slotPosition(slot) + OFFSET__SLOT_RECORD_POSITION));
+        if (contents == null) {
+            throw new IOException("Corrupt player record in the player database.");
+        }
+
+        return PlayerCodec.read(contents);
+    }
+
+    /**
+     * Stores the players, replacing the stored ones with the same IP hash.
+     */
+    public synchronized void putAll(Collection<Player> players) throws IOException {
+        if (players.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 * players.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        long[] recordPositions = new long[players.size()];
+        int i = 0;
+        for (Player player : players) {
+            recordPositions[i++] = dataSize + bytes.size();
+            writeRecord(out, player);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        long position = dataSize;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        dataSize = position;
+
+        i = 0;
+        for (Player player : players) {
+            long recordPosition = recordPositions[i++];
+            int recordSize = (int) ((i < recordPositions.length ? recordPositions[i] : dataSize) - recordPosition);
+            putIndexEntry(Md5.keyHigh(player.getIpHash()), Md5.keyLow(player.getIpHash()), recordPosition, recordSize);
+        }
+        index.putLong(OFFSET__INDEXED_DATA_SIZE, dataSize);
+        index.putLong(OFFSET__LIVE_DATA_SIZE, liveDataSize);
+    }
+
+    public void put(Player player) throws IOException {
+        putAll(Collections.singletonList(player));
+    }
+
+
+    private static FileChannel openDataFile(Path path) throws IOException {
+        FileChannel dataChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (dataChannel.size() == 0) {
+            header.putInt(MAGIC).putInt(FORMAT_VERSION);
+            header.clear();
+            dataChannel.write(header, 0);
+        } else {
+            dataChannel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                dataChannel.close();
+                throw new IOException("Unsupported player database file: " + path);
+            }
+        }
+
+        return dataChannel;
+    }
+
+    /**
+     * @return whether the index file exists and is up to date with the data file.
+     */
+    private boolean openIndex() throws IOException {
+        indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+        indexChannel.read(header, 0);
+        header.flip();
+        if (header.remaining() < INDEX_HEADER_SIZE) {
+            return false;
+        }
+        int indexSlotCount = header.getInt(OFFSET__SLOT_COUNT);
+        boolean valid = header.getInt(0) == INDEX_MAGIC && header.getInt(4) == FORMAT_VERSION
+                && indexSlotCount >= MIN_SLOT_COUNT && Integer.bitCount(indexSlotCount) == 1
+                && indexChannel.size() >= indexSize(indexSlotCount)
+                && header.getLong(OFFSET__INDEXED_DATA_SIZE) == dataSize;
+        if (!valid) {
+            return false;
+        }
+
+        slotCount = indexSlotCount;
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize(slotCount));
+        entryCount = index.getInt(OFFSET__ENTRY_COUNT);
+        liveDataSize = index.getLong(OFFSET__LIVE_DATA_SIZE);
+
+        return true;
+    }
+
+    /**
+     * Builds the index from scratch by reading the whole data file.
+     * An incomplete or corrupt record at the end of the data file is discarded.
+     */
+    private void rebuildIndex() throws IOException {
+        createIndex(MIN_SLOT_COUNT);
+
+        long position = HEADER_SIZE;
+        ByteBuffer contents;
+        while ((contents = readRecordContents(position)) != null) {
+            int recordSize = RECORD_HEADER_SIZE + contents.remaining();
+            String ipHash = PlayerCodec.read(contents).getIpHash();
+            putIndexEntry(Md5.keyHigh(ipHash), Md5.keyLow(ipHash), position, recordSize);
+            position += recordSize;
+        }
+
+        if (position < dataSize) {
+            log.warn("Discarding incomplete player record at the end of the player database.");
+            dataSize = position;
+            channel.truncate(dataSize);
+        }
+        index.putLong(OFFSET__INDEXED_DATA_SIZE, dataSize);
+        index.putLong(OFFSET__LIVE_DATA_SIZE, liveDataSize);
+    }
+
+    /**
+     * Maps an empty index with the given number of slots.
+     * The index file is never shrunk nor deleted, since that fails on Windows while it is mapped (and mapped buffers
+     * cannot be unmapped explicitly); if it is bigger than needed, the rest is ignored.
+     */
+    private void createIndex(int newSlotCount) throws IOException {
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize(newSlotCount));
+        for (int position = INDEX_HEADER_SIZE; position < index.capacity(); position += 8) {
+            index.putLong(position, 0);
+        }
+
+        slotCount = newSlotCount;
+        entryCount = 0;
+        liveDataSize = 0;
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, FORMAT_VERSION);
+        index.putInt(OFFSET__SLOT_COUNT, slotCount);
+        index.putInt(OFFSET__ENTRY_COUNT, 0);
+        index.putLong(OFFSET__INDEXED_DATA_SIZE, -1);
+        index.putLong(OFFSET__LIVE_DATA_SIZE, 0);
+    }
+
+    /**
+     * Doubles the number of slots of the index (which requires placing every entry again).
+     */
+    private void growIndex() throws IOException {
+        int oldSlotCount = slotCount;
+        byte[] oldSlots = new byte[oldSlotCount * SLOT_SIZE];
+        index.position(INDEX_HEADER_SIZE);
+        index.get(oldSlots);
+        long oldLiveDataSize = liveDataSize;
+
+        createIndex(oldSlotCount * 2);
+        ByteBuffer slots = ByteBuffer.wrap(oldSlots);
+        for (int i = 0; i < oldSlotCount; i++) {
+            long high = slots.getLong();
+            long low = slots.getLong();
+            long recordPosition = slots.getLong();
+            if (recordPosition != 0) {
+                writeSlot(findFreeSlot(high), high, low, recordPosition);
+                entryCount++;
+            }
+        }
+        liveDataSize = oldLiveDataSize;
+        index.putInt(OFFSET__ENTRY_COUNT, entryCount);
+        index.putLong(OFFSET__LIVE_DATA_SIZE, liveDataSize);
+    }
+
+    /**
+     * Rewrites the data file with only the latest record of every player.
+     */
+    private void compact() throws IOException {
+        log.info("Compacting player database...");
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(tempFile);
+
+        try (FileChannel tempChannel = openDataFile(tempFile)) {
+            ByteBuffer slots = index.duplicate();
+            long position = HEADER_SIZE;
+            for (int slot = 0; slot < slotCount; slot++) {
+                long recordPosition = slots.getLong(slotPosition(slot) + OFFSET__SLOT_RECORD_POSITION);
+                if (recordPosition == 0) {
+                    continue;
+                }
+                int recordSize = RECORD_HEADER_SIZE + readRecordLength(recordPosition);
+                transferFully(recordPosition, recordSize, tempChannel, position);
+                position += recordSize;
+            }
+            if (tempChannel.size() != position) {
+                throw new IOException("Compacted player database has " + tempChannel.size()
+                        + " bytes instead of " + position + ".");
+            }
+            tempChannel.force(true);
+        }
+
+        channel.close();
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        channel = openDataFile(file);
+        dataSize = channel.size();
+        rebuildIndex();
+    }
+
+
+    /**
+     * Copies bytes from the data file to the target; a single transfer may copy fewer bytes than requested.
+     */
+    private void transferFully(long position, long count, FileChannel target, long targetPosition)
+            throws IOException {
+        long transferred = 0;
+        while (transferred < count) {
+            long bytes = channel.transferTo(position + transferred, count - transferred,
+                    target.position(targetPosition + transferred));
+            if (bytes <= 0) {
+                throw new IOException("Unable to copy player record at position " + position + ".");
+            }
+            transferred += bytes;
+        }
+    }
+
+    private void putIndexEntry(long high, long low, long recordPosition, int recordSize) throws IOException {
+        int slot = findSlot(high, low);
+        if (slot >= 0) {
+            long oldRecordPosition = index.getLong(slotPosition(slot) + OFFSET__SLOT_RECORD_POSITION);
+            liveDataSize -= RECORD_HEADER_SIZE + readRecordLength(oldRecordPosition);
+        } else {
+            if (entryCount + 1 > slotCount * MAX_LOAD_FACTOR) {
+                growIndex();
+            }
+            slot = findFreeSlot(high);
+            entryCount++;
+            index.putInt(OFFSET__ENTRY_COUNT, entryCount);
+        }
+        writeSlot(slot, high, low, recordPosition);
+        liveDataSize += recordSize;
+    }
+
+    /**
+     * @return the slot with this key, or -1 if there is none.
+     */
+    private int findSlot(long high, long low) {
+        int mask = slotCount - 1;
+        for (int slot = hash(high) & mask; ; slot = (slot + 1) & mask) {
+            int position = slotPosition(slot);
+            if (index.getLong(position + OFFSET__SLOT_RECORD_POSITION) == 0) {
+                return -1;
+            }
+            if (index.getLong(position) == high && index.getLong(position + 8) == low) {
+                return slot;
+            }
+        }
+    }
+
+    private int findFreeSlot(long high) {
+        int mask = slotCount - 1;
+        int slot = hash(high) & mask;
+        while (index.getLong(slotPosition(slot) + OFFSET__SLOT_RECORD_POSITION) != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void writeSlot(int slot, long high, long low, long recordPosition) {
+        int position = slotPosition(slot);
+        index.putLong(position, high);
+        index.putLong(position + 8, low);
+        index.putLong(position + OFFSET__SLOT_RECORD_POSITION, recordPosition);
+    }
+
+    private static long indexSize(int slotCount) {
+        return INDEX_HEADER_SIZE + (long) slotCount * SLOT_SIZE;
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int hash(long high) {
+        // MD5 hashes are already evenly distributed
+        return (int) (high >>> 32);
+    }
+
+
+    private static void writeRecord(DataOutputStream out, Player player) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        PlayerCodec.write(new DataOutputStream(bytes), player);
+        byte[] contents = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(contents);
+
+        out.writeInt(contents.length);
+        out.writeInt((int) crc.getValue());
+        out.write(contents);
+    }
+
+    private int readRecordLength(long recordPosition) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        channel.read(length, recordPosition);
+
+        return length.getInt(0);
+    }
+
+    /**
+     * @return the contents of the record at the given position of the data file, or null if it is incomplete or
+     * corrupt.
+     */
+    private ByteBuffer readRecordContents(long recordPosition) throws IOException {
+        if (recordPosition + RECORD_HEADER_SIZE > dataSize) {
+            return null;
+        }
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        channel.read(recordHeader, recordPosition);
+        int length = recordHeader.getInt(0);
+        int expectedCrc = recordHeader.getInt(4);
+        if (length < 0 || recordPosition + RECORD_HEADER_SIZE + length > dataSize) {
+            return null;
+        }
+
+        ByteBuffer contents = ByteBuffer.allocate(length);
+        while (contents.hasRemaining()) {
+            if (channel.read(contents, recordPosition + RECORD_HEADER_SIZE + contents.position()) < 0) {
+                return null;
+            }
+        }
+        contents.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(contents.array(), 0, length);
+
+        return (int) crc.getValue() == expectedCrc ? contents : null;
+    }
+
+}
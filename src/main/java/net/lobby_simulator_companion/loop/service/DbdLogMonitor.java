@@ -5,32 +5,76 @@ import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.lobby_simulator_companion.loop.service.log_processing.AbstractDbdLogProcessor;
 import net.lobby_simulator_companion.loop.service.log_processing.DbdLogEvent;
+import net.lobby_simulator_companion.loop.service.log_processing.LogProcessorUtil;
+import net.lobby_simulator_companion.loop.util.AhoCorasickMatcher;
+import net.lobby_simulator_companion.loop.util.SpscRingBuffer;
+import net.lobby_simulator_companion.loop.util.VirtualClock;
 import net.lobby_simulator_companion.loop.util.event.EventListener;
 import net.lobby_simulator_companion.loop.util.event.EventSupport;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 
 /**
  * DBD log parser daemon.
  * Parses logs to extract real-time events occurring during the game.
+ * <p>
+ * The log is tailed by waiting on file system notifications for the log directory, so new lines are processed
+ * as soon as they are written. Since some file systems deliver these notifications late (or not at all), every wait
+ * is bounded by a polling period which shrinks while the log is active and grows while it is idle.
+ * <p>
+ * Optionally, the byte offset of the last processed line is stored in a checkpoint file whenever the monitor
+ * catches up with the log, so that after a restart we can resume exactly where we left off
+ * (as long as it is still the same log file).
+ * <p>
+ * Reading and processing are done by different threads: the reader hands over lines to the parser through a
+ * bounded buffer, so bursts of log lines (like the ones written when a match ends) are read as fast as they are
+ * written, regardless of how long processing them (and notifying the listeners) takes.
  *
  * @author NickyRamone
  */
 @Slf4j
 public class DbdLogMonitor implements Runnable {
 
-    private static final int LOG_POLLING_PERIOD_MS = 1000;
+    private static final int MIN_LOG_POLLING_PERIOD_MS = 10;
+    private static final int MAX_LOG_POLLING_PERIOD_MS = 1000;
+    private static final int MAX_PROCESSORS = Long.SIZE;
+    private static final int LINE_QUEUE_CAPACITY = 4096;
+    private static final int LINE_BATCH_SIZE = 256;
+
+    /**
+     * Queued (by identity) instead of a line when the log file has been recreated.
+     */
+    private static final String LOG_RECREATED = new String("");
 
-    private static final Path USER_APPDATA_PATH = Paths.get(System.getenv("APPDATA")).getParent();
     private static final String DEFAULT_LOG_PATH = "Local/DeadByDaylight/Saved/Logs/DeadByDaylight.log";
-    private static final File DEFAULT_LOG_FILE = USER_APPDATA_PATH.resolve(DEFAULT_LOG_PATH).toFile();
+
+    private static final String CHECKPOINT__CREATION_TIME = "log.creationTime";
+    private static final String CHECKPOINT__HEADER_LENGTH = "log.header.length";
+    private static final String CHECKPOINT__HEADER_CRC = "log.header.crc";
+    private static final String CHECKPOINT__OFFSET = "log.offset";
 
     public enum State {
         IDLE,
@@ -56,32 +100,61 @@ public class DbdLogMonitor implements Runnable {
     private final StateWrapper stateWrapper = new StateWrapper();
     private final EventSupport eventSupport;
     private final File logFile;
+    private final File checkpointFile;
     private final List<DbdLogProcessor> processors = new ArrayList<>();
-
-    private BufferedReader reader;
+    private final SpscRingBuffer<String> lineQueue = new SpscRingBuffer<>(LINE_QUEUE_CAPACITY);
+    private volatile long linesProcessed;
+    private volatile long processingNanos;
+
+    /**
+     * Prefilter that tells which processors (as a bit mask over their indices) may be interested in a line.
+     */
+    private AhoCorasickMatcher processorMatcher = new AhoCorasickMatcher(new HashMap<>());
+    private long unanchoredProcessors;
+
+    private DbdLogReader reader;
+    private WatchService watchService;
     private long logSize;
+    private long checkpointOffset = -1;
+    private int pollingPeriodMs = MIN_LOG_POLLING_PERIOD_MS;
 
 
     public DbdLogMonitor(EventSupport eventSupport) {
-        this(eventSupport, DEFAULT_LOG_FILE);
+        this(eventSupport, getDefaultLogFile());
     }
 
     public DbdLogMonitor(EventSupport eventSupport, File logFile) {
+        this(eventSupport, logFile, null);
+    }
+
+    /**
+     * @param checkpointFile where to store the position of the last processed line; null for no checkpoints.
+     */
+    public DbdLogMonitor(EventSupport eventSupport, File logFile, File checkpointFile) {
         this.eventSupport = eventSupport;
         this.logFile = logFile;
+        this.checkpointFile = checkpointFile;
     }
 
 
     public void start() throws IOException {
-        initReader();
+        initReader(false);
+        initWatchService();
+
+        Thread parserThread = new Thread(this::parse, "dbd-log-parser");
+        parserThread.setDaemon(true);
+        parserThread.start();
 
-        Thread thread = new Thread(this);
-        thread.setDaemon(true);
-        thread.start();
+        Thread readerThread = new Thread(this, "dbd-log-monitor");
+        readerThread.setDaemon(true);
+        readerThread.start();
     }
 
 
-    private void initReader() throws IOException {
+    /**
+     * @param newLog true if the log file has just been recreated, in which case all its entries are relevant.
+     */
+    private void initReader(boolean newLog) throws IOException {
         if (reader != null) {
             reader.close();
         }
@@ -90,10 +163,27 @@ public class DbdLogMonitor implements Runnable {
             logFile.createNewFile();
         }
 
-        reader = new BufferedReader(new FileReader(logFile));
+        reader = new DbdLogReader(logFile);
 
-        // consume all entries in the log file, since they are old and cannot be related to any active connection.
-        while (reader.readLine() != null) ;
+        if (newLog) {
+            reader.seek(0);
+        } else if (reader.seek(loadCheckpoint())) {
+            log.info("Resuming log processing from offset {}.", reader.getOffset());
+        } else {
+            // skip all entries in the log file, since they are old and cannot be related to any active connection.
+            reader.seekToEnd();
+        }
+        logSize = logFile.length();
+    }
+
+    private void initWatchService() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            logFile.getAbsoluteFile().getParentFile().toPath().register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Unable to watch the log directory. Falling back to polling the log file.", e);
+            watchService = null;
+        }
     }
 
 
@@ -103,22 +193,21 @@ public class DbdLogMonitor implements Runnable {
 
         while (true) {
             try {
-                long currentLogSize = logFile.length();
-
-                if (currentLogSize < logSize) {
-                    // the log file has been recreated (probably due to DBD being restarted),
-                    // so we need to re-instantiate the reader
-                    initReader();
-                    eventSupport.fireEvent(DbdLogEvent.SERVER_DISCONNECT);
-                }
-                logSize = currentLogSize;
                 line = reader.readLine();
 
                 if (line != null) {
-                    processLine(line);
+                    lineQueue.put(line);
+                    pollingPeriodMs = MIN_LOG_POLLING_PERIOD_MS;
                 } else {
-                    // for now, there are no more entries in the file
-                    Thread.sleep(LOG_POLLING_PERIOD_MS);
+                    // for now, there are no more entries in the file;
+                    // lines leave the queue once they are processed, so if it is empty, every line read so far is done
+                    if (lineQueue.isEmpty()) {
+                        saveCheckpoint();
+                    }
+                    checkForLogRecreation();
+                    if (!awaitLogChange()) {
+                        pollingPeriodMs = Math.min(2 * pollingPeriodMs, MAX_LOG_POLLING_PERIOD_MS);
+                    }
                 }
             } catch (IOException e) {
                 log.error("Encountered error while processing log file.", e);
@@ -128,8 +217,151 @@ public class DbdLogMonitor implements Runnable {
         }
     }
 
-    private void processLine(String line) {
-        for (DbdLogProcessor processor : processors) {
+    private void parse() {
+        while (true) {
+            try {
+                lineQueue.drainWhenAvailable(this::parseQueuedLine, LINE_BATCH_SIZE);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void parseQueuedLine(String line) {
+        if (line == LOG_RECREATED) {
+            eventSupport.fireEvent(DbdLogEvent.SERVER_DISCONNECT);
+            return;
+        }
+        long startTime = System.nanoTime();
+        processLine(line);
+        processingNanos += System.nanoTime() - startTime;
+        linesProcessed++;
+    }
+
+    /**
+     * Processes the whole log file from the beginning, in the calling thread and as fast as it can be read.
+     * Meant for extracting events from old logs rather than for monitoring.
+     * <p>
+     * Before processing every line, the clock is moved to the timestamp of the line, so that anything measuring
+     * times with it gets the same times it would have gotten if it had been monitoring the log at the time.
+     */
+    public void replay(VirtualClock clock) throws IOException {
+        try (DbdLogReader replayReader = new DbdLogReader(logFile)) {
+            String line;
+
+            while ((line = replayReader.readLine()) != null) {
+                long timestamp = LogProcessorUtil.extractTimestampMillis(line);
+                if (timestamp != LogProcessorUtil.NO_TIMESTAMP) {
+                    clock.advanceTo(timestamp);
+                }
+                processLine(line);
+            }
+        }
+    }
+
+    private void checkForLogRecreation() throws IOException, InterruptedException {
+        long currentLogSize = logFile.length();
+
+        if (currentLogSize < logSize) {
+            // the log file has been recreated (probably due to DBD being restarted),
+            // so we need to re-instantiate the reader
+            initReader(true);
+            lineQueue.put(LOG_RECREATED);
+        }
+        logSize = currentLogSize;
+    }
+
+    /**
+     * Blocks until the log file is modified or the current polling period expires, whichever happens first.
+     *
+     * @return true if a change in the log file was notified; false if we timed out.
+     */
+    private boolean awaitLogChange() throws InterruptedException {
+        if (watchService == null) {
+            Thread.sleep(pollingPeriodMs);
+            return false;
+        }
+
+        WatchKey watchKey = watchService.poll(pollingPeriodMs, TimeUnit.MILLISECONDS);
+        if (watchKey == null) {
+            return false;
+        }
+
+        boolean logChanged = false;
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == OVERFLOW || logFile.getName().equals(String.valueOf(event.context()))) {
+                logChanged = true;
+            }
+        }
+        watchKey.reset();
+
+        return logChanged;
+    }
+
+    private DbdLogReader.Checkpoint loadCheckpoint() {
+        if (checkpointFile == null || !checkpointFile.exists()) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(checkpointFile)) {
+            properties.load(inputStream);
+
+            return new DbdLogReader.Checkpoint(
+                    Long.parseLong(properties.getProperty(CHECKPOINT__CREATION_TIME)),
+                    Integer.parseInt(properties.getProperty(CHECKPOINT__HEADER_LENGTH)),
+                    Long.parseLong(properties.getProperty(CHECKPOINT__HEADER_CRC)),
+                    Long.parseLong(properties.getProperty(CHECKPOINT__OFFSET)));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring invalid log checkpoint file.", e);
+            return null;
+        }
+    }
+
+    private void saveCheckpoint() {
+        if (checkpointFile == null || reader.getOffset() == checkpointOffset) {
+            return;
+        }
+
+        // written to a temporary file which then replaces the checkpoint file, so that a crash while writing it
+        // cannot leave a truncated checkpoint behind
+        File tempFile = new File(checkpointFile.getPath() + ".tmp");
+        try {
+            DbdLogReader.Checkpoint checkpoint = reader.getCheckpoint();
+            Properties properties = new Properties();
+            properties.setProperty(CHECKPOINT__CREATION_TIME, String.valueOf(checkpoint.getCreationTime()));
+            properties.setProperty(CHECKPOINT__HEADER_LENGTH, String.valueOf(checkpoint.getHeaderLength()));
+            properties.setProperty(CHECKPOINT__HEADER_CRC, String.valueOf(checkpoint.getHeaderCrc()));
+            properties.setProperty(CHECKPOINT__OFFSET, String.valueOf(checkpoint.getOffset()));
+
+            try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+                properties.store(outputStream, null);
+                outputStream.getFD().sync();
+            }
+            replaceFile(tempFile, checkpointFile);
+            checkpointOffset = checkpoint.getOffset();
+        } catch (IOException e) {
+            log.error("Failed to save log checkpoint.", e);
+        }
+    }
+
+    private void replaceFile(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    void processLine(String line) {
+        long candidateProcessors = processorMatcher.match(line) | unanchoredProcessors;
+
+        for (int i = 0; candidateProcessors != 0 && i < processors.size(); i++) {
+            if ((candidateProcessors & (1L << i)) == 0) {
+                continue;
+            }
+            DbdLogProcessor processor = processors.get(i);
 
             try {
                 if (processor.process(line, stateWrapper)) {
@@ -146,12 +378,63 @@ public class DbdLogMonitor implements Runnable {
         return stateWrapper.state;
     }
 
+    /**
+     * @return the number of lines read but not processed yet.
+     */
+    public int getLineQueueSize() {
+        return lineQueue.size();
+    }
+
+    /**
+     * @return the highest number of lines there have been waiting to be processed.
+     */
+    public int getMaxLineQueueSize() {
+        return lineQueue.getHighWaterMark();
+    }
+
+    /**
+     * @return the average time spent processing a line (including notifying the listeners, unless events are
+     * delivered on another thread), in microseconds.
+     */
+    public double getAverageLineProcessingMicros() {
+        long lines = linesProcessed;
+        return lines == 0 ? 0 : processingNanos / 1000.0 / lines;
+    }
+
     public File getLogFile() {
         return logFile;
     }
 
+    public static File getDefaultLogFile() {
+        Path userAppDataPath = Paths.get(System.getenv("APPDATA")).getParent();
+
+        return userAppDataPath.resolve(DEFAULT_LOG_PATH).toFile();
+    }
+
     public void registerProcessor(AbstractDbdLogProcessor processor) {
+        if (processors.size() == MAX_PROCESSORS) {
+            throw new IllegalStateException("Cannot register more than " + MAX_PROCESSORS + " processors.");
+        }
         processors.add(processor);
+        initProcessorMatcher();
+    }
+
+    private void initProcessorMatcher() {
+        Map<String, Long> processorsByAnchor = new HashMap<>();
+        unanchoredProcessors = 0;
+
+        for (int i = 0; i < processors.size(); i++) {
+            long processorBit = 1L << i;
+
+            if (processors.get(i).getAnchors().isEmpty()) {
+                unanchoredProcessors |= processorBit;
+            }
+            for (String anchor : processors.get(i).getAnchors()) {
+                processorsByAnchor.merge(anchor, processorBit, (a, b) -> a | b);
+            }
+        }
+
+        processorMatcher = new AhoCorasickMatcher(processorsByAnchor);
     }
 
 
@@ -1,5 +1,8 @@
 package net.lobby_simulator_companion.loop.service;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import static net.lobby_simulator_companion.loop.service.DbdLogMonitor.StateWrapper;
 
 /**
@@ -12,4 +15,14 @@ public interface DbdLogProcessor {
      */
     boolean process(String logLine, StateWrapper gameState);
 
+    /**
+     * Literal fragments such that a log line can only be relevant to this processor if it contains
+     * at least one of them. Lines containing none of them are not sent to this processor.
+     *
+     * @return the anchors, or an empty collection if every line needs to be sent to this processor.
+     */
+    default Collection<String> getAnchors() {
+        return Collections.emptyList();
+    }
+
 }
@@ -0,0 +1,175 @@
+package net.lobby_simulator_companion.loop.service;
+
+import lombok.Value;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32;
+
+/**
+ * Incremental line reader for the DBD log.
+ * <p>
+ * The file is read through a {@link FileChannel}, so jumping to any byte offset (for example, to the end of the file)
+ * is O(1) regardless of the size of the log. The reader keeps track of the byte offset right after the last
+ * complete line returned, which can be stored as a {@link Checkpoint} and used to resume reading after a restart.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author NickyRamone
+ */
+class DbdLogReader implements Closeable {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Max number of bytes at the beginning of the file that we use for identifying it.
+     * DBD starts every log with a "Log file open" line that includes the date and time, so this should suffice.
+     */
+    private static final int HEADER_SAMPLE_SIZE = 256;
+
+    /**
+     * Identifies a position within a specific log file.
+     */
+    @Value
+    static class Checkpoint {
+        long creationTime;
+        int headerLength;
+        long headerCrc;
+        long offset;
+    }
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private byte[] lineBytes = new byte[512];
+    private int lineLength;
+    private long offset;
+
+
+    DbdLogReader(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        readBuffer.flip();
+    }
+
+
+    /**
+     * Moves the reader to the given byte offset, discarding any partially read line.
+     */
+    void seek(long offset) throws IOException {
+        channel.position(offset);
+        this.offset = offset;
+        lineLength = 0;
+        readBuffer.clear();
+        readBuffer.flip();
+    }
+
+    void seekToEnd() throws IOException {
+        seek(channel.size());
+    }
+
+    /**
+     * Moves the reader to the checkpoint position, provided that the checkpoint belongs to this same file.
+     *
+     * @return true if the checkpoint could be applied; false otherwise (in which case the position is not modified).
+     */
+    boolean seek(Checkpoint checkpoint) throws IOException {
+        long size = channel.size();
+        if (checkpoint == null || checkpoint.offset < 0 || checkpoint.offset > size
+                || checkpoint.headerLength < 0 || checkpoint.headerLength > size
+                || checkpoint.creationTime != getCreationTime()
+                || checkpoint.headerCrc != calculateHeaderCrc(checkpoint.headerLength)) {
+            return false;
+        }
+
+        seek(checkpoint.offset);
+        return true;
+    }
+
+    Checkpoint getCheckpoint() throws IOException {
+        int headerLength = (int) Math.min(HEADER_SAMPLE_SIZE, channel.size());
+
+        return new Checkpoint(getCreationTime(), headerLength, calculateHeaderCrc(headerLength), offset);
+    }
+
+    /**
+     * @return the next complete line (without line terminator), or null if there is no complete line available yet.
+     */
+    String readLine() throws IOException {
+        while (true) {
+            while (readBuffer.hasRemaining()) {
+                byte b = readBuffer.get();
+
+                if (b == '\n') {
+                    return completeLine();
+                }
+                appendToLine(b);
+            }
+
+            readBuffer.clear();
+            int bytesRead = channel.read(readBuffer);
+            readBuffer.flip();
+
+            if (bytesRead <= 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return the byte offset right after the last complete line returned by {@link #readLine()}.
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+
+    private void appendToLine(byte b) {
+        if (lineLength == lineBytes.length) {
+            byte[] newLineBytes = new byte[2 * lineBytes.length];
+            System.arraycopy(lineBytes, 0, newLineBytes, 0, lineLength);
+            lineBytes = newLineBytes;
+        }
+        lineBytes[lineLength++] = b;
+    }
+
+    private String completeLine() {
+        offset += lineLength + 1;
+        int length = lineLength > 0 && lineBytes[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+        lineLength = 0;
+
+        return new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private long getCreationTime() throws IOException {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class).creationTime().toMillis();
+    }
+
+    private long calculateHeaderCrc(int headerLength) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(headerLength);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+        header.flip();
+
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, header.limit());
+
+        return crc.getValue();
+    }
+
+}
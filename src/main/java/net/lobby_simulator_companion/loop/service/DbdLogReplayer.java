@@ -0,0 +1,135 @@
+package net.lobby_simulator_companion.loop.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.service.log_processing.impl.KillerLogProcessor;
+import net.lobby_simulator_companion.loop.service.log_processing.impl.MainLogProcessor;
+import net.lobby_simulator_companion.loop.service.log_processing.impl.RealmMapLogProcessor;
+import net.lobby_simulator_companion.loop.util.VirtualClock;
+import net.lobby_simulator_companion.loop.util.event.EventSupport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Extracts the matches from old DBD logs (for example, the backups that DBD keeps from previous sessions)
+ * and adds them to the stored data as past matches: they only count for the stat periods in which they were played,
+ * and they do not change the current streaks.
+ * <p>
+ * Every log is processed by its own set of processors and game state, and times are measured using the timestamps
+ * of the log lines instead of the wall clock, so logs are processed as fast as they can be read.
+ * Since DBD starts a new log for every session, no match spans more than one log; this allows processing the logs
+ * in parallel and merging the matches afterwards.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DbdLogReplayer {
+
+    private final LoopDataService dataService;
+    private final ForkJoinPool pool;
+
+
+    public DbdLogReplayer(LoopDataService dataService) {
+        this(dataService, ForkJoinPool.commonPool());
+    }
+
+
+    /**
+     * @return the number of matches added from this log.
+     */
+    public int replay(File logFile) throws IOException {
+        return replay(Collections.singletonList(logFile));
+    }
+
+    /**
+     * Processes the logs in parallel and adds their matches in chronological order.
+     *
+     * @return the number of matches added from these logs.
+     */
+    public int replay(List<File> logFiles) throws IOException {
+        List<Match> matches;
+        try {
+            matches = pool.invoke(new ExtractMatchesTask(logFiles));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        dataService.addPastMatches(matches);
+        dataService.flush();
+
+        return matches.size();
+    }
+
+
+    private static List<Match> extractMatches(File logFile) throws IOException {
+        log.info("Replaying log file '{}'...", logFile);
+        EventSupport logEventSupport = new EventSupport();
+        DbdLogMonitor logMonitor = new DbdLogMonitor(logEventSupport, logFile);
+        logMonitor.registerProcessor(new MainLogProcessor(logEventSupport));
+        logMonitor.registerProcessor(new KillerLogProcessor(logEventSupport));
+        logMonitor.registerProcessor(new RealmMapLogProcessor(logEventSupport));
+
+        VirtualClock clock = new VirtualClock();
+        GameStateManager gameStateManager = new GameStateManager(clock);
+        gameStateManager.registerLogListeners(logMonitor);
+
+        List<Match> matches = new ArrayList<>();
+        gameStateManager.registerListener(GameEvent.MATCH_ENDED, evt -> {
+            Match match = (Match) evt.getValue();
+            if (!match.isCancelled()) {
+                matches.add(match);
+            }
+        });
+
+        logMonitor.replay(clock);
+        log.info("Found {} matches in log file '{}'.", matches.size(), logFile);
+
+        return matches;
+    }
+
+
+    /**
+     * Splits the list of logs in halves until there is a single log to process.
+     */
+    @RequiredArgsConstructor
+    private static final class ExtractMatchesTask extends RecursiveTask<List<Match>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<File> logFiles;
+
+        @Override
+        protected List<Match> compute() {
+            if (logFiles.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            if (logFiles.size() == 1) {
+                try {
+                    return extractMatches(logFiles.get(0));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            int middle = logFiles.size() / 2;
+            ExtractMatchesTask firstHalf = new ExtractMatchesTask(logFiles.subList(0, middle));
+            ExtractMatchesTask secondHalf = new ExtractMatchesTask(logFiles.subList(middle, logFiles.size()));
+            firstHalf.fork();
+            List<Match> matches = secondHalf.compute();
+            matches.addAll(firstHalf.join());
+
+            return matches;
+        }
+    }
+
+}
@@ -1,14 +1,15 @@
 package net.lobby_simulator_companion.loop.service;
 
-import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import net.lobby_simulator_companion.loop.domain.Connection;
-import org.pcap4j.core.*;
-import org.pcap4j.packet.*;
+import net.lobby_simulator_companion.loop.util.NetUtil;
+import net.lobby_simulator_companion.loop.util.Scheduler;
+import org.pcap4j.core.PcapNativeException;
 
+import java.io.IOException;
 import java.net.InetAddress;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The initial handshake with the dedicated server hosting the match (including lobby) is through WireGuard protocol:
@@ -16,6 +17,12 @@ import java.util.TimerTask;
  * <p>
  * Update 2022-11-06: Looking at the traffic, it doesn't really seem WireGuard. Maybe I was wrong before; I don't think
  * it changed.
+ * <p>
+ * Packets are handled as raw bytes (see {@link RawUdpPacket}) so that following the traffic of a match does not
+ * allocate anything per packet, apart from what pcap4j itself allocates.
+ * <p>
+ * Packets can also come from a recorded capture (see {@link PcapFilePacketSource}); in that case, connection timeouts
+ * are measured on packet time instead of by a scheduled cleaner.
  *
  * @author NickyRamone
  */
@@ -29,6 +36,7 @@ public class DedicatedServerConnectionManager implements ConnectionManager {
     private static final int MAX_CAPTURED_PACKET_SIZE = 150;
     private static final int CLEANER_POLL_MS = 1000;
     private static final int CONNECTION_TIMEOUT_MS = 5000;
+    private static final int HANDSHAKE_PAYLOAD_LENGTH = 29;
 
     /**
      * Berkley Packet Filter (BPF):
@@ -39,51 +47,51 @@ public class DedicatedServerConnectionManager implements ConnectionManager {
     private static final String PACKET_FILTER__CHECK_CONNECTION_ALIVE = "udp and src host %s and dst host %s and len <= 150";
 
 
-    @ToString(exclude = "payload")
-    private static final class PacketInfo {
-        enum Protocol {TCP, UDP}
-
-        Protocol protocol;
-        int packetLen;
-        InetAddress srcAddress;
-        InetAddress dstAddress;
-        int srcPort;
-        int dstPort;
-        int payloadLen;
-        Packet payload;
-        long timestamp;
-    }
-
     private enum State {IDLE, HANDSHAKE1_REQUESTED, HANDSHAKE1_RESPONDED, HANDSHAKE2_REQUESTED, HANDSHAKE_COMPLETE}
 
     private final InetAddress localAddr;
+    private final int localAddrValue;
     private final SnifferListener snifferListener;
-    private final Timer connectionCleanerTimer = new Timer();
-    private PcapHandle pcapHandle;
+    private final Scheduler scheduler;
+    private ScheduledFuture<?> connectionCleaner;
+    private final PacketSource packetSource;
+    private final RawUdpPacket packet;
     private Connection serverConnection;
+    private int serverAddrValue;
+    private int serverPort;
     private State state = State.IDLE;
-    private PacketInfo lastRequest;
+    private long lastRequestTimestamp;
 
 
-    public DedicatedServerConnectionManager(InetAddress localAddr, SnifferListener snifferListener)
-            throws PcapNativeException, NotOpenException, InvalidNetworkInterfaceException {
+    public DedicatedServerConnectionManager(InetAddress localAddr, SnifferListener snifferListener, Scheduler scheduler)
+            throws PcapNativeException, InvalidNetworkInterfaceException {
 
-        this.localAddr = localAddr;
-        this.snifferListener = snifferListener;
-        initNetworkInterface();
-        startConnectionCleaner();
+        this(localAddr, snifferListener, scheduler, new LivePacketSource(localAddr, MAX_CAPTURED_PACKET_SIZE));
     }
 
-
-    private void initNetworkInterface() throws PcapNativeException, InvalidNetworkInterfaceException, NotOpenException {
-        PcapNetworkInterface networkInterface = Pcaps.getDevByAddress(localAddr);
-        if (networkInterface == null) {
-            throw new InvalidNetworkInterfaceException();
+    /**
+     * Creates a manager for a recorded capture; connection timeouts are measured on packet time.
+     */
+    public DedicatedServerConnectionManager(InetAddress localAddr, SnifferListener snifferListener,
+                                            PacketSource packetSource) {
+        this(localAddr, snifferListener, null, packetSource);
+        if (packetSource.isLive()) {
+            throw new IllegalArgumentException("Live packet sources need a scheduler to detect disconnections.");
         }
+    }
 
-        final PcapNetworkInterface.PromiscuousMode mode = PcapNetworkInterface.PromiscuousMode.NONPROMISCUOUS;
-        pcapHandle = networkInterface.openLive(MAX_CAPTURED_PACKET_SIZE, mode, 1000);
-        pcapHandle.setFilter(PACKET_FILTER__SEARCH_CONNECTION, BpfProgram.BpfCompileMode.OPTIMIZE);
+    private DedicatedServerConnectionManager(InetAddress localAddr, SnifferListener snifferListener,
+                                             Scheduler scheduler, PacketSource packetSource) {
+        this.localAddr = localAddr;
+        this.localAddrValue = NetUtil.toInt(localAddr);
+        this.snifferListener = snifferListener;
+        this.scheduler = scheduler;
+        this.packetSource = packetSource;
+        this.packet = new RawUdpPacket(packetSource.getDataLinkType());
+        setPacketFilter(PACKET_FILTER__SEARCH_CONNECTION);
+        if (packetSource.isLive()) {
+            startConnectionCleaner();
+        }
     }
 
 
@@ -96,148 +104,118 @@ public class DedicatedServerConnectionManager implements ConnectionManager {
         }
     }
 
-    private void sniffPackets() throws PcapNativeException, NotOpenException {
+    private void sniffPackets() throws IOException {
         log.info("Started sniffing packets.");
 
         try {
-            pcapHandle.loop(-1, this::handlePacket);
+            packetSource.loop(this::handlePacket);
         } catch (InterruptedException e) {
             // can be interrupted on purpose
+            return;
         }
-    }
 
-    private void handlePacket(Packet packet) {
+        if (serverConnection != null) {
+            // the capture is over, which for the connection is the same as never getting another packet
+            log.debug("Detected match disconnection at the end of the capture.");
+            clearConnection();
+        }
+    }
 
-        PacketInfo packetInfo = adaptPacket(packet);
-        if (packetInfo == null) {
+    private void handlePacket(byte[] rawPacket) {
+        if (!packetSource.isLive()) {
+            clearConnectionIfTimedOut(packetSource.getTimestamp());
+        }
+        if (!packet.parse(rawPacket)) {
             return;
         }
 
-        boolean isServerRequest = isServerRequest(packetInfo);
-        boolean isServerResponse = isServerResponse(packetInfo);
+        boolean isServerRequest = isServerRequest();
+        boolean isServerResponse = isServerResponse();
 
-        if (state != State.HANDSHAKE_COMPLETE && isPossibleHandshake(packetInfo)) {
-            if (state == State.IDLE && isHandshakeInitRequest(packetInfo)) {
+        if (state != State.HANDSHAKE_COMPLETE && isPossibleHandshake()) {
+            if (state == State.IDLE && isHandshakeInitRequest()) {
                 log.debug("Server connection - handhake 1 requested");
                 state = State.HANDSHAKE1_REQUESTED;
-                lastRequest = packetInfo;
-                serverConnection = new Connection(localAddr, packetInfo.srcPort, packetInfo.dstAddress, packetInfo.dstPort);
+                lastRequestTimestamp = packetSource.getTimestamp();
+                serverAddrValue = packet.dstAddress;
+                serverPort = packet.dstPort;
+                serverConnection = new Connection(localAddr, packet.srcPort, NetUtil.toInetAddress(packet.dstAddress),
+                        packet.dstPort);
+                serverConnection.setLastSeen(lastRequestTimestamp);
                 log.debug("Connection request to game server: {}", serverConnection);
 
             } else if (state == State.HANDSHAKE1_REQUESTED && isServerResponse) {
                 log.debug("Server connection - handhake 1 responded");
                 state = State.HANDSHAKE1_RESPONDED;
-                serverConnection.setLatency((int) (packetInfo.timestamp - lastRequest.timestamp));
+                serverConnection.setLatency((int) (packetSource.getTimestamp() - lastRequestTimestamp));
 
             } else if (state == State.HANDSHAKE1_RESPONDED && isServerRequest) {
                 log.debug("Server connection - handhake 2 requested");
                 state = State.HANDSHAKE2_REQUESTED;
-                lastRequest = packetInfo;
+                lastRequestTimestamp = packetSource.getTimestamp();
 
             } else if (state == State.HANDSHAKE2_REQUESTED && isServerResponse) {
                 log.debug("Server connection - handhake 2 responded");
                 state = State.HANDSHAKE_COMPLETE;
-                int latency = (int) (packetInfo.timestamp - lastRequest.timestamp);
+                int latency = (int) (packetSource.getTimestamp() - lastRequestTimestamp);
                 serverConnection.setLatency((serverConnection.getLatency() + latency) / 2);
                 setPacketFilter(PACKET_FILTER__CHECK_CONNECTION_ALIVE,
                         serverConnection.getRemoteAddr().getHostAddress(), serverConnection.getLocalAddr().getHostAddress());
                 snifferListener.notifyMatchConnect(serverConnection);
             }
         } else if (state == State.HANDSHAKE_COMPLETE && isServerResponse) {
-            serverConnection.setLastSeen(packetInfo.timestamp);
+            serverConnection.setLastSeen(packetSource.getTimestamp());
         }
     }
 
-    private PacketInfo adaptPacket(Packet packet) {
-        IpPacket ipPacket = packet.get(IpV4Packet.class);
-
-        if (ipPacket == null) {
-            return null;
-        }
-
-        PacketInfo info = new PacketInfo();
-        info.timestamp = pcapHandle.getTimestamp().getTime();
-        info.packetLen = packet.length();
-        TcpPacket tcpPacket = ipPacket.get(TcpPacket.class);
-        UdpPacket udpPacket = ipPacket.get(UdpPacket.class);
-        info.srcAddress = ipPacket.getHeader().getSrcAddr();
-        info.dstAddress = ipPacket.getHeader().getDstAddr();
-
-        if (tcpPacket != null) {
-            info.protocol = PacketInfo.Protocol.TCP;
-            info.srcPort = tcpPacket.getHeader().getSrcPort().valueAsInt();
-            info.dstPort = tcpPacket.getHeader().getDstPort().valueAsInt();
-            info.payloadLen = tcpPacket.getPayload() != null ? tcpPacket.getPayload().length() : 0;
-            info.payload = tcpPacket.getPayload();
-        } else if (udpPacket != null) {
-            info.protocol = PacketInfo.Protocol.UDP;
-            info.srcPort = udpPacket.getHeader().getSrcPort().valueAsInt();
-            info.dstPort = udpPacket.getHeader().getDstPort().valueAsInt();
-            info.payloadLen = udpPacket.getPayload() != null ? udpPacket.getPayload().length() : 0;
-            info.payload = udpPacket.getPayload();
-        }
-
-        return info;
+    private boolean isPossibleHandshake() {
+        return packet.payloadLength == HANDSHAKE_PAYLOAD_LENGTH;
     }
 
-    private boolean isPossibleHandshake(PacketInfo packetInfo) {
-        return packetInfo != null
-                && packetInfo.payload != null
-                && packetInfo.payload.length() == 29;
+    private boolean isHandshakeInitRequest() {
+        return packet.srcAddress == localAddrValue
+                && packet.payloadByte(0) == 0x01
+                && packet.payloadByte(2) == 0x00
+                && packet.payloadByte(3) == 0x00
+                && packet.payloadByte(4) == 0x00;
     }
 
-    private boolean isHandshakeInitRequest(PacketInfo packetInfo) {
-        byte[] udpData = packetInfo.payload.getRawData();
-
-        return packetInfo.srcAddress.equals(localAddr)
-                && udpData[0] == 0x01
-                && udpData[2] == 0x00
-                && udpData[3] == 0x00
-                && udpData[4] == 0x00;
-    }
-
-    private boolean isServerRequest(PacketInfo packetInfo) {
+    private boolean isServerRequest() {
         return serverConnection != null
-                && packetInfo.dstAddress.equals(serverConnection.getRemoteAddr()) && packetInfo.dstPort == serverConnection.getRemotePort();
+                && packet.dstAddress == serverAddrValue && packet.dstPort == serverPort;
     }
 
-    private boolean isServerResponse(PacketInfo packetInfo) {
+    private boolean isServerResponse() {
         return serverConnection != null
-                && packetInfo.srcAddress.equals(serverConnection.getRemoteAddr()) && packetInfo.srcPort == serverConnection.getRemotePort();
+                && packet.srcAddress == serverAddrValue && packet.srcPort == serverPort;
     }
 
     @Override
     public void stop() {
-        if (pcapHandle != null) {
-            log.info("Cleaning up sniffer...");
-            try {
-                pcapHandle.breakLoop();
-            } catch (NotOpenException e) {
-                log.error("Failed when attempting to stop sniffer.", e);
-            }
-        }
+        log.info("Cleaning up sniffer...");
+        packetSource.breakLoop();
     }
 
     public void close() {
-        connectionCleanerTimer.cancel();
+        if (connectionCleaner != null) {
+            connectionCleaner.cancel(false);
+        }
         stop();
-        pcapHandle.close();
-        log.info("Freed network interface handle.");
+        packetSource.close();
+        log.info("Freed packet source.");
     }
 
 
     private void startConnectionCleaner() {
-        connectionCleanerTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                long currentTime = System.currentTimeMillis();
-
-                if (serverConnection != null && currentTime > serverConnection.getLastSeen() + CONNECTION_TIMEOUT_MS) {
-                    log.debug("Detected match disconnection.");
-                    clearConnection();
-                }
-            }
-        }, 0, CLEANER_POLL_MS);
+        connectionCleaner = scheduler.scheduleAtFixedRate("connection-cleaner",
+                () -> clearConnectionIfTimedOut(System.currentTimeMillis()), 0, CLEANER_POLL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void clearConnectionIfTimedOut(long currentTime) {
+        if (serverConnection != null && currentTime > serverConnection.getLastSeen() + CONNECTION_TIMEOUT_MS) {
+            log.debug("Detected match disconnection.");
+            clearConnection();
+        }
     }
 
     private void clearConnection() {
@@ -252,7 +230,7 @@ public class DedicatedServerConnectionManager implements ConnectionManager {
     private void setPacketFilter(String filterExpr, Object... args) {
         try {
             String filter = String.format(filterExpr, args);
-            pcapHandle.setFilter(filter, BpfProgram.BpfCompileMode.OPTIMIZE);
+            packetSource.setFilter(filter);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
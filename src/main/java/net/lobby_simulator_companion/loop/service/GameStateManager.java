@@ -16,16 +16,19 @@ import net.lobby_simulator_companion.loop.domain.stats.Match;
 import net.lobby_simulator_companion.loop.repository.SteamProfileDao;
 import net.lobby_simulator_companion.loop.service.jna.WindowService;
 import net.lobby_simulator_companion.loop.service.log_event_orchestrators.ChaseEventManager;
+import net.lobby_simulator_companion.loop.service.log_processing.DbdLogEvent;
 import net.lobby_simulator_companion.loop.util.Stopwatch;
+import net.lobby_simulator_companion.loop.util.SupersedingTaskRunner;
 import net.lobby_simulator_companion.loop.util.event.EventListener;
 import net.lobby_simulator_companion.loop.util.event.EventSupport;
 import net.lobby_simulator_companion.loop.util.event.SwingEventSupport;
 
-import java.net.InetAddress;
+import javax.swing.SwingUtilities;
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
-import static javax.swing.SwingUtilities.invokeLater;
 
 /**
  * The purpose of this class is to store state about game events (e.g., information about current killer player,
@@ -61,10 +64,12 @@ public class GameStateManager implements NativeKeyListener {
     private final LoopDataService dataService;
     private final SteamProfileDao steamProfileDao;
     private final ChaseEventManager chaseEventManager;
+    private final SupersedingTaskRunner killerPlayerResolver;
     private final EventSupport eventSupport = new SwingEventSupport();
-    private final Stopwatch queueStopwatch = new Stopwatch();
-    private final Stopwatch matchWaitStopwatch = new Stopwatch();
-    private final Stopwatch matchStopwatch = new Stopwatch();
+    private final Clock clock;
+    private final Stopwatch queueStopwatch;
+    private final Stopwatch matchWaitStopwatch;
+    private final Stopwatch matchStopwatch;
     private final String appWindowTitle;
     private final String dbdWindowTitle;
 
@@ -76,15 +81,43 @@ public class GameStateManager implements NativeKeyListener {
     private boolean timerRunning;
 
 
+    /**
+     * @param backgroundExecutor runs the resolution of killer players, which could take some time.
+     */
     public GameStateManager(AppProperties appProperties, LoopDataService dataService,
-                            SteamProfileDao steamProfileDao, ChaseEventManager chaseEventManager) {
+                            SteamProfileDao steamProfileDao, ChaseEventManager chaseEventManager,
+                            ExecutorService backgroundExecutor) {
+        this(appProperties, dataService, steamProfileDao, chaseEventManager,
+                new SupersedingTaskRunner("killer player resolution", backgroundExecutor, SwingUtilities::invokeLater),
+                Clock.systemDefaultZone());
+        registerHotkeys();
+    }
+
+    /**
+     * Creates a manager that does not listen to hotkeys nor chase events, and which measures times with the given
+     * clock. Meant for processing logs offline.
+     * <p>
+     * Matches are not stored by this manager; they are only reported through {@link GameEvent#MATCH_ENDED} events.
+     */
+    public GameStateManager(Clock clock) {
+        this(null, null, null, null, null, clock);
+    }
+
+    private GameStateManager(AppProperties appProperties, LoopDataService dataService,
+                             SteamProfileDao steamProfileDao, ChaseEventManager chaseEventManager,
+                             SupersedingTaskRunner killerPlayerResolver, Clock clock) {
         this.appProperties = appProperties;
         this.dataService = dataService;
         this.steamProfileDao = steamProfileDao;
         this.chaseEventManager = chaseEventManager;
+        this.killerPlayerResolver = killerPlayerResolver;
+        this.clock = clock;
+        this.queueStopwatch = new Stopwatch(clock);
+        this.matchWaitStopwatch = new Stopwatch(clock);
+        this.matchStopwatch = new Stopwatch(clock);
         this.minMatchSeconds = DEFAULT_MIN_MATCH_SECONDS;
-        this.appWindowTitle = appProperties.get("app.name.short");
-        this.dbdWindowTitle = appProperties.get("dbd.window.title");
+        this.appWindowTitle = appProperties != null ? appProperties.get("app.name.short") : null;
+        this.dbdWindowTitle = appProperties != null ? appProperties.get("dbd.window.title") : null;
 
         init();
     }
@@ -94,9 +127,26 @@ public class GameStateManager implements NativeKeyListener {
 //        chaseEventManager.registerEventListener(ChaseEventManager.Event.CHASE_START, evt -> fireEvent(GameEvent.CHASE_STARTED, evt.getValue()));
 //        chaseEventManager.registerEventListener(ChaseEventManager.Event.CHASE_END, evt -> fireEvent(GameEvent.CHASE_ENDED));
 
-        dataService.registerListener(evt -> fireEvent(GameEvent.UPDATED_STATS));
+        if (dataService != null) {
+            dataService.registerListener(evt -> fireEvent(GameEvent.UPDATED_STATS));
+        }
+    }
 
-        registerHotkeys();
+    /**
+     * Updates the game state based on the events extracted from the DBD log.
+     */
+    public void registerLogListeners(DbdLogMonitor dbdLogMonitor) {
+        dbdLogMonitor.registerListener(DbdLogEvent.MATCH_WAIT, evt -> handleMatchWaitStart());
+        dbdLogMonitor.registerListener(DbdLogEvent.MATCH_WAIT_CANCEL, evt -> handleMatchWaitCancel());
+        dbdLogMonitor.registerListener(DbdLogEvent.SERVER_CONNECT, evt -> handleLobbyFound());
+        dbdLogMonitor.registerListener(DbdLogEvent.KILLER_CHARACTER,
+                evt -> handleNewKillerCharacter((Killer) evt.getValue()));
+        dbdLogMonitor.registerListener(DbdLogEvent.MAP_GENERATE, evt -> handleMapGeneration((RealmMap) evt.getValue()));
+        dbdLogMonitor.registerListener(DbdLogEvent.REALM_ENTER, evt -> handleRealmEnter());
+        dbdLogMonitor.registerListener(DbdLogEvent.MATCH_START, evt -> handleMatchStart());
+        dbdLogMonitor.registerListener(DbdLogEvent.SURVIVED, evt -> handleCurrentPlayerSurvival());
+        dbdLogMonitor.registerListener(DbdLogEvent.USER_LEFT_REALM, evt -> handleRealmLeave());
+        dbdLogMonitor.registerListener(DbdLogEvent.SERVER_DISCONNECT, evt -> handleServerDisconnect());
     }
 
 
@@ -137,16 +187,24 @@ public class GameStateManager implements NativeKeyListener {
 
 
     public void handleServerConnect(Connection connection) {
+        handleLobbyFound();
+        fireEvent(GameEvent.CONNECTED_TO_LOBBY, connection);
+
+        PlayerDto killerPlayer = new PlayerDto(null, null, connection.getRemoteAddr());
+        handleNewKillerPlayer(killerPlayer);
+    }
+
+
+    /**
+     * The DBD log only tells us the address of the server, so this does not resolve the killer player.
+     */
+    private void handleLobbyFound() {
         log.debug("Game event: connected to lobby");
         queueStopwatch.stop();
 
         currentMatch = new Match();
         currentMatch.incrementLobbiesFound();
         currentMatch.incrementSecondsQueued(getQueueTimeInSeconds());
-        fireEvent(GameEvent.CONNECTED_TO_LOBBY, connection);
-
-        PlayerDto killerPlayer = new PlayerDto(null, null, connection.getRemoteAddr());
-        handleNewKillerPlayer(killerPlayer);
     }
 
 
@@ -156,7 +214,7 @@ public class GameStateManager implements NativeKeyListener {
         resetMatchWait = true;
         matchStopwatch.reset();
         matchStopwatch.start();
-        currentMatch.setMatchStartTime(LocalDateTime.now());
+        currentMatch.setMatchStartTime(LocalDateTime.now(clock));
         currentMatch.incrementSecondsWaited(getMatchWaitTimeInSeconds());
         fireEvent(GameEvent.MATCH_STARTED);
     }
@@ -170,15 +228,18 @@ public class GameStateManager implements NativeKeyListener {
         // TODO: can we detect match cancel automatically?
         boolean matchCancelled = getMatchDurationInSeconds() < minMatchSeconds;
 
-        if (!matchCancelled) {
-            dataService.addMatch(currentMatch);
-        } else {
+        if (matchCancelled) {
             currentMatch.setCancelled(true);
+        } else if (dataService != null) {
+            dataService.addMatch(currentMatch);
         }
 
         fireEvent(GameEvent.MATCH_ENDED, currentMatch);
         fireEvent(GameEvent.UPDATED_STATS);
-        fireEvent(GameEvent.UPDATED_CHASE_SUMMARY, chaseEventManager.getChaseSummary());
+
+        if (chaseEventManager != null) {
+            fireEvent(GameEvent.UPDATED_CHASE_SUMMARY, chaseEventManager.getChaseSummary());
+        }
     }
 
     private void handleCurrentPlayerSurvival() {
@@ -197,45 +258,18 @@ public class GameStateManager implements NativeKeyListener {
         fireEvent(GameEvent.DISCONNECTED);
     }
 
+    /**
+     * The player is looked up (and stored) in the background. A new lobby supersedes the resolution for the previous
+     * one, whose result is then ignored, so the current match is only updated with the killer of the current lobby.
+     */
     private void handleNewKillerPlayer(PlayerDto playerDto) {
-        new Thread(() -> {
-//            String playerName;
-//            try {
-//                playerName = steamProfileDao.getPlayerName(playerDto.getSteamId());
-//            } catch (IOException e) {
-//                log.error("Failed to retrieve player's name for steam id#{}.", playerDto.getSteamId());
-//                playerName = "";
-//            }
-//            String steamId = playerDto.getSteamId();
-//            Optional<Player> storedPlayer = dataService.getPlayerBySteamId(steamId);
-            InetAddress inetAddress = playerDto.getInetAddress();
-            Optional<Player> storedPlayer = dataService.getPlayerByInetAddress(playerDto.getInetAddress());
-            final Player player;
-
-            if (!storedPlayer.isPresent()) {
-                log.debug("User with address [{}] not found in the storage. Creating new entry...", inetAddress);
-                player = new Player();
-//                player.setSteamId64(steamId);
-                player.setDbdPlayerId(playerDto.getDbdId());
-                player.setIpAddress(inetAddress);
-//                player.addName(playerName);
-                player.incrementTimesEncountered();
-                dataService.addPlayer(player);
-            } else {
-                log.debug("User with address [{}] found in the storage. Updating entry...", inetAddress);
-                player = storedPlayer.get();
-                player.updateLastSeen();
-//                player.addName(playerName);
-                player.incrementTimesEncountered();
-                dataService.notifyChange();
-            }
-
-            currentMatch.setKillerPlayerSteamId64(player.getSteamId64());
-            currentMatch.setKillerPlayerDbdId(player.getDbdPlayerId());
-            currentMatch.setKillerPlayerIpHash(player.getIpHash());
-            invokeLater(() -> fireEvent(GameEvent.NEW_KILLER_PLAYER, player));
-
-        }).start();
+        killerPlayerResolver.submit(() -> dataService.encounterPlayer(playerDto.getInetAddress(), playerDto.getDbdId()),
+                player -> {
+                    currentMatch.setKillerPlayerSteamId64(player.getSteamId64());
+                    currentMatch.setKillerPlayerDbdId(player.getDbdPlayerId());
+                    currentMatch.setKillerPlayerIpHash(player.getIpHash());
+                    fireEvent(GameEvent.NEW_KILLER_PLAYER, player);
+                });
     }
 
     private void handleNewKillerCharacter(Killer killerCharacter) {
@@ -394,7 +428,7 @@ public class GameStateManager implements NativeKeyListener {
             return;
         }
 
-        getKillerPlayer().ifPresent(player -> {
+        getKillerPlayer().ifPresent(killerPlayer -> dataService.updatePlayer(killerPlayer.getIpHash(), player -> {
             if (escaped) {
                 player.incrementEscapes();
             }
@@ -402,11 +436,9 @@ public class GameStateManager implements NativeKeyListener {
                 player.incrementDeaths();
             }
             player.incrementMatchesPlayed();
-        });
+        }));
 
-        dataService.getStats().addMatchStats(currentMatch);
-        dataService.getMatchLog().add(currentMatch);
-        dataService.notifyChange();
+        dataService.addMatchResults(currentMatch);
 
 //        currentMatch = new Match();
         fireEvent(GameEvent.UPDATED_STATS);
@@ -0,0 +1,92 @@
+package net.lobby_simulator_companion.loop.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pcap4j.core.BpfProgram;
+import org.pcap4j.core.NotOpenException;
+import org.pcap4j.core.PcapHandle;
+import org.pcap4j.core.PcapNativeException;
+import org.pcap4j.core.PcapNetworkInterface;
+import org.pcap4j.core.Pcaps;
+import org.pcap4j.core.RawPacketListener;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+import java.io.IOException;
+import java.net.InetAddress;
+
+/**
+ * Packets captured on the network interface that has the given address.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class LivePacketSource implements PacketSource {
+
+    private static final int READ_TIMEOUT_MS = 1000;
+
+    private final PcapHandle pcapHandle;
+
+
+    public LivePacketSource(InetAddress localAddr, int maxCapturedPacketSize)
+            throws PcapNativeException, InvalidNetworkInterfaceException {
+
+        PcapNetworkInterface networkInterface = Pcaps.getDevByAddress(localAddr);
+        if (networkInterface == null) {
+            throw new InvalidNetworkInterfaceException();
+        }
+
+        final PcapNetworkInterface.PromiscuousMode mode = PcapNetworkInterface.PromiscuousMode.NONPROMISCUOUS;
+        pcapHandle = networkInterface.openLive(maxCapturedPacketSize, mode, READ_TIMEOUT_MS);
+    }
+
+
+    @Override
+    public boolean isLive() {
+        return true;
+    }
+
+    @Override
+    public DataLinkType getDataLinkType() {
+        return pcapHandle.getDlt();
+    }
+
+    @Override
+    public void loop(RawPacketListener listener) throws IOException, InterruptedException {
+        try {
+            pcapHandle.loop(-1, listener);
+        } catch (PcapNativeException | NotOpenException e) {
+            throw new IOException("Failed to capture packets.", e);
+        }
+    }
+
+    @Override
+    public void breakLoop() {
+        try {
+            pcapHandle.breakLoop();
+        } catch (NotOpenException e) {
+            log.error("Failed when attempting to stop sniffer.", e);
+        }
+    }
+
+    /**
+     * pcap4j creates a new object every time, so this should only be called for the packets which need it.
+     */
+    @Override
+    public long getTimestamp() {
+        return pcapHandle.getTimestamp().getTime();
+    }
+
+    @Override
+    public void setFilter(String filter) throws IOException {
+        try {
+            pcapHandle.setFilter(filter, BpfProgram.BpfCompileMode.OPTIMIZE);
+        } catch (PcapNativeException | NotOpenException e) {
+            throw new IOException("Failed to set packet filter: " + filter, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        pcapHandle.close();
+    }
+
+}
@@ -1,6 +1,8 @@
 package net.lobby_simulator_companion.loop.service;
 
+import com.google.gson.Gson;
 import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
 import net.lobby_simulator_companion.loop.domain.LoopData;
 import net.lobby_simulator_companion.loop.domain.MatchLog;
 import net.lobby_simulator_companion.loop.domain.Player;
@@ -8,29 +10,49 @@ import net.lobby_simulator_companion.loop.domain.stats.Match;
 import net.lobby_simulator_companion.loop.domain.stats.Stats;
 import net.lobby_simulator_companion.loop.domain.stats.periodic.PeriodStats;
 import net.lobby_simulator_companion.loop.repository.LoopRepository;
+import net.lobby_simulator_companion.loop.repository.MatchHistoryRepository;
+import net.lobby_simulator_companion.loop.repository.PlayerRepository;
+import net.lobby_simulator_companion.loop.util.Hash128Cache;
+import net.lobby_simulator_companion.loop.util.Md5;
+import net.lobby_simulator_companion.loop.util.Scheduler;
 import net.lobby_simulator_companion.loop.util.event.EventListener;
 import net.lobby_simulator_companion.loop.util.event.EventSupport;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.InetAddress;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.time.ZoneId;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toConcurrentMap;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Service for managing data related to players and servers.
+ * <p>
+ * The stats and the match log are only modified by a single thread (the writer), to which every change is handed
+ * over, together with the periodic saves and stat resets (which are timed by the {@link Scheduler}). Callers never
+ * wait for it, and never see the data while it is being modified: they are given copies which the writer publishes
+ * once it has no more pending changes.
+ * <p>
+ * Players are also changed only by the writer (see {@link #updatePlayer(String, Consumer)}). A changed player is a
+ * copy that replaces the stored one, so players can be looked up directly by the caller (the player cache is
+ * thread-safe), and the players returned never change.
  *
  * @author NickyRamone
  */
@@ -38,38 +60,97 @@ import static java.util.stream.Collectors.toConcurrentMap;
 public class LoopDataService {
 
     public enum DataServiceEvent {
-        STATS_RESET
+        STATS_RESET,
+        STATS_UPDATED
     }
 
     private static final long SAVE_PERIOD_MS = 5000;
+    private static final int HOT_PLAYERS_CAPACITY = 1000;
+    private static final long STAT_RESET_DELAY_MS = 5000;
 
     private final LoopRepository repository;
-    private Map<String, Player> players = new HashMap<>();
-    private LoopData loopData = new LoopData();
-    private boolean dirty;
+    private final MatchHistoryRepository matchHistory;
+    private final PlayerRepository playerRepository;
+
+    /**
+     * With a player repository, the most recently used players (the rest are loaded when needed);
+     * otherwise, all the players.
+     */
+    private final Hash128Cache<Player> players;
+    private final Map<String, Player> changedPlayers = new ConcurrentHashMap<>();
+
+    /**
+     * Changed players being written by the writer. Like the changed players, they stay in the cache until they are
+     * stored, so that an older stored version is never read meanwhile.
+     */
+    private final Map<String, Player> savingPlayers = new ConcurrentHashMap<>();
+    private final Scheduler scheduler;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "data-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Gson gson = LoopGsonFactory.gson(false);
     private EventSupport eventSupport = new EventSupport();
 
+    // only accessed by the writer
+    private LoopData loopData = new LoopData();
+    private boolean statsChanged;
+    private boolean matchHistoryChanged;
+    private boolean fullSaveRequired;
+    private boolean publishPending;
+
+    // published by the writer
+    private volatile Stats statsView = new Stats();
+    private volatile MatchLog matchLogView = new MatchLog();
+
+
+    public LoopDataService(LoopRepository loopRepository, MatchHistoryRepository matchHistoryRepository) {
+        this(loopRepository, matchHistoryRepository, null, new Scheduler());
+    }
 
-    public LoopDataService(LoopRepository loopRepository) {
+    /**
+     * @param matchHistoryRepository where matches are stored (the data file only has the stats and the players).
+     */
+    public LoopDataService(LoopRepository loopRepository, MatchHistoryRepository matchHistoryRepository,
+                           PlayerRepository playerRepository, Scheduler scheduler) {
+        if (matchHistoryRepository == null) {
+            throw new IllegalArgumentException("A match history is needed for storing the matches.");
+        }
         repository = loopRepository;
+        this.scheduler = scheduler;
+        matchHistory = matchHistoryRepository;
+        this.playerRepository = playerRepository;
+        players = playerRepository != null
+                ? new Hash128Cache<>(HOT_PLAYERS_CAPACITY, this::isPinned)
+                : new Hash128Cache<>();
     }
 
 
     public void start() throws IOException {
+        try {
+            callOnWriter(this::init);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        scheduler.scheduleAtFixedRate("data-save", () -> writer.execute(this::saveOnWriter),
+                SAVE_PERIOD_MS, SAVE_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private Void init() throws IOException {
         loopData = loadData();
-        players = loopData.getPlayers().stream()
-                .collect(toConcurrentMap(Player::getIpHash, identity()));
-
-        // schedule thread for saving dirty data
-        Timer timer = new Timer();
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                save();
-            }
-        }, SAVE_PERIOD_MS, SAVE_PERIOD_MS);
+        matchHistory.open();
+        initMatchLog();
+        if (playerRepository != null) {
+            playerRepository.open();
+            importPlayers();
+        } else {
+            loopData.getPlayers().forEach(this::cachePlayer);
+        }
+        scheduleStatReset();
+        publishViews();
 
-        initStatResetTimers();
+        return null;
     }
 
 
@@ -86,133 +167,438 @@ public class LoopDataService {
         return data;
     }
 
-    private void initStatResetTimers() {
-        getStats().asStream().forEach(this::initStatResetTimer);
+    /**
+     * Fills the match log with the most recent matches of the history.
+     * Data files of older versions include the match log, so the first time, those matches are imported into the
+     * history instead.
+     */
+    private void initMatchLog() throws IOException {
+        MatchLog matchLog = loopData.getMatchLog();
+
+        if (matchHistory.size() == 0 && matchLog.matchCount() > 0) {
+            log.info("Importing {} matches into the match history...", matchLog.matchCount());
+            for (Match match : matchLog.getMatches()) {
+                matchHistory.append(match);
+            }
+            matchHistoryChanged = true;
+            fullSaveRequired = true;
+        } else if (matchLog.matchCount() == 0) {
+            matchHistory.getTail().forEach(matchLog::add);
+        }
     }
 
-    private void initStatResetTimer(PeriodStats periodStats) {
-        if (periodStats.getPeriodEnd() == null) {
+    /**
+     * Moves the players of the data file to the player repository. Data files of older versions (or written without
+     * a player repository) include all the players.
+     * Players already in the repository are more recent, so they are kept.
+     */
+    private void importPlayers() throws IOException {
+        List<Player> dataFilePlayers = loopData.getPlayers();
+        if (dataFilePlayers.isEmpty()) {
             return;
         }
-        Date statsResetDate = Date.from(periodStats.getPeriodEnd().atZone(ZoneId.systemDefault()).toInstant()
-                .plusSeconds(5L));
-
-        Timer timer = new Timer();
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                log.debug("Resetting stats timer for {}", periodStats.getClass());
-                periodStats.reset();
-                notifyChange();
-                timer.cancel();
-                initStatResetTimer(periodStats);
-                eventSupport.fireEvent(DataServiceEvent.STATS_RESET);
-            }
-        }, statsResetDate);
+
+        List<Player> newPlayers = dataFilePlayers.stream()
+                .filter(p -> !playerRepository.contains(p.getIpHash()))
+                .collect(toList());
+        log.info("Importing {} players into the player database...", newPlayers.size());
+        playerRepository.putAll(newPlayers);
+        dataFilePlayers.clear();
+        fullSaveRequired = true;
+    }
+
+    /**
+     * Schedules a single wakeup for the earliest end of the stat periods. Periods often end at the same time (for
+     * example, a new month may also be a new day and a new week), so they are reset together.
+     */
+    private void scheduleStatReset() {
+        Optional<LocalDateTime> nextPeriodEnd = loopData.getStats().asStream()
+                .map(PeriodStats::getPeriodEnd)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder());
+
+        nextPeriodEnd.ifPresent(periodEnd -> scheduler.scheduleAt("stats-reset",
+                periodEnd.plus(STAT_RESET_DELAY_MS, ChronoUnit.MILLIS), () -> writer.execute(this::resetEndedPeriods)));
+    }
+
+    private void resetEndedPeriods() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PeriodStats> endedPeriods = loopData.getStats().asStream()
+                .filter(p -> p.getPeriodEnd() != null && !now.isBefore(p.getPeriodEnd()))
+                .collect(toList());
+
+        for (PeriodStats periodStats : endedPeriods) {
+            log.debug("Resetting stats for {}", periodStats.getClass());
+            periodStats.reset();
+        }
+        if (!endedPeriods.isEmpty()) {
+            statsChanged = true;
+            publishViews();
+            eventSupport.fireEvent(DataServiceEvent.STATS_RESET);
+        }
+        scheduleStatReset();
     }
 
 
+    /**
+     * @return a copy of the stats, which is replaced (not modified) when they change.
+     */
     public Stats getStats() {
-        return loopData.getStats();
+        return statsView;
     }
 
+    /**
+     * @return a copy of the match log, which is replaced (not modified) when it changes.
+     */
     public MatchLog getMatchLog() {
-        return loopData.getMatchLog();
+        return matchLogView;
     }
 
     public void addMatch(Match match) {
-        Player player = players.get(match.getKillerPlayerSteamId64());
+        writer.execute(() -> {
+            Player player = findPlayer(match.getKillerPlayerSteamId64());
+
+            if (player != null) {
+                changePlayer(player, p -> {
+                    p.incrementMatchesPlayed();
+                    p.incrementSecondsPlayed(match.getSecondsPlayed());
+
+                    if (match.escaped()) {
+                        p.incrementEscapes();
+                    } else if (match.died()) {
+                        p.incrementDeaths();
+                    }
+                });
+            }
+
+            applyMatchResults(match);
+        });
+    }
 
-        if (player != null) {
-            player.incrementMatchesPlayed();
-            player.incrementSecondsPlayed(match.getSecondsPlayed());
+    /**
+     * Adds the match to the stats, the match log and the match history, without updating the killer player.
+     */
+    public void addMatchResults(Match match) {
+        writer.execute(() -> applyMatchResults(match));
+    }
 
-            if (match.escaped()) {
-                player.incrementEscapes();
-            } else if (match.died()) {
-                player.incrementDeaths();
+    /**
+     * Adds matches played in the past (for example, the ones found in old logs) to the match log and the match
+     * history, merged in chronological order with the matches already there. In the stats, they only count for the
+     * periods in which they started, and they do not change the current streaks
+     * (see {@link Stats#addPastMatchStats(List)}).
+     */
+    public void addPastMatches(List<Match> matches) {
+        List<Match> sortedMatches = new ArrayList<>(matches);
+        sortedMatches.sort(Match.START_TIME_ORDER);
+
+        writer.execute(() -> {
+            loopData.getStats().addPastMatchStats(sortedMatches);
+            loopData.getMatchLog().addPastMatches(sortedMatches);
+            statsChanged = true;
+            requestPublish();
+            try {
+                matchHistory.insert(sortedMatches);
+                matchHistoryChanged = true;
+            } catch (IOException e) {
+                log.error("Failed to add past matches to the match history.", e);
             }
-        }
+        });
+    }
 
+    private void applyMatchResults(Match match) {
         loopData.getStats().addMatchStats(match);
         loopData.getMatchLog().add(match);
-        dirty = true;
+        statsChanged = true;
+        requestPublish();
+        appendToMatchHistory(match);
+    }
+
+    private void appendToMatchHistory(Match match) {
+        try {
+            matchHistory.append(match);
+            matchHistoryChanged = true;
+        } catch (IOException e) {
+            log.error("Failed to add match to the match history.", e);
+        }
+    }
+
+    private void forceMatchHistory() {
+        if (!matchHistoryChanged) {
+            return;
+        }
+        try {
+            matchHistory.force();
+            matchHistoryChanged = false;
+        } catch (IOException e) {
+            log.error("Failed to write the match history to disk.", e);
+        }
+    }
+
+    /**
+     * Publishes new copies of the stats and the match log once the writer has applied the pending changes, so that
+     * a burst of changes is copied only once.
+     */
+    private void requestPublish() {
+        if (!publishPending) {
+            publishPending = true;
+            writer.execute(() -> {
+                publishPending = false;
+                publishViews();
+                eventSupport.fireEvent(DataServiceEvent.STATS_UPDATED);
+            });
+        }
+    }
+
+    private void publishViews() {
+        statsView = gson.fromJson(gson.toJsonTree(loopData.getStats(), Stats.class), Stats.class);
+        matchLogView = loopData.getMatchLog().copy();
+    }
+
+    /**
+     * Waits until the changes handed over so far are applied and published, and the matches are written to disk.
+     */
+    public void flush() {
+        callOnWriter(() -> {
+            forceMatchHistory();
+            publishViews();
+            return null;
+        });
     }
 
 
     public Optional<Player> getPlayerBySteamId(String steamId) {
-        return Optional.ofNullable(steamId).filter(StringUtils::isNotBlank).map(players::get);
+        return Optional.ofNullable(steamId).filter(StringUtils::isNotBlank).map(this::findPlayer);
     }
 
     public Optional<Player> getPlayerByInetAddress(InetAddress inetAddress) {
-        return getPlayerByIpHash(hashInetAddress(inetAddress));
+        byte[] ipHash = Md5.digest(inetAddress.getAddress());
+        return Optional.ofNullable(findPlayer(Md5.high(ipHash), Md5.low(ipHash)));
     }
 
     public Optional<Player> getPlayerByIpHash(String ipHash) {
-        return Optional.ofNullable(players.get(ipHash));
+        return Optional.ofNullable(findPlayer(ipHash));
     }
 
+    private Player findPlayer(String ipHash) {
+        if (ipHash == null) {
+            return null;
+        }
+        Player player = findPlayer(Md5.keyHigh(ipHash), Md5.keyLow(ipHash));
 
-    public void addPlayer(Player player) {
-//        players.put(player.getSteamId64(), player);
-        players.put(player.getIpHash(), player);
-        dirty = true;
+        // the key of an IP hash which is not an MD5 hash is a hash of it, so it could collide
+        return player != null && ipHash.equals(player.getIpHash()) ? player : null;
     }
 
-    private String hashInetAddress(InetAddress address) {
-        return hexToString(hashWithMd5(address.getAddress()));
-    }
+    /**
+     * Players being modified are never evicted from the cache, so they are found there before an older stored
+     * version is read.
+     */
+    private Player findPlayer(long ipHashHigh, long ipHashLow) {
+        Player player = players.get(ipHashHigh, ipHashLow);
+        if (player == null && playerRepository != null) {
+            try {
+                player = playerRepository.get(ipHashHigh, ipHashLow);
+            } catch (IOException e) {
+                log.error("Failed to read player from the player database.", e);
+            }
+            if (player != null) {
+                // the writer may have cached a changed version meanwhile
+                player = players.putIfAbsent(ipHashHigh, ipHashLow, player);
+            }
+        }
 
-    private byte[] hashWithMd5(byte[] bytes) {
+        return player;
+    }
 
-        MessageDigest md5Digest;
-        try {
-            md5Digest = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+    private void cachePlayer(Player player) {
+        players.put(Md5.keyHigh(player.getIpHash()), Md5.keyLow(player.getIpHash()), player);
+    }
 
-        md5Digest.update(bytes);
 
-        return md5Digest.digest();
+    /**
+     * Adds a new player, which must not be changed afterwards (see {@link #updatePlayer(String, Consumer)}).
+     */
+    public void addPlayer(Player player) {
+        writer.execute(() -> storeChangedPlayer(player));
     }
 
-    private String hexToString(byte[] bytes) {
+    /**
+     * Registers an encounter with the player at the given address, adding the player if it is new.
+     * The change is applied by the writer; this waits until it is done.
+     *
+     * @return the player, including this encounter.
+     */
+    public Player encounterPlayer(InetAddress inetAddress, String dbdPlayerId) {
+        return callOnWriter(() -> {
+            Optional<Player> storedPlayer = getPlayerByInetAddress(inetAddress);
+
+            if (!storedPlayer.isPresent()) {
+                log.debug("User with address [{}] not found in the storage. Creating new entry...", inetAddress);
+                Player player = new Player();
+                player.setDbdPlayerId(dbdPlayerId);
+                player.setIpAddress(inetAddress);
+                player.incrementTimesEncountered();
+                storeChangedPlayer(player);
+
+                return player;
+            }
+
+            log.debug("User with address [{}] found in the storage. Updating entry...", inetAddress);
+            return changePlayer(storedPlayer.get(), player -> {
+                player.updateLastSeen();
+                player.incrementTimesEncountered();
+            });
+        });
+    }
 
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : bytes) {
-            String hex = Integer.toHexString(0xFF & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
+    /**
+     * Changes a player (if found). The change is applied by the writer, after the changes handed over before.
+     */
+    public void updatePlayer(String ipHash, Consumer<Player> change) {
+        writer.execute(() -> {
+            Player player = findPlayer(ipHash);
+            if (player != null) {
+                changePlayer(player, change);
             }
-            hexString.append(hex);
-        }
+        });
+    }
 
-        return hexString.toString();
+    /**
+     * Only called by the writer.
+     *
+     * @return the changed copy of the player, which replaces it.
+     */
+    private Player changePlayer(Player player, Consumer<Player> change) {
+        Player changedPlayer = player.copy();
+        change.accept(changedPlayer);
+        storeChangedPlayer(changedPlayer);
+
+        return changedPlayer;
     }
 
+    /**
+     * Only called by the writer. Marks the player as changed (so that it is saved) before caching it, so that it
+     * is pinned in the cache as soon as it is found there.
+     */
+    private void storeChangedPlayer(Player player) {
+        changedPlayers.put(player.getIpHash(), player);
+        cachePlayer(player);
+    }
 
+    /**
+     * Marks the stats as changed, so that they are saved.
+     */
     public void notifyChange() {
-        dirty = true;
+        writer.execute(() -> statsChanged = true);
+    }
+
+    /**
+     * Saves the changes made since the last save.
+     * Usually, only the changes are stored (which is fast no matter how much data there is); once in a while,
+     * all the data is written, instead.
+     * <p>
+     * Saving is done by the writer, after the changes handed over before this call; this waits until it is done.
+     */
+    public void save() {
+        callOnWriter(() -> {
+            saveOnWriter();
+            return null;
+        });
+    }
+
+    private void saveOnWriter() {
+        forceMatchHistory();
+        if (!fullSaveRequired && !repository.isCompactionDue()) {
+            saveChanges();
+        } else {
+            saveAll();
+        }
     }
 
-    public synchronized void save() {
-        if (!dirty) {
+    private void saveAll() {
+        List<Player> playersToSave = takeChangedPlayers();
+        statsChanged = false;
+        LoopData snapshot = repository.snapshot(
+                playerRepository != null ? Collections.emptyList() : players.values(), loopData.getStats());
+
+        try {
+            if (playerRepository != null) {
+                playerRepository.putAll(playersToSave);
+            }
+            repository.save(snapshot);
+            fullSaveRequired = false;
+        } catch (IOException e) {
+            log.error("Failed to save data.", e);
+            changedPlayers.putAll(savingPlayers);
+            fullSaveRequired = true;
+        } finally {
+            savingPlayers.clear();
+        }
+    }
+
+    private void saveChanges() {
+        if (changedPlayers.isEmpty() && !statsChanged) {
             return;
         }
 
-        loopData.getPlayers().clear();
-        loopData.addPlayers(new ArrayList<>(players.values()));
+        List<Player> playersToSave = takeChangedPlayers();
+        Stats statsCopy = statsChanged ? repository.copy(loopData.getStats()) : null;
+        statsChanged = false;
+
         try {
-            repository.save(loopData);
-            dirty = false;
+            if (playerRepository != null) {
+                playerRepository.putAll(playersToSave);
+                playersToSave = Collections.emptyList();
+            }
+            if (!playersToSave.isEmpty() || statsCopy != null) {
+                repository.saveChanges(playersToSave, statsCopy);
+            }
         } catch (IOException e) {
             log.error("Failed to save data.", e);
+            changedPlayers.putAll(savingPlayers);
+            statsChanged |= statsCopy != null;
+        } finally {
+            savingPlayers.clear();
         }
     }
 
+    /**
+     * Moves the changed players to the ones being saved (so they stay pinned in the cache until they are stored).
+     * Players are never changed once stored in the cache (they are replaced instead), so they can be saved as they
+     * are.
+     */
+    private List<Player> takeChangedPlayers() {
+        List<Player> result = new ArrayList<>(changedPlayers.values());
+        for (Player player : result) {
+            savingPlayers.put(player.getIpHash(), player);
+            changedPlayers.remove(player.getIpHash(), player);
+        }
+
+        return result;
+    }
+
+    private boolean isPinned(Player player) {
+        return changedPlayers.containsKey(player.getIpHash()) || savingPlayers.containsKey(player.getIpHash());
+    }
+
 
     public void registerListener(EventListener eventListener) {
         eventSupport.registerListener(eventListener);
     }
+
+
+    private <T> T callOnWriter(Callable<T> task) {
+        try {
+            return writer.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the data writer.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new IllegalStateException("Data writer task failed.", e.getCause());
+        }
+    }
 }
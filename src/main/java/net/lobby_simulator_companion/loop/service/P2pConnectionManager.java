@@ -1,21 +1,16 @@
 package net.lobby_simulator_companion.loop.service;
 
-import lombok.Builder;
-import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import net.lobby_simulator_companion.loop.domain.Connection;
-import net.lobby_simulator_companion.loop.util.ByteUtil;
 import net.lobby_simulator_companion.loop.util.NetUtil;
-import org.pcap4j.core.*;
-import org.pcap4j.packet.*;
-import org.pcap4j.packet.factory.PacketFactories;
-import org.pcap4j.packet.factory.PacketFactory;
+import net.lobby_simulator_companion.loop.util.Scheduler;
+import org.pcap4j.core.PcapNativeException;
 
+import java.io.IOException;
 import java.net.InetAddress;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The initial handshake with the dedicated server hosting the match (including lobby) is through WireGuard protocol:
@@ -23,6 +18,12 @@ import java.util.TimerTask;
  * <p>
  * Update 2022-11-06: Looking at the traffic, it doesn't really seem WireGuard. Maybe I was wrong before; I don't think
  * it changed.
+ * <p>
+ * Packets are handled as raw bytes (see {@link RawUdpPacket}) so that following the traffic of a match does not
+ * allocate anything per packet, apart from what pcap4j itself allocates.
+ * <p>
+ * Packets can also come from a recorded capture (see {@link PcapFilePacketSource}); in that case, connection timeouts
+ * are measured on packet time instead of by a scheduled cleaner.
  *
  * @author NickyRamone
  */
@@ -35,6 +36,14 @@ public class P2pConnectionManager implements ConnectionManager {
     private static final int MAX_CAPTURED_PACKET_SIZE = 150;
     private static final int CLEANER_POLL_MS = 1000;
     private static final int CONNECTION_TIMEOUT_MS = 5000;
+    private static final int STUN_MESSAGE_LENGTH__BINDING_REQUEST = 36;
+    private static final int STUN_MESSAGE_LENGTH__BINDING_RESPONSE = 48;
+
+    /**
+     * Ping requests waiting for a response; older ones are overwritten if they never get one.
+     */
+    private static final int MAX_PENDING_PINGS = 32;
+    private static final long NO_PENDING_PING = Long.MIN_VALUE;
 
     /**
      * Berkley Packet Filter (BPF):
@@ -44,140 +53,53 @@ public class P2pConnectionManager implements ConnectionManager {
     private static final String PACKET_FILTER__SEARCH_CONNECTION = "udp and len <= 110";
     private static final String PACKET_FILTER__CHECK_CONNECTION_ALIVE = "udp and (src host %s or dst host %s)";
 
-    @ToString(exclude = "payload")
-    private static final class PacketInfo {
-        enum Protocol {TCP, UDP}
-
-        Protocol protocol;
-        int packetLen;
-        InetAddress srcAddress;
-        InetAddress dstAddress;
-        int srcPort;
-        int dstPort;
-        int payloadLen;
-        Packet payload;
-        long timestamp;
-    }
-
-
-    @Builder
-    private static final class StunPacket {
-        enum MessageType {BINDING_REQUEST, BINDING_RESPONSE}
-
-        final InetAddress srcAddress;
-        final InetAddress dstAddress;
-        final int srcPort;
-        final int dstPort;
-        final MessageType messageType;
-        final int messageLength;
-        final int transactionId;
-        long timestamp;
-
-        static StunPacket of(PcapHandle pcapHandle, Packet packet) {
-            IpPacket ipPacket = packet.get(IpV4Packet.class);
-            if (ipPacket == null) {
-                return null;
-            }
-
-            UdpPacket udpPacket = ipPacket.get(UdpPacket.class);
-            if (udpPacket == null) {
-                return null;
-            }
-
-            byte[] udpPayload = udpPacket.getPayload().getRawData();
-
-            return StunPacket.builder()
-                    .srcAddress(ipPacket.getHeader().getSrcAddr())
-                    .dstAddress(ipPacket.getHeader().getDstAddr())
-                    .srcPort(udpPacket.getHeader().getSrcPort().valueAsInt())
-                    .dstPort(udpPacket.getHeader().getDstPort().valueAsInt())
-                    .messageType(determineMessageType(udpPayload))
-                    .transactionId(extractTransactionId(udpPayload))
-                    .messageLength(extractMessageLength(udpPayload))
-                    .timestamp(pcapHandle.getTimestamp().getTime())
-                    .build();
-        }
-
-//        static StunPacket of(PacketInfo packetInfo) {
-//            if (packetInfo == null || packetInfo.payload == null || packetInfo.protocol != PacketInfo.Protocol.UDP) {
-//                return null;
-//            }
-//
-//            byte[] udpData = packetInfo.payload.getRawData();
-//            MessageType messageType = determineMessageType(udpData);
-//            int transactionId = extractTransactionId(udpData);
-//            int messageLength = extractMessageLength(udpData);
-//
-//            return new StunPacket(packetInfo.srcAddress, packetInfo.dstAddress, packetInfo.srcPort, packetInfo.dstPort,
-//                    messageType, messageLength, transactionId);
-//        }
-
-        private static MessageType determineMessageType(byte[] udpPayload) {
-            if (udpPayload[0] == 0x00 && udpPayload[1] == 0x01) {
-                return MessageType.BINDING_REQUEST;
-            } else if (udpPayload[0] == 0x01 && udpPayload[1] == 0x01) {
-                return MessageType.BINDING_RESPONSE;
-            }
-            return null;
-        }
-
-        private static int extractMessageLength(byte[] udpPayload) {
-            if (udpPayload.length < 4) {
-                return 0;
-            }
-
-            byte byte1 = udpPayload[2];
-            byte byte2 = udpPayload[3];
-
-            return ((byte1 & 0xFF) << 8) | (byte2 & 0xFF);
-        }
-
-        private static int extractTransactionId(byte[] udpPayload) {
-            byte[] transactionId = new byte[16];
-
-            if (udpPayload.length < 20) {
-                return 0;
-            }
-
-            for (int i = 0, j = 4; i < 16; i++, j++) {
-                transactionId[i] = udpPayload[j];
-            }
-
-            return ByteUtil.byteArrayToInt(transactionId);
-        }
-
-    }
-
     private enum State {IDLE, HANDSHAKE_REQUESTED, CONNECTED_TO_HOST}
 
     private final InetAddress localAddr;
+    private final int localAddrValue;
     private final SnifferListener snifferListener;
-    private final Timer connectionCleanerTimer = new Timer();
-    private PcapHandle pcapHandle;
+    private final Scheduler scheduler;
+    private final int[] pendingPingTransactionIds = new int[MAX_PENDING_PINGS];
+    private final long[] pendingPingTimestamps = new long[MAX_PENDING_PINGS];
+    private int nextPendingPingIdx;
+    private ScheduledFuture<?> connectionCleaner;
+    private final PacketSource packetSource;
+    private final RawUdpPacket packet;
     private Connection serverConnection;
+    private int serverAddrValue;
+    private int serverPort;
     private State state = State.IDLE;
-    private Map<Integer, Long> requestTimestampByTransactionId = new HashMap<>();
 
 
-    public P2pConnectionManager(InetAddress localAddr, SnifferListener snifferListener)
+    public P2pConnectionManager(InetAddress localAddr, SnifferListener snifferListener, Scheduler scheduler)
             throws PcapNativeException, InvalidNetworkInterfaceException {
 
-        this.localAddr = localAddr;
-        this.snifferListener = snifferListener;
-        initNetworkInterface();
-        startConnectionCleaner();
+        this(localAddr, snifferListener, scheduler, new LivePacketSource(localAddr, MAX_CAPTURED_PACKET_SIZE));
     }
 
-
-    private void initNetworkInterface() throws PcapNativeException, InvalidNetworkInterfaceException {
-        PcapNetworkInterface networkInterface = Pcaps.getDevByAddress(localAddr);
-        if (networkInterface == null) {
-            throw new InvalidNetworkInterfaceException();
+    /**
+     * Creates a manager for a recorded capture; connection timeouts are measured on packet time.
+     */
+    public P2pConnectionManager(InetAddress localAddr, SnifferListener snifferListener, PacketSource packetSource) {
+        this(localAddr, snifferListener, null, packetSource);
+        if (packetSource.isLive()) {
+            throw new IllegalArgumentException("Live packet sources need a scheduler to detect disconnections.");
         }
+    }
 
-        final PcapNetworkInterface.PromiscuousMode mode = PcapNetworkInterface.PromiscuousMode.NONPROMISCUOUS;
-        pcapHandle = networkInterface.openLive(MAX_CAPTURED_PACKET_SIZE, mode, 1000);
+    private P2pConnectionManager(InetAddress localAddr, SnifferListener snifferListener, Scheduler scheduler,
+                                 PacketSource packetSource) {
+        this.localAddr = localAddr;
+        this.localAddrValue = NetUtil.toInt(localAddr);
+        this.snifferListener = snifferListener;
+        this.scheduler = scheduler;
+        this.packetSource = packetSource;
+        this.packet = new RawUdpPacket(packetSource.getDataLinkType());
+        clearPendingPings();
         startFilteringPacketsForConnectionToHost();
+        if (packetSource.isLive()) {
+            startConnectionCleaner();
+        }
     }
 
 
@@ -190,77 +112,55 @@ public class P2pConnectionManager implements ConnectionManager {
         }
     }
 
-    private void sniffPackets() throws PcapNativeException, NotOpenException {
+    private void sniffPackets() throws IOException {
         log.info("Started sniffing packets.");
 
         try {
-            pcapHandle.loop(-1, this::handlePacket);
+            packetSource.loop(this::handlePacket);
         } catch (InterruptedException e) {
             // can be interrupted on purpose
+            return;
         }
-    }
 
-    private void handlePacket(Packet packet) {
+        if (serverConnection != null) {
+            // the capture is over, which for the connection is the same as never getting another packet
+            log.debug("Detected match disconnection at the end of the capture.");
+            clearConnection();
+        }
+    }
 
-        PacketInfo packetInfo = adaptPacket(packet);
-        if (packetInfo == null) {
+    private void handlePacket(byte[] rawPacket) {
+        if (!packetSource.isLive()) {
+            clearConnectionIfTimedOut(packetSource.getTimestamp());
+        }
+        if (!packet.parse(rawPacket)) {
             return;
         }
 
-        StunPacket stunPacket = StunPacket.of(pcapHandle, packet);
-
-        if (state == State.IDLE && isStunBindingRequest(stunPacket)) {
-            initHandshakeWithHost(stunPacket);
-        } else if (state == State.HANDSHAKE_REQUESTED && isStunBindingResponse(stunPacket)) {
+        if (state == State.IDLE && isStunBindingRequest()) {
+            initHandshakeWithHost();
+        } else if (state == State.HANDSHAKE_REQUESTED && isStunBindingResponse()) {
             connectionEstablishedWithHost();
         } else if (state == State.CONNECTED_TO_HOST) {
-            if (isStunBindingRequest(stunPacket) && isRequestToHost(packetInfo)) {
-                pingRequestSent(stunPacket);
-            } else if (isStunBindingResponse(stunPacket) && isResponseFromHost(packetInfo)) {
-                pingResponseReceived(stunPacket);
-            } else if (isResponseFromHost(packetInfo)) {
-                connectionToHostIsStillAlive(packetInfo);
+            if (isStunBindingRequest() && isRequestToHost()) {
+                pingRequestSent();
+            } else if (isStunBindingResponse() && isResponseFromHost()) {
+                pingResponseReceived();
+            } else if (isResponseFromHost()) {
+                connectionToHostIsStillAlive();
             }
         }
     }
 
-    private PacketInfo adaptPacket(Packet packet) {
-        IpPacket ipPacket = packet.get(IpV4Packet.class);
-
-        if (ipPacket == null) {
-            return null;
-        }
-
-        PacketInfo info = new PacketInfo();
-        info.timestamp = pcapHandle.getTimestamp().getTime();
-        info.packetLen = packet.length();
-        TcpPacket tcpPacket = ipPacket.get(TcpPacket.class);
-        UdpPacket udpPacket = ipPacket.get(UdpPacket.class);
-        info.srcAddress = ipPacket.getHeader().getSrcAddr();
-        info.dstAddress = ipPacket.getHeader().getDstAddr();
-
-        if (tcpPacket != null) {
-            info.protocol = PacketInfo.Protocol.TCP;
-            info.srcPort = tcpPacket.getHeader().getSrcPort().valueAsInt();
-            info.dstPort = tcpPacket.getHeader().getDstPort().valueAsInt();
-            info.payloadLen = tcpPacket.getPayload() != null ? tcpPacket.getPayload().length() : 0;
-            info.payload = tcpPacket.getPayload();
-        } else if (udpPacket != null) {
-            info.protocol = PacketInfo.Protocol.UDP;
-            info.srcPort = udpPacket.getHeader().getSrcPort().valueAsInt();
-            info.dstPort = udpPacket.getHeader().getDstPort().valueAsInt();
-            info.payloadLen = udpPacket.getPayload() != null ? udpPacket.getPayload().length() : 0;
-            info.payload = udpPacket.getPayload();
-        }
-
-        return info;
-    }
-
 
-    private void initHandshakeWithHost(StunPacket stunPacket) {
+    private void initHandshakeWithHost() {
         log.debug("Server connection - STUN binding request");
         state = State.HANDSHAKE_REQUESTED;
-        serverConnection = new Connection(localAddr, stunPacket.srcPort, stunPacket.dstAddress, stunPacket.dstPort);
+        serverAddrValue = packet.dstAddress;
+        serverPort = packet.dstPort;
+        serverConnection = new Connection(localAddr, packet.srcPort, NetUtil.toInetAddress(packet.dstAddress),
+                packet.dstPort);
+        serverConnection.setLastSeen(packetSource.getTimestamp());
         log.debug("Connection request to game server: {}", serverConnection);
     }
 
@@ -271,83 +171,85 @@ public class P2pConnectionManager implements ConnectionManager {
         snifferListener.notifyMatchConnect(serverConnection);
     }
 
-    private void connectionToHostIsStillAlive(PacketInfo packetInfo) {
-        serverConnection.setLastSeen(packetInfo.timestamp);
+    private void connectionToHostIsStillAlive() {
+        serverConnection.setLastSeen(packetSource.getTimestamp());
     }
 
-    private void pingRequestSent(StunPacket stunPacket) {
-        requestTimestampByTransactionId.put(stunPacket.transactionId, stunPacket.timestamp);
+    private void pingRequestSent() {
+        pendingPingTransactionIds[nextPendingPingIdx] = packet.stunTransactionId();
+        pendingPingTimestamps[nextPendingPingIdx] = packetSource.getTimestamp();
+        nextPendingPingIdx = (nextPendingPingIdx + 1) % MAX_PENDING_PINGS;
     }
 
-    private void pingResponseReceived(StunPacket stunPacket) {
-        Long requestTimestamp = requestTimestampByTransactionId.remove(stunPacket.transactionId);
+    private void pingResponseReceived() {
+        int transactionId = packet.stunTransactionId();
 
-        if (requestTimestamp != null) {
-            int ping = (int) (stunPacket.timestamp - requestTimestamp);
-            snifferListener.notifyPingUpdate(ping);
+        for (int i = 0; i < MAX_PENDING_PINGS; i++) {
+            if (pendingPingTimestamps[i] != NO_PENDING_PING && pendingPingTransactionIds[i] == transactionId) {
+                int ping = (int) (packetSource.getTimestamp() - pendingPingTimestamps[i]);
+                pendingPingTimestamps[i] = NO_PENDING_PING;
+                snifferListener.notifyPingUpdate(ping);
+                return;
+            }
         }
     }
 
-    private boolean isStunBindingRequest(StunPacket stunPacket) {
-        return stunPacket != null
-                && stunPacket.messageType == StunPacket.MessageType.BINDING_REQUEST
-                && stunPacket.srcAddress.equals(localAddr)
-                && stunPacket.messageLength == 36
-                && !NetUtil.isLocalAddress(stunPacket.dstAddress);
+    private void clearPendingPings() {
+        Arrays.fill(pendingPingTimestamps, NO_PENDING_PING);
+    }
+
+    private boolean isStunBindingRequest() {
+        return packet.stunMessageType() == RawUdpPacket.STUN_TYPE__BINDING_REQUEST
+                && packet.srcAddress == localAddrValue
+                && packet.stunMessageLength() == STUN_MESSAGE_LENGTH__BINDING_REQUEST
+                && !NetUtil.isLocalAddress(packet.dstAddress);
     }
 
-    private boolean isStunBindingResponse(StunPacket stunPacket) {
-        return stunPacket != null
-                && stunPacket.messageType == StunPacket.MessageType.BINDING_RESPONSE
-                && stunPacket.dstAddress.equals(localAddr)
-                && stunPacket.messageLength == 48
-                && !NetUtil.isLocalAddress(stunPacket.srcAddress);
+    private boolean isStunBindingResponse() {
+        return packet.stunMessageType() == RawUdpPacket.STUN_TYPE__BINDING_RESPONSE
+                && packet.dstAddress == localAddrValue
+                && packet.stunMessageLength() == STUN_MESSAGE_LENGTH__BINDING_RESPONSE
+                && !NetUtil.isLocalAddress(packet.srcAddress);
     }
 
-    private boolean isRequestToHost(PacketInfo packet) {
+    private boolean isRequestToHost() {
         return serverConnection != null
-                && packet.dstAddress.equals(serverConnection.getRemoteAddr())
-                && packet.dstPort == serverConnection.getRemotePort();
+                && packet.dstAddress == serverAddrValue
+                && packet.dstPort == serverPort;
     }
 
-    private boolean isResponseFromHost(PacketInfo packetInfo) {
+    private boolean isResponseFromHost() {
         return serverConnection != null
-                && packetInfo.srcAddress.equals(serverConnection.getRemoteAddr()) && packetInfo.srcPort == serverConnection.getRemotePort();
+                && packet.srcAddress == serverAddrValue && packet.srcPort == serverPort;
     }
 
 
     @Override
     public void stop() {
-        if (pcapHandle != null) {
-            log.info("Cleaning up sniffer...");
-            try {
-                pcapHandle.breakLoop();
-            } catch (NotOpenException e) {
-                log.error("Failed when attempting to stop sniffer.", e);
-            }
-        }
+        log.info("Cleaning up sniffer...");
+        packetSource.breakLoop();
     }
 
     public void close() {
-        connectionCleanerTimer.cancel();
+        if (connectionCleaner != null) {
+            connectionCleaner.cancel(false);
+        }
         stop();
-        pcapHandle.close();
-        log.info("Freed network interface handle.");
+        packetSource.close();
+        log.info("Freed packet source.");
     }
 
 
     private void startConnectionCleaner() {
-        connectionCleanerTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                long currentTime = System.currentTimeMillis();
-
-                if (serverConnection != null && currentTime > serverConnection.getLastSeen() + CONNECTION_TIMEOUT_MS) {
-                    log.debug("Detected match disconnection.");
-                    clearConnection();
-                }
-            }
-        }, 0, CLEANER_POLL_MS);
+        connectionCleaner = scheduler.scheduleAtFixedRate("connection-cleaner",
+                () -> clearConnectionIfTimedOut(System.currentTimeMillis()), 0, CLEANER_POLL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void clearConnectionIfTimedOut(long currentTime) {
+        if (serverConnection != null && currentTime > serverConnection.getLastSeen() + CONNECTION_TIMEOUT_MS) {
+            log.debug("Detected match disconnection.");
+            clearConnection();
+        }
     }
 
     private void clearConnection() {
@@ -357,7 +259,7 @@ public class P2pConnectionManager implements ConnectionManager {
 
         serverConnection = null;
         state = State.IDLE;
-        requestTimestampByTransactionId.clear();
+        clearPendingPings();
         setPacketFilter(PACKET_FILTER__SEARCH_CONNECTION);
     }
 
@@ -374,7 +276,7 @@ public class P2pConnectionManager implements ConnectionManager {
     private void setPacketFilter(String filterExpr, Object... args) {
         try {
             String filter = String.format(filterExpr, args);
-            pcapHandle.setFilter(filter, BpfProgram.BpfCompileMode.OPTIMIZE);
+            packetSource.setFilter(filter);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,49 @@
+package net.lobby_simulator_companion.loop.service;
+
+import org.pcap4j.core.RawPacketListener;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+import java.io.IOException;
+
+/**
+ * Where the connection managers get their packets from: a network interface, or a recorded capture.
+ *
+ * @author NickyRamone
+ */
+public interface PacketSource {
+
+    /**
+     * @return true if packets are delivered as they are captured; false if they were recorded before, in which case
+     * times must be measured using the timestamps of the packets instead of the wall clock.
+     */
+    boolean isLive();
+
+    DataLinkType getDataLinkType();
+
+    /**
+     * Delivers packets to the listener until there are no more packets (in which case it returns) or
+     * {@link #breakLoop()} is called (in which case, like pcap4j, it throws {@link InterruptedException}).
+     * Packets are delivered on the calling thread.
+     */
+    void loop(RawPacketListener listener) throws IOException, InterruptedException;
+
+    void breakLoop();
+
+    /**
+     * Only valid while a packet is being delivered.
+     *
+     * @return capture time of the packet being delivered, in epoch millis.
+     */
+    long getTimestamp();
+
+    /**
+     * Sources that cannot filter packets deliver all of them; the filter is only meant to reduce the number of
+     * packets to handle.
+     *
+     * @param filter Berkeley Packet Filter expression
+     */
+    void setFilter(String filter) throws IOException;
+
+    void close();
+
+}
@@ -0,0 +1,170 @@
+package net.lobby_simulator_companion.loop.service;
+
+import org.pcap4j.core.RawPacketListener;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packets recorded in a capture file in the classic pcap format (like the ones saved by Wireshark or tcpdump):
+ * https://wiki.wireshark.org/Development/LibpcapFileFormat
+ * <p>
+ * The file is read directly instead of through {@code Pcaps.openOffline()}, so that replaying captures does not need
+ * libpcap (or Npcap) to be installed. Packet filters are not supported: all packets are delivered.
+ * <p>
+ * Packets can be delivered with their original timing, or as fast as they can be read.
+ *
+ * @author NickyRamone
+ */
+public class PcapFilePacketSource implements PacketSource {
+
+    public enum Speed {ORIGINAL, MAX}
+
+    private static final int MAGIC__MICROS = 0xA1B2C3D4;
+    private static final int MAGIC__NANOS = 0xA1B23C4D;
+    private static final int GLOBAL_HEADER_LENGTH = 24;
+    private static final int RECORD_HEADER_LENGTH = 16;
+    private static final int LINK_TYPE__RAW = 101;
+
+    /**
+     * Largest packet accepted when the snapshot length of the capture is not valid (the default of tcpdump).
+     */
+    private static final int MAX_PACKET_LENGTH = 262144;
+
+    private final File file;
+    private final Speed speed;
+    private final ByteOrder byteOrder;
+    private final boolean nanosPrecision;
+    private final DataLinkType dataLinkType;
+    private final int maxPacketLength;
+    private volatile boolean stopped;
+    private long timestamp;
+
+
+    public PcapFilePacketSource(File file, Speed speed) throws IOException {
+        this.file = file;
+        this.speed = speed;
+
+        byte[] globalHeader = new byte[GLOBAL_HEADER_LENGTH];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(globalHeader);
+        } catch (EOFException e) {
+            throw new IOException("Not a pcap file: " + file, e);
+        }
+
+        ByteBuffer header = ByteBuffer.wrap(globalHeader);
+        int magic = header.getInt(0);
+        if (magic != MAGIC__MICROS && magic != MAGIC__NANOS) {
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            magic = header.getInt(0);
+        }
+        if (magic != MAGIC__MICROS && magic != MAGIC__NANOS) {
+            throw new IOException("Not a pcap file: " + file);
+        }
+
+        byteOrder = header.order();
+        nanosPrecision = magic == MAGIC__NANOS;
+        int snapshotLength = header.getInt(16);
+        maxPacketLength = snapshotLength > 0 && snapshotLength < MAX_PACKET_LENGTH ? snapshotLength : MAX_PACKET_LENGTH;
+        int linkType = header.getInt(20) & 0xFFFF;
+        dataLinkType = linkType == LINK_TYPE__RAW ? DataLinkType.RAW : DataLinkType.getInstance(linkType);
+    }
+
+
+    @Override
+    public boolean isLive() {
+        return false;
+    }
+
+    @Override
+    public DataLinkType getDataLinkType() {
+        return dataLinkType;
+    }
+
+    @Override
+    public void loop(RawPacketListener listener) throws IOException, InterruptedException {
+        stopped = false;
+        byte[] recordHeaderBytes = new byte[RECORD_HEADER_LENGTH];
+        ByteBuffer recordHeader = ByteBuffer.wrap(recordHeaderBytes).order(byteOrder);
+        long firstTimestamp = -1;
+        long replayStartNanos = System.nanoTime();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            in.readFully(new byte[GLOBAL_HEADER_LENGTH]);
+
+            while (!stopped) {
+                byte[] packet;
+                try {
+                    in.readFully(recordHeaderBytes);
+                    packet = new byte[readPacketLength(recordHeader)];
+                    in.readFully(packet);
+                } catch (EOFException e) {
+                    // end of the capture (the last packet can be incomplete if the capture was interrupted)
+                    break;
+                }
+
+                long seconds = recordHeader.getInt(0) & 0xFFFFFFFFL;
+                long fraction = recordHeader.getInt(4) & 0xFFFFFFFFL;
+                timestamp = seconds * 1000 + (nanosPrecision ? fraction / 1_000_000 : fraction / 1000);
+
+                if (firstTimestamp < 0) {
+                    firstTimestamp = timestamp;
+                }
+                if (speed == Speed.ORIGINAL) {
+                    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - replayStartNanos);
+                    long delayMillis = timestamp - firstTimestamp - elapsedMillis;
+                    if (delayMillis > 0) {
+                        Thread.sleep(delayMillis);
+                    }
+                }
+
+                listener.gotPacket(packet);
+            }
+        }
+
+        if (stopped) {
+            throw new InterruptedException("Replay of " + file + " stopped.");
+        }
+    }
+
+    /**
+     * The length is checked before allocating anything, since a corrupt capture could have any value in it.
+     */
+    private int readPacketLength(ByteBuffer recordHeader) throws IOException {
+        int length = recordHeader.getInt(8);
+        if (length < 0 || length > maxPacketLength) {
+            throw new IOException("Invalid packet length in " + file + ": " + (length & 0xFFFFFFFFL));
+        }
+
+        return length;
+    }
+
+    @Override
+    public void breakLoop() {
+        stopped = true;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void setFilter(String filter) {
+        // not supported
+    }
+
+    @Override
+    public void close() {
+        breakLoop();
+    }
+
+}
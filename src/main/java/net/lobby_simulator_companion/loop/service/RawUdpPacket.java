@@ -0,0 +1,169 @@
+package net.lobby_simulator_companion.loop.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+/**
+ * UDP over IPv4 packet, read by offset straight from the captured bytes instead of being decoded into objects.
+ * <p>
+ * A single instance is meant to be reused for every captured packet: {@link #parse(byte[])} overwrites all of its
+ * fields, so it must only be used from the capture thread, and any value needed after the next packet must be copied.
+ * Addresses are kept as ints (for example, 10.0.0.1 is 0x0A000001) and ports as unsigned values.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+final class RawUdpPacket {
+
+    public static final int STUN_TYPE__BINDING_REQUEST = 0x0001;
+    public static final int STUN_TYPE__BINDING_RESPONSE = 0x0101;
+
+    private static final int ETHERNET_HEADER_LENGTH = 14;
+    private static final int VLAN_TAG_LENGTH = 4;
+    private static final int LOOPBACK_HEADER_LENGTH = 4;
+    private static final int LINUX_SLL_HEADER_LENGTH = 16;
+    private static final int ETHER_TYPE__IPV4 = 0x0800;
+    private static final int ETHER_TYPE__VLAN = 0x8100;
+    private static final int IPV4_MIN_HEADER_LENGTH = 20;
+    private static final int IP_PROTOCOL__UDP = 17;
+    private static final int UDP_HEADER_LENGTH = 8;
+
+    private enum LinkType {ETHERNET, LOOPBACK, LINUX_SLL, RAW}
+
+    private final LinkType linkType;
+
+    private byte[] data;
+    int srcAddress;
+    int dstAddress;
+    int srcPort;
+    int dstPort;
+    int payloadOffset;
+    int payloadLength;
+
+
+    RawUdpPacket(DataLinkType dataLinkType) {
+        if (DataLinkType.EN10MB.equals(dataLinkType)) {
+            linkType = LinkType.ETHERNET;
+        } else if (DataLinkType.NULL.equals(dataLinkType)) {
+            linkType = LinkType.LOOPBACK;
+        } else if (DataLinkType.LINUX_SLL.equals(dataLinkType)) {
+            linkType = LinkType.LINUX_SLL;
+        } else if (DataLinkType.RAW.equals(dataLinkType)) {
+            linkType = LinkType.RAW;
+        } else {
+            log.warn("Unsupported data link type {}; assuming Ethernet.", dataLinkType);
+            linkType = LinkType.ETHERNET;
+        }
+    }
+
+
+    /**
+     * @return false if the packet is not a UDP over IPv4 packet (or the first fragment of one); in that case, the
+     * fields are left in an undefined state.
+     */
+    boolean parse(byte[] packet) {
+        data = packet;
+        int ipOffset = ipOffset(packet);
+        if (ipOffset < 0 || packet.length < ipOffset + IPV4_MIN_HEADER_LENGTH) {
+            return false;
+        }
+
+        int ipHeaderLength = (packet[ipOffset] & 0x0F) * 4;
+        boolean isFragment = (readShort(ipOffset + 6) & 0x1FFF) != 0;
+        if ((packet[ipOffset] & 0xF0) != 0x40
+                || ipHeaderLength < IPV4_MIN_HEADER_LENGTH
+                || packet[ipOffset + 9] != IP_PROTOCOL__UDP
+                || isFragment) {
+            return false;
+        }
+
+        int udpOffset = ipOffset + ipHeaderLength;
+        if (packet.length < udpOffset + UDP_HEADER_LENGTH) {
+            return false;
+        }
+
+        srcAddress = readInt(ipOffset + 12);
+        dstAddress = readInt(ipOffset + 16);
+        srcPort = readShort(udpOffset);
+        dstPort = readShort(udpOffset + 2);
+        payloadOffset = udpOffset + UDP_HEADER_LENGTH;
+
+        // the capture can be shorter than the datagram, and Ethernet frames can be padded
+        int capturedPayloadLength = packet.length - payloadOffset;
+        int udpPayloadLength = readShort(udpOffset + 4) - UDP_HEADER_LENGTH;
+        payloadLength = udpPayloadLength < 0 ? capturedPayloadLength : Math.min(udpPayloadLength, capturedPayloadLength);
+
+        return true;
+    }
+
+    private int ipOffset(byte[] packet) {
+        switch (linkType) {
+            case ETHERNET:
+                if (packet.length < ETHERNET_HEADER_LENGTH) {
+                    return -1;
+                }
+                int etherType = readShort(12);
+                int offset = ETHERNET_HEADER_LENGTH;
+                if (etherType == ETHER_TYPE__VLAN && packet.length >= ETHERNET_HEADER_LENGTH + VLAN_TAG_LENGTH) {
+                    etherType = readShort(16);
+                    offset += VLAN_TAG_LENGTH;
+                }
+                return etherType == ETHER_TYPE__IPV4 ? offset : -1;
+
+            case LINUX_SLL:
+                return packet.length >= LINUX_SLL_HEADER_LENGTH && readShort(14) == ETHER_TYPE__IPV4 ?
+                        LINUX_SLL_HEADER_LENGTH : -1;
+
+            case LOOPBACK:
+                return LOOPBACK_HEADER_LENGTH;
+
+            default:
+                return 0;
+        }
+    }
+
+
+    /**
+     * @return the unsigned byte at the given position of the UDP payload.
+     */
+    int payloadByte(int index) {
+        return data[payloadOffset + index] & 0xFF;
+    }
+
+    /**
+     * @return the STUN message type, or -1 if the payload is too short.
+     */
+    int stunMessageType() {
+        return payloadLength < 2 ? -1 : readShort(payloadOffset);
+    }
+
+    /**
+     * @return the STUN message length, or 0 if the payload is too short.
+     */
+    int stunMessageLength() {
+        return payloadLength < 4 ? 0 : readShort(payloadOffset + 2);
+    }
+
+    /**
+     * The transaction ID of STUN messages is longer than an int, so this is only its last 4 bytes, which is enough to
+     * match requests with their responses.
+     *
+     * @return the last 4 bytes of the STUN transaction ID, or 0 if the payload is too short.
+     */
+    int stunTransactionId() {
+        return payloadLength < 20 ? 0 : readInt(payloadOffset + 16);
+    }
+
+
+    private int readShort(int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    private int readInt(int offset) {
+        return ((data[offset] & 0xFF) << 24)
+                | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8)
+                | (data[offset + 3] & 0xFF);
+    }
+
+}
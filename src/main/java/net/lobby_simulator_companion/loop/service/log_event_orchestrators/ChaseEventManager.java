@@ -11,6 +11,7 @@ import net.lobby_simulator_companion.loop.service.DbdLogMonitor;
 import net.lobby_simulator_companion.loop.service.log_processing.DbdLogEvent;
 import net.lobby_simulator_companion.loop.service.log_processing.impl.dto.ChaseEvent;
 import net.lobby_simulator_companion.loop.service.log_processing.impl.dto.HitEvent;
+import net.lobby_simulator_companion.loop.util.EdtUpdateCoalescer;
 import net.lobby_simulator_companion.loop.util.event.EventListener;
 import net.lobby_simulator_companion.loop.util.event.SwingEventSupport;
 
@@ -20,12 +21,17 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import static javax.swing.SwingUtilities.invokeLater;
-
 /**
+ * Keeps track of the chases of the current match.
+ * <p>
+ * Chase events are handled on the EDT. Instead of posting every event to the EDT on its own, they are queued and
+ * handled together in the next UI frame, so a burst of chase events only takes one pass on the EDT.
+ *
  * @author NickyRamone
  */
 @Slf4j
@@ -70,13 +76,16 @@ public class ChaseEventManager {
 
     private final DbdLogMonitor dbdLogMonitor;
     private final SwingEventSupport eventSupport = new SwingEventSupport();
+    private final Queue<Runnable> pendingChaseEvents = new ConcurrentLinkedQueue<>();
+    private final EdtUpdateCoalescer.Slot chaseUpdate;
 
     private Map<ChaseKey, Chase> chases = new HashMap<>();
     private EnumSet<Survivor> duplicateCharacters = EnumSet.noneOf(Survivor.class);
 
 
-    public ChaseEventManager(DbdLogMonitor dbdLogMonitor) {
+    public ChaseEventManager(DbdLogMonitor dbdLogMonitor, EdtUpdateCoalescer edtUpdateCoalescer) {
         this.dbdLogMonitor = dbdLogMonitor;
+        this.chaseUpdate = edtUpdateCoalescer.newSlot();
         initListeners();
     }
 
@@ -85,14 +94,27 @@ public class ChaseEventManager {
         dbdLogMonitor.registerListener(DbdLogEvent.SERVER_CONNECT,
                 evt -> handleLobbyConnect());
         dbdLogMonitor.registerListener(DbdLogEvent.CHASE_START,
-                evt -> invokeLater(() -> handleChaseStart((ChaseEvent) evt.getValue())));
+                evt -> queueChaseEvent(() -> handleChaseStart((ChaseEvent) evt.getValue())));
         dbdLogMonitor.registerListener(DbdLogEvent.CHASE_END,
-                evt -> invokeLater(() -> handleChaseEnd((ChaseEvent) evt.getValue())));
+                evt -> queueChaseEvent(() -> handleChaseEnd((ChaseEvent) evt.getValue())));
         dbdLogMonitor.registerListener(DbdLogEvent.KILLER_HIT,
                 evt -> handleKillerHit((HitEvent) evt.getValue()));
     }
 
 
+    private void queueChaseEvent(Runnable chaseEventHandler) {
+        pendingChaseEvents.add(chaseEventHandler);
+        chaseUpdate.request(this::handlePendingChaseEvents);
+    }
+
+    private void handlePendingChaseEvents() {
+        Runnable chaseEventHandler;
+        while ((chaseEventHandler = pendingChaseEvents.poll()) != null) {
+            chaseEventHandler.run();
+        }
+    }
+
+
     private void handleLobbyConnect() {
         chases.clear();
     }
@@ -3,9 +3,7 @@ package net.lobby_simulator_companion.loop.service.log_processing;
 import lombok.experimental.UtilityClass;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.time.ZoneOffset;
 
 /**
  * @author NickyRamone
@@ -13,26 +11,115 @@ import java.util.regex.Pattern;
 @UtilityClass
 public class LogProcessorUtil {
 
-    private final String REGEX__TIMESTAMP = "^\\[([^\\[\\]]+)\\].+";
-    private final Pattern PATTERN__TIMESTAMP = Pattern.compile(REGEX__TIMESTAMP);
+    /**
+     * Returned by {@link #extractTimestampMillis(CharSequence)} when the line does not start with a timestamp.
+     */
+    public final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    /**
+     * Log lines start with a timestamp with the fixed layout: [yyyy.MM.dd-HH.mm.ss:SSS]
+     */
+    private final String TIMESTAMP_LAYOUT = "[0000.00.00-00.00.00:000]";
 
-    private final String DBD_LOG_DATE_FORMAT = "u.MM.dd-HH.mm.ss:SSS";
-    private final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(DBD_LOG_DATE_FORMAT);
+    private final int DAYS_0000_TO_1970 = 719468;
+    private final long MILLIS_PER_SECOND = 1000;
+    private final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    private final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
 
 
     /**
      * @return timestamp in UTC
      */
     public LocalDateTime extractTimestamp(String logLine) {
+        long millis = extractTimestampMillis(logLine);
+
+        if (millis == NO_TIMESTAMP) {
+            return null;
+        }
+
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, MILLIS_PER_SECOND),
+                (int) Math.floorMod(millis, MILLIS_PER_SECOND) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Reads the timestamp at the beginning of the line straight from its characters, without allocating anything.
+     *
+     * @return milliseconds since the epoch (the timestamp is in UTC), or {@link #NO_TIMESTAMP} if the line does not
+     * start with a valid timestamp.
+     */
+    public long extractTimestampMillis(CharSequence logLine) {
+        if (logLine.length() <= TIMESTAMP_LAYOUT.length() || !matchesLayout(logLine)) {
+            return NO_TIMESTAMP;
+        }
 
-        Matcher matcher = PATTERN__TIMESTAMP.matcher(logLine);
+        int year = readNumber(logLine, 1, 4);
+        int month = readNumber(logLine, 6, 2);
+        int day = readNumber(logLine, 9, 2);
+        int hour = readNumber(logLine, 12, 2);
+        int minute = readNumber(logLine, 15, 2);
+        int second = readNumber(logLine, 18, 2);
+        int millis = readNumber(logLine, 21, 3);
 
-        if (matcher.find()) {
-            String timestampString = matcher.group(1);
-            return LocalDateTime.parse(timestampString, DATE_TIME_FORMATTER);
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return NO_TIMESTAMP;
         }
 
-        return null;
+        return epochDay(year, month, day) * MILLIS_PER_DAY + hour * MILLIS_PER_HOUR + minute * MILLIS_PER_MINUTE
+                + second * MILLIS_PER_SECOND + millis;
+    }
+
+
+    private boolean matchesLayout(CharSequence logLine) {
+        for (int i = 0; i < TIMESTAMP_LAYOUT.length(); i++) {
+            char expected = TIMESTAMP_LAYOUT.charAt(i);
+            char c = logLine.charAt(i);
+
+            if (expected == '0' ? c < '0' || c > '9' : c != expected) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int readNumber(CharSequence text, int offset, int digits) {
+        int number = 0;
+        for (int i = offset; i < offset + digits; i++) {
+            number = 10 * number + (text.charAt(i) - '0');
+        }
+
+        return number;
+    }
+
+    private int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leapYear ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 in the proleptic Gregorian calendar.
+     * See: http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+     */
+    private long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097L + dayOfEra - DAYS_0000_TO_1970;
     }
 
 }
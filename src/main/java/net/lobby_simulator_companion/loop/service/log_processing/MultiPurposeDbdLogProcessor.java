@@ -3,40 +3,68 @@ package net.lobby_simulator_companion.loop.service.log_processing;
 import net.lobby_simulator_companion.loop.util.event.EventSupport;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.function.BiFunction;
+import java.util.Map;
 
+import static net.lobby_simulator_companion.loop.service.DbdLogMonitor.State;
 import static net.lobby_simulator_companion.loop.service.DbdLogMonitor.StateWrapper;
 
 /**
+ * Processor made of several line processors.
+ * Every line processor is registered against the states in which it applies, so that for a given line we only run
+ * the line processors that are valid for the current state (in the same order in which they were registered).
+ *
  * @author NickyRamone
  */
 public abstract class MultiPurposeDbdLogProcessor extends AbstractDbdLogProcessor {
 
-    private final List<BiFunction<String, StateWrapper, Boolean>> lineProcessors = new ArrayList<>();
+    @FunctionalInterface
+    protected interface LineProcessor {
+
+        /**
+         * @return true if the line was consumed, so that no other line processors analyze it.
+         */
+        boolean process(String logLine, StateWrapper stateWrapper);
+    }
+
+    private final Map<State, List<LineProcessor>> lineProcessorsByState = new EnumMap<>(State.class);
 
 
     public MultiPurposeDbdLogProcessor(EventSupport eventSupport) {
         super(eventSupport);
+
+        for (State state : State.values()) {
+            lineProcessorsByState.put(state, new ArrayList<>());
+        }
     }
 
     @Override
     public boolean process(String logLine, StateWrapper stateWrapper) {
-        boolean breakTheChain = false;
+        List<LineProcessor> lineProcessors = lineProcessorsByState.get(stateWrapper.state);
 
-        for (BiFunction<String, StateWrapper, Boolean> lineProcessor : lineProcessors) {
-            if (lineProcessor.apply(logLine, stateWrapper)) {
-                breakTheChain = true;
-                break;
+        for (int i = 0; i < lineProcessors.size(); i++) {
+            if (lineProcessors.get(i).process(logLine, stateWrapper)) {
+                return true;
             }
         }
 
-        return breakTheChain;
+        return false;
     }
 
 
-    protected void addLineProcessors(List<BiFunction<String, StateWrapper, Boolean>> lineProcessors) {
-        this.lineProcessors.addAll(lineProcessors);
+    /**
+     * @param states the states in which the line processor applies; if none is provided, it applies to all of them.
+     */
+    protected void addLineProcessor(LineProcessor lineProcessor, State... states) {
+        EnumSet<State> applicableStates = states.length == 0 ?
+                EnumSet.allOf(State.class) : EnumSet.copyOf(Arrays.asList(states));
+
+        for (State state : applicableStates) {
+            lineProcessorsByState.get(state).add(lineProcessor);
+        }
     }
 
 }
@@ -10,6 +10,8 @@ import net.lobby_simulator_companion.loop.util.event.EventSupport;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -29,17 +31,23 @@ public class ChaseLogProcessor extends MultiPurposeDbdLogProcessor {
     private static final String REGEX__KILLER_HIT = "On Hit Sprint Effect \\[BP_(.+?)_Character_C_(\\d+) - (.+?)\\]: On";
     private static final Pattern PATTERN__KILLER_HIT = Pattern.compile(REGEX__KILLER_HIT);
 
+    private static final List<String> ANCHORS = Arrays.asList("in chase", "On Hit Sprint Effect [BP_");
+
     public ChaseLogProcessor(EventSupport eventSupport) {
         super(eventSupport);
-        addLineProcessors(Arrays.asList(
-                this::checkForChaseStart,
-                this::checkForChaseEnd,
-                this::checkForKillerHit
-        ));
+        addLineProcessor(this::checkForChaseStart);
+        addLineProcessor(this::checkForChaseEnd);
+        addLineProcessor(this::checkForKillerHit);
+    }
+
+
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
     }
 
 
-    private Boolean checkForChaseStart(String logLine, StateWrapper stateWrapper) {
+    private boolean checkForChaseStart(String logLine, StateWrapper stateWrapper) {
         Matcher matcher = PATTERN__CHASE_START.matcher(logLine);
 
         if (matcher.find()) {
@@ -54,7 +62,7 @@ public class ChaseLogProcessor extends MultiPurposeDbdLogProcessor {
         return false;
     }
 
-    private Boolean checkForChaseEnd(String logLine, StateWrapper stateWrapper) {
+    private boolean checkForChaseEnd(String logLine, StateWrapper stateWrapper) {
         Matcher matcher = PATTERN__CHASE_END.matcher(logLine);
 
         if (matcher.find()) {
@@ -70,7 +78,7 @@ public class ChaseLogProcessor extends MultiPurposeDbdLogProcessor {
     }
 
 
-    private Boolean checkForKillerHit(String logLine, StateWrapper stateWrapper) {
+    private boolean checkForKillerHit(String logLine, StateWrapper stateWrapper) {
         Matcher matcher = PATTERN__KILLER_HIT.matcher(logLine);
 
         if (matcher.find()) {
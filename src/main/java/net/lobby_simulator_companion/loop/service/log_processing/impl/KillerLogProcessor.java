@@ -8,6 +8,9 @@ import net.lobby_simulator_companion.loop.service.log_processing.DbdLogEvent;
 import net.lobby_simulator_companion.loop.util.event.EventSupport;
 
 import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -30,6 +33,8 @@ public class KillerLogProcessor extends AbstractDbdLogProcessor {
     private static final String REGEX__KILLER_OUTFIT = "LogCustomization: --> ([a-zA-Z0-9]+)_[a-zA-Z0-9]+";
     private static final Pattern PATTERN__KILLER_OUTFIT = Pattern.compile(REGEX__KILLER_OUTFIT);
 
+    private static final List<String> ANCHORS = Arrays.asList("LogCustomization: --> ", "AddSessionPlayer");
+
     private static final Map<Killer, String[]> KILLER_TO_OUTFIT_MAPPING = Stream.of(new Object[][]{
             {Killer.CANNIBAL, new String[]{"CA"}},
             {Killer.CLOWN, new String[]{"GK", "Clown"}},
@@ -69,6 +74,11 @@ public class KillerLogProcessor extends AbstractDbdLogProcessor {
         registerListener(DbdLogEvent.SERVER_DISCONNECT, evt -> resetKiller());
     }
 
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
+    }
+
     @Override
     public boolean process(String logLine, StateWrapper stateWrapper) {
         if (checkForKiller(logLine)) {
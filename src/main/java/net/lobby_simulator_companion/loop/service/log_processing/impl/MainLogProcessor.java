@@ -7,6 +7,8 @@ import net.lobby_simulator_companion.loop.util.event.EventSupport;
 
 import java.net.InetSocketAddress;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,28 +35,46 @@ public class MainLogProcessor extends MultiPurposeDbdLogProcessor {
     private static final String REGEX__MATCH_END = "GameFlow: ADBDGameState::SetGameLevelEnded.+reason '([^']+)'";
     private static final Pattern PATTERN__MATCH_END = Pattern.compile(REGEX__MATCH_END);
 
+    private static final List<String> ANCHORS = Arrays.asList(
+            "UPendingNetGame::SendInitialJoin",
+            "/api/v1/queue]",
+            "[PartyContextComponent::UpdateReadyButtonStateInfo] Ready button updated : 1",
+            "/api/v1/queue/cancel]",
+            "[MirrorsSocialPresence::DestroyParty]",
+            "[PartyContextComponent::OnQuickmatchComplete] result : UnknownError",
+            "[UDBDGameInstance::RegisterDisconnectError]",
+            "GameFlow: ACollectable::BeginPlay",
+            "^^^ OnEnteringOnlineMultiplayer ^^^",
+            "player escaped = true",
+            "DBD_EscapeThroughHatch: 1",
+            "/api/v1/softWallet/put/analytics",
+            "GameFlow: ADBDGameState::SetGameLevelEnded",
+            "SetIsDisconnected from: false to: true",
+            "FOnlineAsyncTaskMirrorsDestroyMatch"
+    );
+
 
     public MainLogProcessor(EventSupport eventSupport) {
         super(eventSupport);
-        addLineProcessors(Arrays.asList(
-                this::checkForServerConnect,
-                this::checkForMatchWait,
-                this::checkForMatchWaitCancel,
-                this::checkForRealmEnter,
-                this::checkForMatchStart,
-                this::checkForSurvival,
-                this::checkForUserLeavingRealm,
-                this::checkForMatchEnd,
-                this::checkForServerDisconnect
-        ));
+        addLineProcessor(this::checkForServerConnect, State.SEARCHING_LOBBY);
+        addLineProcessor(this::checkForMatchWait, State.IDLE);
+        addLineProcessor(this::checkForMatchWaitCancel, State.SEARCHING_LOBBY, State.IN_LOBBY);
+        addLineProcessor(this::checkForRealmEnter, State.IN_LOBBY);
+        addLineProcessor(this::checkForMatchStart, State.IN_LOBBY);
+        addLineProcessor(this::checkForSurvival, State.IN_MATCH);
+        addLineProcessor(this::checkForUserLeavingRealm, State.IN_MATCH);
+        addLineProcessor(this::checkForMatchEnd, State.IN_POST_GAME_CHAT, State.IN_MATCH);
+        addLineProcessor(this::checkForServerDisconnect, State.IN_MATCH, State.IN_POST_GAME_CHAT, State.IN_LOBBY);
     }
 
 
-    private Boolean checkForServerConnect(String logLine, StateWrapper stateWrapper) {
-        if (stateWrapper.state != State.SEARCHING_LOBBY) {
-            return false;
-        }
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
+    }
 
+
+    private boolean checkForServerConnect(String logLine, StateWrapper stateWrapper) {
         Matcher matcher = PATTERN__SERVER_CONNECT.matcher(logLine);
         if (!matcher.find()) {
             return false;
@@ -69,11 +89,7 @@ public class MainLogProcessor extends MultiPurposeDbdLogProcessor {
     }
 
 
-    private Boolean checkForMatchWait(String logLine, StateWrapper stateWrapper) {
-        if (stateWrapper.state != State.IDLE) {
-            return false;
-        }
-
+    private boolean checkForMatchWait(String logLine, StateWrapper stateWrapper) {
         Matcher matcher = PATTERN__MATCH_WAIT.matcher(logLine);
         if (!matcher.find()) {
             return false;
@@ -85,11 +101,7 @@ public class MainLogProcessor extends MultiPurposeDbdLogProcessor {
         return true;
     }
 
-    private Boolean checkForMatchWaitCancel(String logLine, StateWrapper stateWrapper) {
-        if (stateWrapper.state != State.SEARCHING_LOBBY && stateWrapper.state != State.IN_LOBBY) {
-            return false;
-        }
-
+    private boolean checkForMatchWaitCancel(String logLine, StateWrapper stateWrapper) {
         Matcher matcher = PATTERN__MATCH_WAIT_CANCEL.matcher(logLine);
 
         if (matcher.find()
@@ -106,11 +118,7 @@ public class MainLogProcessor extends MultiPurposeDbdLogProcessor {
     }
 
 
-    private Boolean checkForRealmEnter(String logLine, StateWrapper stateWrapper) {
-        if (stateWrapper.state != State.IN_LOBBY) {
-            return false;
-        }
-
+    private boolean checkForRealmEnter(String logLine, StateWrapper stateWrapper) {
         if (logLine.contains("GameFlow: ACollectable::BeginPlay")) {
             fireEvent(DbdLogEvent.REALM_ENTER);
             return true;
@@ -118,11 +126,7 @@ public class MainLogProcessor extends MultiPurposeDbdLogProcessor {
         return false;
     }
 
-    private Boolean checkForMatchStart(String logLine, StateWrapper stateWrapper) {
-        if (stateWrapper.state != State.IN_LOBBY) {
-            return false;
-        }
-
+    private boolean checkForMatchStart(String logLine, StateWrapper stateWrapper) {
         if (logLine.contains("^^^ OnEnteringOnlineMultiplayer ^^^")) {
             stateWrapper.state = State.IN_MATCH;
             fireEvent(DbdLogEvent.MATCH_START, null);
@@ -131,10 +135,7 @@ public class MainLogProcessor extends MultiPurposeDbdLogProcessor {
         return false;
     }
 
-    private Boolean checkForSurvival(String logLine, StateWrapper stateWrapper) {
-        if (stateWrapper.state != State.IN_MATCH) {
-            return false;
-        }
+    private boolean checkForSurvival(String logLine, StateWrapper stateWrapper) {
         if (logLine.contains("player escaped = true") || logLine.contains("DBD_EscapeThroughHatch: 1")) {
             fireEvent(DbdLogEvent.SURVIVED);
             return true;
@@ -143,11 +144,7 @@ public class MainLogProcessor extends MultiPurposeDbdLogProcessor {
     }
 
 
-    private Boolean checkForUserLeavingRealm(String logLine, StateWrapper stateWrapper) {
-        if (stateWrapper.state != State.IN_MATCH) {
-            return false;
-        }
-
+    private boolean checkForUserLeavingRealm(String logLine, StateWrapper stateWrapper) {
         if (logLine.contains("/api/v1/softWallet/put/analytics")) {
             stateWrapper.state = State.IN_POST_GAME_CHAT;
             fireEvent(DbdLogEvent.USER_LEFT_REALM, null);
@@ -156,11 +153,7 @@ public class MainLogProcessor extends MultiPurposeDbdLogProcessor {
         return false;
     }
 
-    private Boolean checkForMatchEnd(String logLine, StateWrapper stateWrapper) {
-        if (stateWrapper.state != State.IN_POST_GAME_CHAT && stateWrapper.state != State.IN_MATCH) {
-            return false;
-        }
-
+    private boolean checkForMatchEnd(String logLine, StateWrapper stateWrapper) {
         Matcher matcher = PATTERN__MATCH_END.matcher(logLine);
         if (matcher.find()) {
             String reason = matcher.group(1);
@@ -176,11 +169,7 @@ public class MainLogProcessor extends MultiPurposeDbdLogProcessor {
         return false;
     }
 
-    private Boolean checkForServerDisconnect(String logLine, StateWrapper stateWrapper) {
-        if (stateWrapper.state != State.IN_MATCH && stateWrapper.state != State.IN_POST_GAME_CHAT && stateWrapper.state != State.IN_LOBBY) {
-            return false;
-        }
-
+    private boolean checkForServerDisconnect(String logLine, StateWrapper stateWrapper) {
         // the first check detects disconnection while the second detects leaving the post-game chat screen
         if (logLine.contains("SetIsDisconnected from: false to: true") ||
                 logLine.contains("FOnlineAsyncTaskMirrorsDestroyMatch")) {
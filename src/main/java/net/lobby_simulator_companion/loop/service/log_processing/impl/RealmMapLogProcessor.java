@@ -6,6 +6,8 @@ import net.lobby_simulator_companion.loop.service.log_processing.AbstractDbdLogP
 import net.lobby_simulator_companion.loop.service.log_processing.DbdLogEvent;
 import net.lobby_simulator_companion.loop.util.event.EventSupport;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Matcher;
@@ -24,6 +26,8 @@ public class RealmMapLogProcessor extends AbstractDbdLogProcessor {
 
     private static final String REGEX__MAP_GENERATION = "ProceduralLevelGeneration: InitLevel: Theme: .* Map: ([^\\s]+)";
     private static final Pattern PATTERN__MAP_GENERATION = Pattern.compile(REGEX__MAP_GENERATION);
+    private static final Collection<String> ANCHORS =
+            Collections.singletonList("ProceduralLevelGeneration: InitLevel: Theme: ");
     private static final Map<String, RealmMap> REALM_MAP_BY_ID = Stream.of(RealmMap.values())
             .collect(toMap(RealmMap::getId, identity()));
 
@@ -33,6 +37,11 @@ public class RealmMapLogProcessor extends AbstractDbdLogProcessor {
     }
 
 
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
+    }
+
     @Override
     public boolean process(String logLine, StateWrapper stateWrapper) {
         Matcher matcher = PATTERN__MAP_GENERATION.matcher(logLine);
@@ -13,6 +13,7 @@ import net.lobby_simulator_companion.loop.ui.common.ComponentUtils;
 import net.lobby_simulator_companion.loop.ui.common.NameValueInfoPanel;
 import net.lobby_simulator_companion.loop.ui.common.ResourceFactory;
 import net.lobby_simulator_companion.loop.ui.common.UiConstants;
+import net.lobby_simulator_companion.loop.util.EdtUpdateCoalescer;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.swing.*;
@@ -95,14 +96,16 @@ public abstract class AbstractAggregateStatsPanel<G extends Enum<G>, A extends A
     private G currentStatGroup;
 
 
-    AbstractAggregateStatsPanel(Settings settings, GameStateManager gameStateManager, Class<G> groupEnumClass, String settingsKey) {
+    AbstractAggregateStatsPanel(Settings settings, GameStateManager gameStateManager,
+                                EdtUpdateCoalescer edtUpdateCoalescer, Class<G> groupEnumClass, String settingsKey) {
         this.settings = settings;
 
         statGroups = groupEnumClass.getEnumConstants();
         currentStatGroup = settings.get(settingsKey, groupEnumClass, statGroups[0]);
 
         draw(settingsKey);
-        gameStateManager.registerListener(GameEvent.UPDATED_STATS, e -> refreshStatsOnScreen());
+        EdtUpdateCoalescer.Slot statsUpdate = edtUpdateCoalescer.newSlot();
+        gameStateManager.registerListener(GameEvent.UPDATED_STATS, e -> statsUpdate.request(this::refreshStatsOnScreen));
     }
 
 
@@ -15,6 +15,8 @@ import net.lobby_simulator_companion.loop.ui.common.NameValueInfoPanel;
 import net.lobby_simulator_companion.loop.ui.common.ResourceFactory;
 import net.lobby_simulator_companion.loop.ui.common.UiConstants;
 import net.lobby_simulator_companion.loop.ui.common.UiEventOrchestrator;
+import net.lobby_simulator_companion.loop.util.EdtUpdateCoalescer;
+import net.lobby_simulator_companion.loop.util.Scheduler;
 import net.lobby_simulator_companion.loop.util.TimeUtil;
 
 import javax.swing.*;
@@ -34,8 +36,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import static javax.swing.SwingUtilities.invokeLater;
 import static net.lobby_simulator_companion.loop.ui.common.ResourceFactory.Icon;
@@ -79,6 +81,7 @@ public class KillerPanel extends JPanel {
     private final LoopDataService dataService;
     private final GameStateManager gameStateManager;
     private final UiEventOrchestrator uiEventOrchestrator;
+    private final EdtUpdateCoalescer.Slot killerPlayerUpdate;
 
     private JLabel playerNameLabel;
     private JLabel playerSteamButton;
@@ -89,14 +92,18 @@ public class KillerPanel extends JPanel {
     private JLabel userNotesEditButton;
     private JTextArea userNotesArea;
 
-    private Timer userNotesUpdateTimer;
+    private final Scheduler scheduler;
+    private ScheduledFuture<?> userNotesUpdate;
 
 
     public KillerPanel(Settings settings, LoopDataService dataService, GameStateManager gameStateManager,
-                       UiEventOrchestrator uiEventOrchestrator) {
+                       UiEventOrchestrator uiEventOrchestrator, Scheduler scheduler,
+                       EdtUpdateCoalescer edtUpdateCoalescer) {
         this.dataService = dataService;
+        this.scheduler = scheduler;
         this.gameStateManager = gameStateManager;
         this.uiEventOrchestrator = uiEventOrchestrator;
+        this.killerPlayerUpdate = edtUpdateCoalescer.newSlot();
 
         draw(settings);
         initEventListeners();
@@ -104,9 +111,9 @@ public class KillerPanel extends JPanel {
 
     private void initEventListeners() {
         gameStateManager.registerListener(GameEvent.NEW_KILLER_PLAYER,
-                evt -> refreshKillerPlayerOnScreen());
+                evt -> killerPlayerUpdate.request(this::refreshKillerPlayerOnScreen));
         gameStateManager.registerListener(GameEvent.UPDATED_STATS,
-                evt -> refreshKillerPlayerOnScreen());
+                evt -> killerPlayerUpdate.request(this::refreshKillerPlayerOnScreen));
         uiEventOrchestrator.registerListener(UiEvent.UPDATE_KILLER_PLAYER,
                 evt -> refreshKillerPlayerOnScreen());
     }
@@ -228,26 +235,20 @@ public class KillerPanel extends JPanel {
 
 
     private void deferDescriptionUpdate() {
-        if (userNotesUpdateTimer == null) {
-            userNotesUpdateTimer = new Timer();
-            userNotesUpdateTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    invokeLater(() -> updatePlayerDescription());
-                }
-            }, DESCRIPTION_UPDATE_DELAY_MS);
+        if (userNotesUpdate == null) {
+            userNotesUpdate = scheduler.schedule("killer-notes-update", () -> invokeLater(this::updatePlayerDescription),
+                    DESCRIPTION_UPDATE_DELAY_MS, TimeUnit.MILLISECONDS);
         }
     }
 
     private void updatePlayerDescription() {
         gameStateManager.getKillerPlayer().ifPresent(killerPlayer -> {
-            String newNotes = userNotesArea.getText().trim();
-            newNotes = newNotes.isEmpty() ? null : newNotes;
-            userNotesUpdateTimer = null;
+            String notes = userNotesArea.getText().trim();
+            String newNotes = notes.isEmpty() ? null : notes;
+            userNotesUpdate = null;
 
             if (!Objects.equals(newNotes, killerPlayer.getDescription())) {
-                killerPlayer.setDescription(newNotes);
-                dataService.notifyChange();
+                dataService.updatePlayer(killerPlayer.getIpHash(), player -> player.setDescription(newNotes));
             }
         });
     }
@@ -360,7 +361,7 @@ public class KillerPanel extends JPanel {
         statsContainer.getRight(InfoType.DEATHS_BY).setText(String.valueOf(killerPlayer.getDeaths()));
 //        statsContainer.getRight(InfoType.TIME_PLAYED_AGAINST).setText(TimeUtil.formatTimeUpToYears(killerPlayer.getSecondsPlayed()));
 
-        refreshKillerPlayerRatingOnScreen();
+        refreshKillerPlayerRatingOnScreen(killerPlayer.getRating());
 
         userNotesEditButton.setVisible(true);
         if (killerPlayer.getDescription() == null) {
@@ -377,21 +378,18 @@ public class KillerPanel extends JPanel {
         uiEventOrchestrator.fireEvent(UiEvent.STRUCTURE_RESIZED);
     }
 
-    private void refreshKillerPlayerRatingOnScreen() {
-        gameStateManager.getKillerPlayer().ifPresent(killerPlayer -> {
-            Player.Rating peerRating = killerPlayer.getRating();
-            if (peerRating == Player.Rating.UNRATED) {
-                playerRateLabel.setIcon(ResourceFactory.getIcon(Icon.RATE));
-                playerRateLabel.setToolTipText("This player is unrated. Click to rate.");
-            } else if (peerRating == Player.Rating.THUMBS_DOWN) {
-                playerRateLabel.setIcon(ResourceFactory.getIcon(Icon.THUMBS_DOWN));
-                playerRateLabel.setToolTipText("This player is rated negative. Click to rate.");
-            } else if (peerRating == Player.Rating.THUMBS_UP) {
-                playerRateLabel.setIcon(ResourceFactory.getIcon(Icon.THUMBS_UP));
-                playerRateLabel.setToolTipText("This player is rated positive. Click to rate.");
-            }
-            playerRateLabel.setVisible(true);
-        });
+    private void refreshKillerPlayerRatingOnScreen(Player.Rating peerRating) {
+        if (peerRating == Player.Rating.UNRATED) {
+            playerRateLabel.setIcon(ResourceFactory.getIcon(Icon.RATE));
+            playerRateLabel.setToolTipText("This player is unrated. Click to rate.");
+        } else if (peerRating == Player.Rating.THUMBS_DOWN) {
+            playerRateLabel.setIcon(ResourceFactory.getIcon(Icon.THUMBS_DOWN));
+            playerRateLabel.setToolTipText("This player is rated negative. Click to rate.");
+        } else if (peerRating == Player.Rating.THUMBS_UP) {
+            playerRateLabel.setIcon(ResourceFactory.getIcon(Icon.THUMBS_UP));
+            playerRateLabel.setToolTipText("This player is rated positive. Click to rate.");
+        }
+        playerRateLabel.setVisible(true);
     }
 
     private void rateKiller() {
@@ -410,9 +408,8 @@ public class KillerPanel extends JPanel {
         } else {
             newRating = Player.Rating.UNRATED;
         }
-        player.setRating(newRating);
-        dataService.notifyChange();
-        refreshKillerPlayerRatingOnScreen();
+        dataService.updatePlayer(player.getIpHash(), p -> p.setRating(newRating));
+        refreshKillerPlayerRatingOnScreen(newRating);
         uiEventOrchestrator.fireEvent(UiEvent.UPDATE_KILLER_PLAYER_RATING, newRating);
     }
 
@@ -10,6 +10,7 @@ import net.lobby_simulator_companion.loop.service.GameEvent;
 import net.lobby_simulator_companion.loop.service.GameStateManager;
 import net.lobby_simulator_companion.loop.service.LoopDataService;
 import net.lobby_simulator_companion.loop.ui.common.*;
+import net.lobby_simulator_companion.loop.util.EdtUpdateCoalescer;
 import net.lobby_simulator_companion.loop.util.Stopwatch;
 import net.lobby_simulator_companion.loop.util.TimeUtil;
 import org.apache.commons.lang3.StringUtils;
@@ -83,6 +84,7 @@ public class MainWindow extends JFrame {
     private final MatchPanel matchPanel;
     private final StatsPanel statsPanel;
     private final SurvivalInputPanel survivalInputPanel;
+    private final EdtUpdateCoalescer.Slot titleBarMatchInputUpdate;
     private final Stopwatch genericStopwatch = new Stopwatch();
 
     private Timer queueTimer;
@@ -125,7 +127,7 @@ public class MainWindow extends JFrame {
     public MainWindow(Settings settings, AppProperties appProperties, LoopDataService loopDataService,
                       GameStateManager gameStateManager, UiEventOrchestrator uiEventOrchestrator,
                       ServerPanel serverPanel, MatchPanel matchPanel, KillerPanel killerPanel, StatsPanel statsPanel,
-                      SurvivalInputPanel survivalInputPanel) {
+                      SurvivalInputPanel survivalInputPanel, EdtUpdateCoalescer edtUpdateCoalescer) {
         this.settings = settings;
         this.appProperties = appProperties;
         this.dataService = loopDataService;
@@ -136,6 +138,7 @@ public class MainWindow extends JFrame {
         this.killerPanel = killerPanel;
         this.statsPanel = statsPanel;
         this.survivalInputPanel = survivalInputPanel;
+        this.titleBarMatchInputUpdate = edtUpdateCoalescer.newSlot();
 
         initTimers();
         draw();
@@ -172,7 +175,7 @@ public class MainWindow extends JFrame {
 //        gameStateManager.registerListener(GameEvent.MATCH_ENDED, evt -> handleMatchEnd((Match) evt.getValue()));
 //        gameStateManager.registerListener(GameEvent.NEW_KILLER_PLAYER, evt -> refreshKillerPlayerOnTitleBar((Player) evt.getValue()));
         gameStateManager.registerListener(GameEvent.MANUALLY_INPUT_MATCH_STATS, evt -> handleMatchManualInput((Match) evt.getValue()));
-        gameStateManager.registerListener(GameEvent.UPDATED_STATS, evt -> refreshMatchInputOnTitleBar(new Match()));
+        gameStateManager.registerListener(GameEvent.UPDATED_STATS, evt -> titleBarMatchInputUpdate.request(() -> refreshMatchInputOnTitleBar(new Match())));
         gameStateManager.registerListener(GameEvent.TIMER_START, evt -> handleTimerStart());
         gameStateManager.registerListener(GameEvent.TIMER_END, evt -> handleTimerEnd());
 
@@ -667,7 +670,7 @@ public class MainWindow extends JFrame {
     }
 
     private void handleMatchManualInput(Match match) {
-        refreshMatchInputOnTitleBar(match);
+        titleBarMatchInputUpdate.request(() -> refreshMatchInputOnTitleBar(match));
     }
 
     private void changeTitleBarColor(Color bgColor, Color fgColor) {
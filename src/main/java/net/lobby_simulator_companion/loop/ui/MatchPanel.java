@@ -13,6 +13,7 @@ import net.lobby_simulator_companion.loop.ui.common.NameValueInfoPanel;
 import net.lobby_simulator_companion.loop.ui.common.ResourceFactory;
 import net.lobby_simulator_companion.loop.ui.common.UiConstants;
 import net.lobby_simulator_companion.loop.ui.common.UiEventOrchestrator;
+import net.lobby_simulator_companion.loop.util.EdtUpdateCoalescer;
 import net.lobby_simulator_companion.loop.util.TimeUtil;
 
 import javax.swing.*;
@@ -66,15 +67,20 @@ public class MatchPanel extends JPanel {
 
     private final GameStateManager gameStateManager;
     private final UiEventOrchestrator uiEventOrchestrator;
+    private final EdtUpdateCoalescer.Slot matchInfoUpdate;
+    private final EdtUpdateCoalescer.Slot chaseSummaryUpdate;
 
     @Getter
     private NameValueInfoPanel matchInfoPanel;
     private JPanel detailsRunnersPanel;
     private NameValueInfoPanel runnerPodiumPanel;
 
-    public MatchPanel(Settings settings, GameStateManager gameStateManager, UiEventOrchestrator uiEventOrchestrator) {
+    public MatchPanel(Settings settings, GameStateManager gameStateManager, UiEventOrchestrator uiEventOrchestrator,
+                      EdtUpdateCoalescer edtUpdateCoalescer) {
         this.gameStateManager = gameStateManager;
         this.uiEventOrchestrator = uiEventOrchestrator;
+        this.matchInfoUpdate = edtUpdateCoalescer.newSlot();
+        this.chaseSummaryUpdate = edtUpdateCoalescer.newSlot();
 
         draw(settings);
         initListeners();
@@ -83,19 +89,20 @@ public class MatchPanel extends JPanel {
     private void initListeners() {
         gameStateManager.registerListener(GameEvent.CONNECTED_TO_LOBBY,
                 evt -> {
-                    refreshMatchInfoOnScreen();
-                    detailsRunnersPanel.setVisible(false);
+                    matchInfoUpdate.request(this::refreshMatchInfoOnScreen);
+                    chaseSummaryUpdate.request(() -> detailsRunnersPanel.setVisible(false));
                 });
         gameStateManager.registerListener(GameEvent.MATCH_STARTED,
-                evt -> refreshMatchInfoOnScreen());
+                evt -> matchInfoUpdate.request(this::refreshMatchInfoOnScreen));
         gameStateManager.registerListener(GameEvent.UPDATED_CHASE_SUMMARY,
-                evt -> refreshChaseSummaryOnScreen((List<ChaseInfo>) evt.getValue()));
+                evt -> chaseSummaryUpdate.request(
+                        () -> refreshChaseSummaryOnScreen((List<ChaseInfo>) evt.getValue())));
         gameStateManager.registerListener(GameEvent.MATCH_ENDED,
-                evt -> handleMatchEnd());
+                evt -> matchInfoUpdate.request(this::handleMatchEnd));
         gameStateManager.registerListener(GameEvent.MANUALLY_INPUT_MATCH_STATS,
-                evt -> refreshMatchInfoOnScreen((Match) evt.getValue()));
+                evt -> matchInfoUpdate.request(() -> refreshMatchInfoOnScreen((Match) evt.getValue())));
         gameStateManager.registerListener(GameEvent.UPDATED_STATS,
-                evt -> refreshMatchInfoOnScreen());
+                evt -> matchInfoUpdate.request(this::refreshMatchInfoOnScreen));
     }
 
     private void draw(Settings settings) {
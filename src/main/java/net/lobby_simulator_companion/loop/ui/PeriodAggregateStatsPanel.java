@@ -5,6 +5,7 @@ import net.lobby_simulator_companion.loop.domain.stats.Stats;
 import net.lobby_simulator_companion.loop.domain.stats.periodic.PeriodStats;
 import net.lobby_simulator_companion.loop.service.GameStateManager;
 import net.lobby_simulator_companion.loop.service.LoopDataService;
+import net.lobby_simulator_companion.loop.util.EdtUpdateCoalescer;
 
 import java.time.format.DateTimeFormatter;
 
@@ -20,8 +21,9 @@ public class PeriodAggregateStatsPanel extends AbstractAggregateStatsPanel<Perio
     private final LoopDataService dataService;
 
 
-    public PeriodAggregateStatsPanel(Settings settings, LoopDataService dataService, GameStateManager gameStateManager) {
-        super(settings, gameStateManager, Stats.Period.class, "ui.panel.stats.period");
+    public PeriodAggregateStatsPanel(Settings settings, LoopDataService dataService, GameStateManager gameStateManager,
+                                     EdtUpdateCoalescer edtUpdateCoalescer) {
+        super(settings, gameStateManager, edtUpdateCoalescer, Stats.Period.class, "ui.panel.stats.period");
         this.dataService = dataService;
         refreshStatsOnScreen();
     }
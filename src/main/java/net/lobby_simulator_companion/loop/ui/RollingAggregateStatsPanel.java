@@ -5,6 +5,7 @@ import net.lobby_simulator_companion.loop.domain.stats.AggregateStats;
 import net.lobby_simulator_companion.loop.domain.stats.Match;
 import net.lobby_simulator_companion.loop.service.GameStateManager;
 import net.lobby_simulator_companion.loop.service.LoopDataService;
+import net.lobby_simulator_companion.loop.util.EdtUpdateCoalescer;
 
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
@@ -21,8 +22,9 @@ public class RollingAggregateStatsPanel extends AbstractAggregateStatsPanel<Roll
     private final LoopDataService dataService;
 
 
-    public RollingAggregateStatsPanel(Settings settings, LoopDataService dataService, GameStateManager gameStateManager) {
-        super(settings, gameStateManager, RollingGroup.class, "ui.panel.stats.rollingGroup");
+    public RollingAggregateStatsPanel(Settings settings, LoopDataService dataService, GameStateManager gameStateManager,
+                                      EdtUpdateCoalescer edtUpdateCoalescer) {
+        super(settings, gameStateManager, edtUpdateCoalescer, RollingGroup.class, "ui.panel.stats.rollingGroup");
         this.dataService = dataService;
         refreshStatsOnScreen();
     }
@@ -11,6 +11,7 @@ import net.lobby_simulator_companion.loop.repository.ServerDao;
 import net.lobby_simulator_companion.loop.service.GameEvent;
 import net.lobby_simulator_companion.loop.service.GameStateManager;
 import net.lobby_simulator_companion.loop.ui.common.*;
+import net.lobby_simulator_companion.loop.util.SupersedingTaskRunner;
 
 import javax.swing.*;
 import java.awt.*;
@@ -21,6 +22,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 import static net.lobby_simulator_companion.loop.ui.common.ResourceFactory.Icon;
 import static net.lobby_simulator_companion.loop.ui.common.UiConstants.*;
@@ -55,6 +57,7 @@ public class ServerPanel extends JPanel {
     private final GameStateManager gameStateManager;
     private final UiEventOrchestrator uiEventOrchestrator;
     private final ServerDao serverDao;
+    private final SupersedingTaskRunner serverLookup;
 
     private JLabel summaryLabel;
     private JLabel geoLocationLabel;
@@ -64,12 +67,14 @@ public class ServerPanel extends JPanel {
 
 
     public ServerPanel(Settings settings, AppProperties appProperties, GameStateManager gameStateManager,
-                       UiEventOrchestrator uiEventOrchestrator, ServerDao serverDao) {
+                       UiEventOrchestrator uiEventOrchestrator, ServerDao serverDao,
+                       ExecutorService backgroundExecutor) {
         this.settings = settings;
         this.appProperties = appProperties;
         this.gameStateManager = gameStateManager;
         this.uiEventOrchestrator = uiEventOrchestrator;
         this.serverDao = serverDao;
+        this.serverLookup = new SupersedingTaskRunner("server lookup", backgroundExecutor, SwingUtilities::invokeLater);
 
         initEventListeners();
         draw();
@@ -80,7 +85,10 @@ public class ServerPanel extends JPanel {
         gameStateManager.registerListener(GameEvent.CONNECTED_TO_LOBBY,
                 evt -> updateServerConnection((Connection) evt.getValue()));
         gameStateManager.registerListener(GameEvent.DISCONNECTED,
-                evt -> refreshClear());
+                evt -> {
+                    serverLookup.cancel();
+                    refreshClear();
+                });
     }
 
     private void draw() {
@@ -158,19 +166,19 @@ public class ServerPanel extends JPanel {
         return container;
     }
 
+    /**
+     * The server of a new lobby supersedes the lookup for the previous one, if still in progress.
+     */
     private void updateServerConnection(Connection serverConnection) {
-        new Thread(() -> {
-            try {
-                Server newServerInfo = serverDao.getByIpAddress(serverConnection.getRemoteAddr().getHostAddress());
-                newServerInfo.setLatency(serverConnection.getLatency());
-                SwingUtilities.invokeLater(() -> {
-                    refreshServerOnScreen(newServerInfo);
-                    uiEventOrchestrator.fireEvent(UiEventOrchestrator.UiEvent.SERVER_INFO_UPDATED, newServerInfo);
-                });
-            } catch (IOException e) {
-                log.error("Failed to retrieve server information.", e);
-            }
-        }).start();
+        serverLookup.submit(() -> {
+            Server newServerInfo = serverDao.getByIpAddress(serverConnection.getRemoteAddr().getHostAddress());
+            newServerInfo.setLatency(serverConnection.getLatency());
+
+            return newServerInfo;
+        }, newServerInfo -> {
+            refreshServerOnScreen(newServerInfo);
+            uiEventOrchestrator.fireEvent(UiEventOrchestrator.UiEvent.SERVER_INFO_UPDATED, newServerInfo);
+        });
     }
 
     private void refreshServerOnScreen(Server server) {
@@ -7,6 +7,7 @@ import net.lobby_simulator_companion.loop.service.GameEvent;
 import net.lobby_simulator_companion.loop.service.GameStateManager;
 import net.lobby_simulator_companion.loop.service.LoopDataService;
 import net.lobby_simulator_companion.loop.ui.common.*;
+import net.lobby_simulator_companion.loop.util.EdtUpdateCoalescer;
 
 import javax.swing.*;
 import java.awt.*;
@@ -48,7 +49,8 @@ public class StatsPanel extends JPanel {
 
     public StatsPanel(Settings settings, LoopDataService dataService, GameStateManager gameStateManager,
                       UiEventOrchestrator uiEventOrchestrator,
-                      PeriodAggregateStatsPanel periodStatsPanel, RollingAggregateStatsPanel rollingStatsPanel) {
+                      PeriodAggregateStatsPanel periodStatsPanel, RollingAggregateStatsPanel rollingStatsPanel,
+                      EdtUpdateCoalescer edtUpdateCoalescer) {
         this.settings = settings;
         this.dataService = dataService;
         this.periodStatsPanel = periodStatsPanel;
@@ -64,8 +66,9 @@ public class StatsPanel extends JPanel {
                 uiEventOrchestrator.fireEvent(UiEvent.STRUCTURE_RESIZED));
         add(collapsablePanel);
 
+        EdtUpdateCoalescer.Slot statsUpdate = edtUpdateCoalescer.newSlot();
         gameStateManager.registerListener(GameEvent.UPDATED_STATS,
-                evt -> refreshStatsOnScreen());
+                evt -> statsUpdate.request(this::refreshStatsOnScreen));
     }
 
     private JPanel createTitleBar() {
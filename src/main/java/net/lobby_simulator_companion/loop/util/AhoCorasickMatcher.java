@@ -0,0 +1,130 @@
+package net.lobby_simulator_companion.loop.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds occurrences of multiple (ASCII) keywords in a text in a single pass, using an Aho-Corasick automaton:
+ * https://en.wikipedia.org/wiki/Aho%E2%80%93Corasick_algorithm
+ * <p>
+ * Every keyword is associated to a bit mask, and matching a text returns the union of the masks of all the keywords
+ * found in it. The automaton is fully expanded into a transition table, so matching costs one table lookup per
+ * character and does not allocate.
+ * <p>
+ * Immutable and thread-safe once built.
+ *
+ * @author NickyRamone
+ */
+public class AhoCorasickMatcher {
+
+    private static final int ALPHABET_SIZE = 128;
+    private static final int ROOT = 0;
+
+    private final int[][] transitions;
+    private final long[] outputs;
+
+
+    /**
+     * @param keywordMasks the mask to report for each keyword
+     */
+    public AhoCorasickMatcher(Map<String, Long> keywordMasks) {
+        List<int[]> trie = new ArrayList<>();
+        List<Long> trieOutputs = new ArrayList<>();
+        trie.add(newState());
+        trieOutputs.add(0L);
+
+        for (Map.Entry<String, Long> entry : keywordMasks.entrySet()) {
+            String keyword = entry.getKey();
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keywords cannot be empty.");
+            }
+
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (c >= ALPHABET_SIZE) {
+                    throw new IllegalArgumentException("Only ASCII keywords are supported: " + keyword);
+                }
+                if (trie.get(state)[c] < 0) {
+                    trie.get(state)[c] = trie.size();
+                    trie.add(newState());
+                    trieOutputs.add(0L);
+                }
+                state = trie.get(state)[c];
+            }
+            trieOutputs.set(state, trieOutputs.get(state) | entry.getValue());
+        }
+
+        transitions = trie.toArray(new int[0][]);
+        outputs = new long[trieOutputs.size()];
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = trieOutputs.get(i);
+        }
+
+        expandTransitions();
+    }
+
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET_SIZE];
+        Arrays.fill(state, -1);
+
+        return state;
+    }
+
+    /**
+     * Replaces missing transitions by the ones of the failure states (breadth-first, so that the failure state of
+     * every state is already expanded when we get to it), and propagates the outputs along the failure links.
+     */
+    private void expandTransitions() {
+        int[] failure = new int[transitions.length];
+        Queue<Integer> queue = new ArrayDeque<>();
+
+        for (int c = 0; c < ALPHABET_SIZE; c++) {
+            int next = transitions[ROOT][c];
+            if (next < 0) {
+                transitions[ROOT][c] = ROOT;
+            } else {
+                failure[next] = ROOT;
+                queue.add(next);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] |= outputs[failure[state]];
+
+            for (int c = 0; c < ALPHABET_SIZE; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[failure[state]][c];
+                } else {
+                    failure[next] = transitions[failure[state]][c];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * @return the union of the masks of all the keywords contained in the text; zero if none of them is found.
+     */
+    public long match(CharSequence text) {
+        int state = ROOT;
+        long found = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            state = c < ALPHABET_SIZE ? transitions[state][c] : ROOT;
+            found |= outputs[state];
+        }
+
+        return found;
+    }
+
+}
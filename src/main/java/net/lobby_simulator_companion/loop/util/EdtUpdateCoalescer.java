@@ -0,0 +1,96 @@
+package net.lobby_simulator_companion.loop.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies UI updates on the EDT once per frame, instead of once per event.
+ * <p>
+ * Every kind of update (for example, refreshing the stats of a panel) has its own {@link Slot}. Requesting an
+ * update replaces any update still pending in the same slot, since only the latest state needs to be shown. The
+ * first request of a frame schedules a single EDT pass, at the end of the frame, which applies the pending update
+ * of every slot. So a burst of events (like the ones fired when a match ends) makes each panel refresh only once.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class EdtUpdateCoalescer {
+
+    public static final int DEFAULT_FRAME_MS = 16;
+
+    /**
+     * A kind of update; at most one update of each kind is pending at any time.
+     */
+    public final class Slot {
+        private Runnable update;
+        private boolean pending;
+
+        private Slot() {
+        }
+
+        public void request(Runnable update) {
+            EdtUpdateCoalescer.this.request(this, update);
+        }
+    }
+
+    private final Object lock = new Object();
+    private final Timer timer;
+    private final List<Slot> pendingSlots = new ArrayList<>();
+    private boolean flushScheduled;
+
+
+    public EdtUpdateCoalescer() {
+        this(DEFAULT_FRAME_MS);
+    }
+
+    public EdtUpdateCoalescer(int frameMs) {
+        timer = new Timer(frameMs, e -> flush());
+        timer.setRepeats(false);
+    }
+
+
+    public Slot newSlot() {
+        return new Slot();
+    }
+
+
+    private void request(Slot slot, Runnable update) {
+        synchronized (lock) {
+            slot.update = update;
+            if (!slot.pending) {
+                slot.pending = true;
+                pendingSlots.add(slot);
+            }
+            if (!flushScheduled) {
+                flushScheduled = true;
+                timer.start();
+            }
+        }
+    }
+
+    private void flush() {
+        List<Runnable> updates;
+        synchronized (lock) {
+            updates = new ArrayList<>(pendingSlots.size());
+            for (Slot slot : pendingSlots) {
+                updates.add(slot.update);
+                slot.update = null;
+                slot.pending = false;
+            }
+            pendingSlots.clear();
+            flushScheduled = false;
+        }
+
+        for (Runnable update : updates) {
+            try {
+                update.run();
+            } catch (RuntimeException e) {
+                log.error("Failed to update the UI.", e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package net.lobby_simulator_companion.loop.util;
+
+/**
+ * Binary indexed tree (Fenwick tree) over a fixed number of int values.
+ * Both updating a value and summing a range of values take O(log n).
+ *
+ * @author NickyRamone
+ */
+public class FenwickTree {
+
+    private final int[] tree;
+
+
+    public FenwickTree(int size) {
+        tree = new int[size + 1];
+    }
+
+
+    public int size() {
+        return tree.length - 1;
+    }
+
+    public void add(int index, int delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return sum of the values in [0, toIndex)
+     */
+    public int sum(int toIndex) {
+        int result = 0;
+        for (int i = toIndex; i > 0; i -= i & -i) {
+            result += tree[i];
+        }
+
+        return result;
+    }
+
+    /**
+     * @return sum of the values in [fromIndex, toIndex)
+     */
+    public int sum(int fromIndex, int toIndex) {
+        return sum(toIndex) - sum(fromIndex);
+    }
+
+}
@@ -0,0 +1,218 @@
+package net.lobby_simulator_companion.loop.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Map keyed by 128-bit hashes (such as MD5 hashes, see {@link Md5}), given as two longs, which can be limited to a
+ * number of entries.
+ * <p>
+ * Keys are stored in primitive arrays with open addressing (linear probing), so neither lookups nor inserts
+ * allocate anything. Once the limit is reached, entries are evicted with the CLOCK algorithm (an approximation of
+ * LRU which only needs a "recently used" flag per entry). Pinned entries are never evicted.
+ * <p>
+ * Thread-safe.
+ *
+ * @author NickyRamone
+ */
+public class Hash128Cache<V> {
+
+    private static final int MIN_TABLE_SIZE = 16;
+    private static final int MAX_SWEEPS = 2;
+
+    private final int capacity;
+    private final Predicate<V> pinned;
+    private long[] highs;
+    private long[] lows;
+    private Object[] values;
+    private boolean[] used;
+    private int size;
+    private int clockHand;
+
+
+    /**
+     * An unlimited map.
+     */
+    public Hash128Cache() {
+        this(Integer.MAX_VALUE, v -> true);
+    }
+
+    /**
+     * @param capacity maximum number of entries (more are kept only if all of them are pinned).
+     * @param pinned   tells which values must not be evicted.
+     */
+    public Hash128Cache(int capacity, Predicate<V> pinned) {
+        this.capacity = capacity;
+        this.pinned = pinned;
+        allocate(capacity == Integer.MAX_VALUE ? MIN_TABLE_SIZE : tableSizeFor(capacity));
+    }
+
+
+    public synchronized int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized V get(long high, long low) {
+        int slot = findSlot(high, low);
+        if (slot < 0) {
+            return null;
+        }
+        used[slot] = true;
+
+        return (V) values[slot];
+    }
+
+    public synchronized void put(long high, long low, V value) {
+        int slot = findSlot(high, low);
+        if (slot >= 0) {
+            values[slot] = value;
+            used[slot] = true;
+            return;
+        }
+
+        if (size >= capacity) {
+            evict();
+        }
+        if (2 * (size + 1) > values.length) {
+            resize(2 * values.length);
+        }
+        slot = findFreeSlot(high, low);
+        highs[slot] = high;
+        lows[slot] = low;
+        values[slot] = value;
+        used[slot] = true;
+        size++;
+    }
+
+    /**
+     * @return the value already in the map for this key (which is kept), or the given value if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V putIfAbsent(long high, long low, V value) {
+        int slot = findSlot(high, low);
+        if (slot >= 0) {
+            used[slot] = true;
+            return (V) values[slot];
+        }
+        put(high, low, value);
+
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Evicts the first entry found which is neither pinned nor recently used, clearing the "recently used" flag of
+     * the entries passed by.
+     */
+    @SuppressWarnings("unchecked")
+    private void evict() {
+        for (int i = 0; i < MAX_SWEEPS * values.length; i++) {
+            int slot = clockHand;
+            clockHand = (clockHand + 1) & (values.length - 1);
+
+            if (values[slot] == null) {
+                continue;
+            }
+            if (used[slot]) {
+                used[slot] = false;
+            } else if (!pinned.test((V) values[slot])) {
+                remove(slot);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the entry at the slot, moving back the entries after it which would no longer be found otherwise
+     * (backward shift deletion), so that no tombstones are needed.
+     */
+    private void remove(int slot) {
+        int mask = values.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = hash(highs[next]) & mask;
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                highs[hole] = highs[next];
+                lows[hole] = lows[next];
+                values[hole] = values[next];
+                used[hole] = used[next];
+                hole = next;
+            }
+        }
+        values[hole] = null;
+        used[hole] = false;
+        size--;
+    }
+
+    private int findSlot(long high, long low) {
+        int mask = values.length - 1;
+        for (int slot = hash(high) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            if (highs[slot] == high && lows[slot] == low) {
+                return slot;
+            }
+        }
+
+        return -1;
+    }
+
+    private int findFreeSlot(long high, long low) {
+        int mask = values.length - 1;
+        int slot = hash(high) & mask;
+        while (values[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void resize(int tableSize) {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        Object[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(tableSize);
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = findFreeSlot(oldHighs[i], oldLows[i]);
+                highs[slot] = oldHighs[i];
+                lows[slot] = oldLows[i];
+                values[slot] = oldValues[i];
+                used[slot] = oldUsed[i];
+            }
+        }
+        clockHand = 0;
+    }
+
+    private void allocate(int tableSize) {
+        highs = new long[tableSize];
+        lows = new long[tableSize];
+        values = new Object[tableSize];
+        used = new boolean[tableSize];
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Math.max(MIN_TABLE_SIZE, Integer.highestOneBit(Math.max(1, 2 * capacity - 1)) << 1);
+    }
+
+    private static int hash(long high) {
+        // MD5 hashes are already evenly distributed
+        return (int) (high >>> 32);
+    }
+
+}
@@ -0,0 +1,122 @@
+package net.lobby_simulator_companion.loop.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * MD5 hashing without allocating anything per hash.
+ * <p>
+ * Digests are written to a per-thread buffer, and hashes are handled as two longs (the high and low 64 bits,
+ * big-endian). They only need to be converted to hex strings where they are stored.
+ *
+ * @author NickyRamone
+ */
+@UtilityClass
+public class Md5 {
+
+    public final int LENGTH = 16;
+    private final int HEX_LENGTH = 2 * LENGTH;
+    private final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(Md5::createDigest);
+    private final ThreadLocal<byte[]> DIGEST_BUFFER = ThreadLocal.withInitial(() -> new byte[LENGTH]);
+
+
+    /**
+     * @return the digest of the input, in a per-thread buffer which is overwritten by the next call made by the same
+     * thread.
+     */
+    public byte[] digest(byte[] input) {
+        MessageDigest digest = DIGEST.get();
+        byte[] result = DIGEST_BUFFER.get();
+        digest.update(input);
+        try {
+            digest.digest(result, 0, LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return result;
+    }
+
+    public long high(byte[] hash) {
+        return toLong(hash, 0);
+    }
+
+    public long low(byte[] hash) {
+        return toLong(hash, 8);
+    }
+
+    /**
+     * @return whether the string is an MD5 hash in (lowercase) hex.
+     */
+    public boolean isHex(CharSequence value) {
+        if (value == null || value.length() != HEX_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < HEX_LENGTH; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the high 64 bits of the value if it is an MD5 hash in hex; otherwise, those of the MD5 hash of it.
+     */
+    public long keyHigh(String value) {
+        return isHex(value) ? parseHex(value, 0) : high(digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return the low 64 bits of the value if it is an MD5 hash in hex; otherwise, those of the MD5 hash of it.
+     */
+    public long keyLow(String value) {
+        return isHex(value) ? parseHex(value, LENGTH) : low(digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public String toHex(long high, long low) {
+        char[] hex = new char[HEX_LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            hex[LENGTH - 1 - i] = HEX_DIGITS[(int) (high >>> (4 * i)) & 0xF];
+            hex[HEX_LENGTH - 1 - i] = HEX_DIGITS[(int) (low >>> (4 * i)) & 0xF];
+        }
+
+        return new String(hex);
+    }
+
+
+    private long parseHex(CharSequence hex, int start) {
+        long result = 0;
+        for (int i = start; i < start + LENGTH; i++) {
+            result = result << 4 | Character.digit(hex.charAt(i), 16);
+        }
+
+        return result;
+    }
+
+    private long toLong(byte[] bytes, int offset) {
+        long result = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            result = result << 8 | (bytes[i] & 0xFF);
+        }
+
+        return result;
+    }
+
+    private MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
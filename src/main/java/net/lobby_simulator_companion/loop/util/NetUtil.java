@@ -3,6 +3,7 @@ package net.lobby_simulator_companion.loop.util;
 import lombok.experimental.UtilityClass;
 
 import java.net.InetAddress;
+import java.net.UnknownHostException;
 
 @UtilityClass
 public class NetUtil {
@@ -25,6 +26,46 @@ public class NetUtil {
         return address.isLoopbackAddress();
     }
 
+    /**
+     * @param ipv4Address IPv4 address as an int (for example, 10.0.0.1 is 0x0A000001).
+     */
+    public boolean isLocalAddress(int ipv4Address) {
+        int firstByte = ipv4Address >>> 24;
+        int secondByte = (ipv4Address >>> 16) & 0xFF;
 
+        return firstByte == 10
+                || (firstByte == 172 && secondByte >= 16 && secondByte <= 31)
+                || (firstByte == 192 && secondByte == 168)
+                || firstByte == 127;
+    }
+
+    /**
+     * @return the IPv4 address as an int (for example, 10.0.0.1 is 0x0A000001), or 0 (0.0.0.0) if it is not an
+     * IPv4 address.
+     */
+    public int toInt(InetAddress address) {
+        byte[] ipAddress = address.getAddress();
+        if (ipAddress.length != 4) {
+            return 0;
+        }
+
+        return ((ipAddress[0] & 0xFF) << 24)
+                | ((ipAddress[1] & 0xFF) << 16)
+                | ((ipAddress[2] & 0xFF) << 8)
+                | (ipAddress[3] & 0xFF);
+    }
+
+    public InetAddress toInetAddress(int ipv4Address) {
+        byte[] ipAddress = {
+                (byte) (ipv4Address >>> 24), (byte) (ipv4Address >>> 16), (byte) (ipv4Address >>> 8), (byte) ipv4Address
+        };
+
+        try {
+            return InetAddress.getByAddress(ipAddress);
+        } catch (UnknownHostException e) {
+            // cannot happen: the address always has a valid length
+            throw new IllegalStateException(e);
+        }
+    }
 
 }
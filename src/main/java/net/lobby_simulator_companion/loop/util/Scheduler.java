@@ -0,0 +1,87 @@
+package net.lobby_simulator_companion.loop.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the delayed and periodic tasks of the whole app, on a few shared daemon threads (so they never keep the
+ * JVM from exiting).
+ * <p>
+ * Every task has a name, which is used to log it when it fails or takes too long. A failing periodic task is
+ * logged and keeps being run, instead of being silently cancelled.
+ * <p>
+ * Tasks are expected to be short; anything slow (like writing files) should be handed over to another thread.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class Scheduler {
+
+    private static final int DEFAULT_THREADS = 1;
+    private static final long SLOW_TASK_MS = 500;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+
+    public Scheduler() {
+        this(DEFAULT_THREADS);
+    }
+
+    public Scheduler(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread thread = new Thread(r, "scheduler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+
+    public ScheduledFuture<?> schedule(String name, Runnable task, long delay, TimeUnit unit) {
+        return executor.schedule(instrument(name, task), delay, unit);
+    }
+
+    /**
+     * Schedules the task at a local date-time; if it has already passed, the task is run as soon as possible.
+     */
+    public ScheduledFuture<?> scheduleAt(String name, LocalDateTime time, Runnable task) {
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), time).toMillis());
+
+        return schedule(name, task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public ScheduledFuture<?> scheduleAtFixedRate(String name, Runnable task, long initialDelay, long period,
+                                                  TimeUnit unit) {
+        return executor.scheduleAtFixedRate(instrument(name, task), initialDelay, period, unit);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+
+    private Runnable instrument(String name, Runnable task) {
+        return () -> {
+            long startTime = System.nanoTime();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Scheduled task '{}' failed.", name, e);
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            if (elapsedMs >= SLOW_TASK_MS) {
+                log.warn("Scheduled task '{}' took {} ms.", name, elapsedMs);
+            } else {
+                log.trace("Scheduled task '{}' took {} ms.", name, elapsedMs);
+            }
+        };
+    }
+
+}
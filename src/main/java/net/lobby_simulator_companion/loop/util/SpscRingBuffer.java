@@ -0,0 +1,178 @@
+package net.lobby_simulator_companion.loop.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue for handing over elements from exactly one producer thread to exactly one consumer thread, without
+ * locks.
+ * <p>
+ * A thread which has to wait (the consumer, for elements; the producer, for free space) first spins and yields for
+ * a little while, since in bursts the other side usually catches up right away, and only then parks until it is
+ * woken up by the other side, so an idle buffer costs no CPU at all. Consumers take elements in batches, so that a
+ * burst is drained without waiting in between.
+ * <p>
+ * An element only leaves the buffer once the consumer has finished with it, so an empty buffer means that every
+ * element put so far has been fully consumed.
+ * <p>
+ * The current number of elements and the highest number of elements there have been are available for monitoring.
+ *
+ * @author NickyRamone
+ */
+public class SpscRingBuffer<E> {
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 10;
+
+    private final Object[] elements;
+    private final int mask;
+
+    /**
+     * Position of the next element to take (only written by the consumer).
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Position of the next element to put (only written by the producer).
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile Thread waitingConsumer;
+    private volatile Thread waitingProducer;
+    private volatile int highWaterMark;
+
+
+    /**
+     * @param capacity maximum number of elements; it is rounded up to a power of 2.
+     */
+    public SpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        elements = new Object[size];
+        mask = size - 1;
+    }
+
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return the highest number of elements the buffer has held.
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+
+    /**
+     * Producer only.
+     *
+     * @return false if the buffer is full.
+     */
+    public boolean offer(E element) {
+        long currentTail = tail.get();
+        int size = (int) (currentTail - head.get());
+        if (size == elements.length) {
+            return false;
+        }
+        elements[(int) currentTail & mask] = element;
+        tail.set(currentTail + 1);
+
+        if (size + 1 > highWaterMark) {
+            highWaterMark = size + 1;
+        }
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+
+        return true;
+    }
+
+    /**
+     * Producer only. Waits until there is space for the element.
+     */
+    public void put(E element) throws InterruptedException {
+        for (int attempt = 0; !offer(element); attempt++) {
+            if (attempt >= SPINS + YIELDS) {
+                // the consumer checks for a waiting producer after freeing space, so either we see the space here or
+                // it sees us and wakes us up
+                waitingProducer = Thread.currentThread();
+                if (size() == elements.length) {
+                    LockSupport.park(this);
+                }
+                waitingProducer = null;
+            } else if (attempt >= SPINS) {
+                Thread.yield();
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Consumer only. Takes up to the given number of elements, in order. Every element is removed from the buffer
+     * once the given consumer returns.
+     *
+     * @return the number of elements taken.
+     */
+    public int drain(Consumer<? super E> consumer, int maxElements) {
+        long currentHead = head.get();
+        int count = (int) Math.min(maxElements, tail.get() - currentHead);
+
+        for (int i = 0; i < count; i++) {
+            int index = (int) (currentHead + i) & mask;
+            @SuppressWarnings("unchecked")
+            E element = (E) elements[index];
+            try {
+                consumer.accept(element);
+            } finally {
+                elements[index] = null;
+                head.set(currentHead + i + 1);
+                Thread producer = waitingProducer;
+                if (producer != null) {
+                    LockSupport.unpark(producer);
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Consumer only. Waits until there are elements, and then takes up to the given number of them.
+     *
+     * @return the number of elements taken.
+     */
+    public int drainWhenAvailable(Consumer<? super E> consumer, int maxElements) throws InterruptedException {
+        for (int attempt = 0; isEmpty(); attempt++) {
+            if (attempt >= SPINS + YIELDS) {
+                // the producer checks for a waiting consumer after adding an element, so either we see the element
+                // here or it sees us and wakes us up
+                waitingConsumer = Thread.currentThread();
+                if (isEmpty()) {
+                    LockSupport.park(this);
+                }
+                waitingConsumer = null;
+            } else if (attempt >= SPINS) {
+                Thread.yield();
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        return drain(consumer, maxElements);
+    }
+
+}
@@ -1,41 +1,64 @@
 package net.lobby_simulator_companion.loop.util;
 
-import org.apache.commons.lang3.time.StopWatch;
-
-import java.util.concurrent.TimeUnit;
+import java.time.Clock;
 
 /**
- * Simplified @{@link StopWatch}. Just a wrapper around it to avoid having to deal with states.
+ * Simple stopwatch that can be stopped and started again, accumulating the time while running.
  * Guaranteed to avoid exceptions related to the state of the stopwatch.
+ * <p>
+ * Time is measured with a {@link Clock}, so that it can be driven by something other than the wall clock
+ * (for example, the timestamps of a log being replayed).
  *
  * @author NickyRamone
  */
 public class Stopwatch {
 
-    private final StopWatch delegate = new StopWatch();
+    private final Clock clock;
+    private long accumulatedMillis;
+    private long startMillis;
+    private boolean running;
 
 
-    public void start() {
+    public Stopwatch() {
+        this(Clock.systemUTC());
+    }
 
-        if (delegate.isSuspended()) {
-            delegate.resume();
-        } else if (delegate.isStopped()) {
-            delegate.start();
+    public Stopwatch(Clock clock) {
+        this.clock = clock;
+    }
+
+
+    public void start() {
+        if (running) {
+            return;
         }
+        startMillis = clock.millis();
+        running = true;
     }
 
     public void stop() {
-        if (delegate.isStopped() || delegate.isSuspended()) {
+        if (!running) {
             return;
         }
-        delegate.suspend();
+        accumulatedMillis += elapsedSinceStart();
+        running = false;
     }
 
     public void reset() {
-        delegate.reset();
+        accumulatedMillis = 0;
+        running = false;
     }
 
     public int getSeconds() {
-        return (int) delegate.getTime(TimeUnit.SECONDS);
+        long millis = running ? accumulatedMillis + elapsedSinceStart() : accumulatedMillis;
+
+        return (int) (millis / 1000);
+    }
+
+
+    private long elapsedSinceStart() {
+        // a clock going backwards should not make us lose the time accumulated so far
+        return Math.max(0, clock.millis() - startMillis);
     }
+
 }
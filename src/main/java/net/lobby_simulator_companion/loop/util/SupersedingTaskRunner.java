@@ -0,0 +1,113 @@
+package net.lobby_simulator_companion.loop.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs background tasks of which only the latest one matters (for example, looking up the server of the current
+ * lobby): submitting a task supersedes the previous one. A superseded task is cancelled if it has not started yet;
+ * otherwise, it is left to finish (so that it is not interrupted in the middle of some I/O), but its result is
+ * discarded.
+ * <p>
+ * Results are handed over with a given executor (usually, the Swing event dispatch thread), and only if their task
+ * is still the latest one by then.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class SupersedingTaskRunner {
+
+    private final String name;
+    private final ExecutorService executor;
+    private final Executor resultExecutor;
+    private final AtomicInteger generation = new AtomicInteger();
+    private Future<?> currentTask;
+
+
+    /**
+     * @param name           used for logging.
+     * @param executor       runs the tasks; it can be shared by several runners.
+     * @param resultExecutor runs the result consumers.
+     */
+    public SupersedingTaskRunner(String name, ExecutorService executor, Executor resultExecutor) {
+        this.name = name;
+        this.executor = executor;
+        this.resultExecutor = resultExecutor;
+    }
+
+
+    /**
+     * Creates an executor for background tasks with a fixed number of daemon threads and a bounded queue (tasks
+     * submitted when the queue is full are rejected).
+     */
+    public static ExecutorService newBoundedExecutor(String threadNamePrefix, int threads, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, threadNamePrefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+
+    public synchronized <T> void submit(Callable<T> task, Consumer<T> resultConsumer) {
+        int taskGeneration = generation.incrementAndGet();
+        cancelCurrentTask();
+
+        try {
+            currentTask = executor.submit(() -> {
+                T result;
+                try {
+                    result = task.call();
+                } catch (Exception e) {
+                    log.error("Background task '{}' failed.", name, e);
+                    return;
+                }
+                resultExecutor.execute(() -> {
+                    if (generation.get() == taskGeneration) {
+                        resultConsumer.accept(result);
+                    } else {
+                        log.debug("Discarded result of superseded task '{}'.", name);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Background task '{}' was rejected; too many tasks are pending.", name);
+        }
+    }
+
+    /**
+     * Supersedes the current task without submitting a new one.
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        cancelCurrentTask();
+    }
+
+
+    private void cancelCurrentTask() {
+        if (currentTask != null) {
+            currentTask.cancel(false);
+            if (executor instanceof ThreadPoolExecutor) {
+                // frees its place in the queue right away
+                ((ThreadPoolExecutor) executor).remove((Runnable) currentTask);
+            }
+            currentTask = null;
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package net.lobby_simulator_companion.loop.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Clock that only moves when told to.
+ * Useful for measuring times based on the timestamps of events that already took place, instead of the wall clock.
+ * <p>
+ * The clock never goes backwards: attempting to set it to a time before the current one has no effect.
+ *
+ * @author NickyRamone
+ */
+public class VirtualClock extends Clock {
+
+    private final ZoneId zone;
+    private volatile long epochMillis;
+
+
+    public VirtualClock() {
+        this(Instant.EPOCH, ZoneId.systemDefault());
+    }
+
+    public VirtualClock(Instant instant, ZoneId zone) {
+        this.epochMillis = instant.toEpochMilli();
+        this.zone = zone;
+    }
+
+
+    public void advanceTo(long newEpochMillis) {
+        if (newEpochMillis > epochMillis) {
+            epochMillis = newEpochMillis;
+        }
+    }
+
+    public void advanceTo(Instant newInstant) {
+        advanceTo(newInstant.toEpochMilli());
+    }
+
+    /**
+     * @param utcDateTime date-time in UTC (like the timestamps in the DBD log)
+     */
+    public void advanceTo(LocalDateTime utcDateTime) {
+        advanceTo(utcDateTime.toInstant(ZoneOffset.UTC));
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new VirtualClock(instant(), zone);
+    }
+
+    @Override
+    public long millis() {
+        return epochMillis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(epochMillis);
+    }
+
+}
@@ -1,35 +1,48 @@
 package net.lobby_simulator_companion.loop.util.event;
 
-import java.beans.PropertyChangeSupport;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Delivers events to the listeners registered for their type (or for all types), on the thread which fires them.
+ * <p>
+ * Event types are usually enum constants, and the listeners for them are found by ordinal, so firing an event
+ * neither locks nor looks anything up by name. Listeners are kept in arrays which are copied when a listener is
+ * registered (which only happens at startup), so firing an event never needs to copy them. Events without a value
+ * are created once per type, so firing them does not allocate anything.
+ * <p>
+ * Types are identified by name (as returned by <code>toString()</code>), which is also the type of the delivered
+ * events: firing a type is the same as firing its name, and types with the same name are the same type.
+ *
  * @author NickyRamone
  */
 public class EventSupport {
 
-    protected final PropertyChangeSupport propertyChangeSupport;
+    private static final EventListener[] NO_LISTENERS = new EventListener[0];
 
-    protected static final Object NULL_OBJECT = new Object();
+    private final Object lock = new Object();
+    private volatile EventListener[] globalListeners = NO_LISTENERS;
+    private final Map<String, Channel> channelsByName = new ConcurrentHashMap<>();
 
-
-    public EventSupport() {
-        this.propertyChangeSupport = new PropertyChangeSupport(NULL_OBJECT);
-    }
-
-    protected EventSupport(PropertyChangeSupport propertyChangeSupport) {
-        this.propertyChangeSupport = propertyChangeSupport;
-    }
+    /**
+     * Channels of the constants of the first enum used as event type (in practice, the only one), by ordinal.
+     */
+    private volatile Class<?> indexedType;
+    private volatile Channel[] indexedChannels;
 
 
     public void registerListener(EventListener eventListener) {
-        propertyChangeSupport.addPropertyChangeListener(
-                evt -> eventListener.eventFired(new Event(evt.getPropertyName(), evt.getNewValue())));
+        synchronized (lock) {
+            globalListeners = append(globalListeners, eventListener);
+        }
     }
 
     public void registerListener(Object eventType, EventListener eventListener) {
-
-        propertyChangeSupport.addPropertyChangeListener(eventType.toString(),
-                evt -> eventListener.eventFired(new Event(evt.getPropertyName(), evt.getNewValue())));
+        synchronized (lock) {
+            Channel channel = getChannel(eventType);
+            channel.listeners = append(channel.listeners, eventListener);
+        }
     }
 
 
@@ -38,7 +51,70 @@ public class EventSupport {
     }
 
     public void fireEvent(Object eventType, Object eventValue) {
-        propertyChangeSupport.firePropertyChange(eventType.toString(), null, eventValue);
+        Channel channel = getChannel(eventType);
+        Event event = eventValue == null ? channel.nullValueEvent : new Event(channel.name, eventValue);
+
+        for (EventListener listener : globalListeners) {
+            listener.eventFired(event);
+        }
+        for (EventListener listener : channel.listeners) {
+            listener.eventFired(event);
+        }
+    }
+
+
+    private Channel getChannel(Object eventType) {
+        if (eventType instanceof Enum) {
+            Enum<?> enumType = (Enum<?>) eventType;
+            Channel[] channels = indexedChannels;
+            if (channels != null && enumType.getDeclaringClass() == indexedType) {
+                Channel channel = channels[enumType.ordinal()];
+                if (channel != null) {
+                    return channel;
+                }
+            }
+        }
+
+        return createChannel(eventType);
+    }
+
+    private Channel createChannel(Object eventType) {
+        synchronized (lock) {
+            Channel channel = channelsByName.computeIfAbsent(eventType.toString(), Channel::new);
+
+            if (eventType instanceof Enum) {
+                Enum<?> enumType = (Enum<?>) eventType;
+                Class<?> enumClass = enumType.getDeclaringClass();
+                if (indexedType == null) {
+                    indexedType = enumClass;
+                    indexedChannels = new Channel[enumClass.getEnumConstants().length];
+                }
+                if (enumClass == indexedType) {
+                    indexedChannels[enumType.ordinal()] = channel;
+                }
+            }
+
+            return channel;
+        }
+    }
+
+    private static EventListener[] append(EventListener[] listeners, EventListener listener) {
+        EventListener[] result = Arrays.copyOf(listeners, listeners.length + 1);
+        result[listeners.length] = listener;
+
+        return result;
+    }
+
+
+    private static final class Channel {
+        final String name;
+        final Event nullValueEvent;
+        volatile EventListener[] listeners = NO_LISTENERS;
+
+        Channel(String name) {
+            this.name = name;
+            this.nullValueEvent = new Event(name, null);
+        }
     }
 
 }
@@ -0,0 +1,98 @@
+package net.lobby_simulator_companion.loop.util.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.lobby_simulator_companion.loop.util.SpscRingBuffer;
+
+/**
+ * Event support which delivers events on its own thread, so that firing an event never waits for the listeners.
+ * Events are queued in a bounded buffer; if it is full, firing an event waits until there is space.
+ * <p>
+ * Events must always be fired from the same thread (the queue has a single producer). Events without a value are
+ * queued as their type, so queuing them does not allocate anything.
+ *
+ * @author NickyRamone
+ */
+@Slf4j
+public class QueuedEventSupport extends EventSupport {
+
+    private static final int BATCH_SIZE = 64;
+
+    @RequiredArgsConstructor
+    private static final class QueuedEvent {
+        final Object type;
+        final Object value;
+    }
+
+    private final SpscRingBuffer<Object> queue;
+    private final Thread dispatcher;
+    private volatile Thread producer;
+
+
+    public QueuedEventSupport(String threadName, int capacity) {
+        queue = new SpscRingBuffer<>(capacity);
+        dispatcher = new Thread(this::dispatch, threadName);
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+
+    @Override
+    public void fireEvent(Object eventType, Object eventValue) {
+        checkProducer();
+        try {
+            queue.put(eventValue == null ? eventType : new QueuedEvent(eventType, eventValue));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while queuing event {}; it was dropped.", eventType);
+        }
+    }
+
+    /**
+     * @return the number of events waiting to be delivered.
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return the highest number of events there have been waiting to be delivered.
+     */
+    public int getMaxQueueSize() {
+        return queue.getHighWaterMark();
+    }
+
+
+    private void checkProducer() {
+        Thread currentThread = Thread.currentThread();
+        if (producer == null) {
+            producer = currentThread;
+        } else if (producer != currentThread) {
+            throw new IllegalStateException("Events must be fired from a single thread (" + producer.getName() + ").");
+        }
+    }
+
+    private void dispatch() {
+        while (true) {
+            try {
+                queue.drainWhenAvailable(this::deliver, BATCH_SIZE);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void deliver(Object queuedEvent) {
+        try {
+            if (queuedEvent instanceof QueuedEvent) {
+                QueuedEvent event = (QueuedEvent) queuedEvent;
+                super.fireEvent(event.type, event.value);
+            } else {
+                super.fireEvent(queuedEvent, null);
+            }
+        } catch (RuntimeException e) {
+            log.error("Event listener failed.", e);
+        }
+    }
+
+}
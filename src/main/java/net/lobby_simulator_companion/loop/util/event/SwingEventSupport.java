@@ -1,14 +1,13 @@
 package net.lobby_simulator_companion.loop.util.event;
 
-import javax.swing.event.SwingPropertyChangeSupport;
-
 /**
+ * Event support for the components which interact with the UI.
+ * <p>
+ * Events are delivered on the thread which fires them, as with the plain {@link EventSupport}; listeners which
+ * update the UI must hand the update over to the EDT themselves.
+ *
  * @author NickyRamone
  */
 public class SwingEventSupport extends EventSupport {
 
-    public SwingEventSupport() {
-        super(new SwingPropertyChangeSupport(NULL_OBJECT));
-    }
-
 }
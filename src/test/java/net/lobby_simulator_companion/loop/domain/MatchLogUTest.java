@@ -6,6 +6,10 @@ import net.lobby_simulator_companion.loop.domain.stats.MapStats;
 import net.lobby_simulator_companion.loop.domain.stats.Match;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import static net.lobby_simulator_companion.loop.domain.MatchLog.RollingGroup;
 import static net.lobby_simulator_companion.loop.domain.MatchLog.RollingGroup.LAST_100_MATCHES;
 import static net.lobby_simulator_companion.loop.domain.MatchLog.RollingGroup.LAST_50_MATCHES;
@@ -34,6 +38,61 @@ public class MatchLogUTest {
         verifyRollingAggregation(LAST_100_MATCHES, n);
     }
 
+    @Test
+    public void rollingAggregation__whenRandomMatches__thenSameStatsAsAggregatingTheWholeWindow() {
+        // arrange
+        Random random = new Random(42);
+        List<Match> addedMatches = new ArrayList<>();
+
+        for (int i = 1; i <= 1500; i++) {
+            // act
+            Match match = generateRandomMatchStats(random);
+            matchLog.add(match);
+            addedMatches.add(match);
+
+            // assert
+            for (RollingGroup group : RollingGroup.values()) {
+                AggregateStats expectedStats = new AggregateStats();
+                int fromIdx = Math.max(0, addedMatches.size() - group.aggregateSize);
+                addedMatches.subList(fromIdx, addedMatches.size()).forEach(expectedStats::addMatchStats);
+
+                assertThat(matchLog.getStats(group), equalTo(expectedStats));
+            }
+        }
+    }
+
+    @Test
+    public void getStats__whenArbitraryWindow__thenSameStatsAsAggregatingTheWholeWindow() {
+        // arrange
+        Random random = new Random(7);
+        List<Match> addedMatches = new ArrayList<>();
+        int[] windowSizes = {0, 1, 37, 999, 1000, 2000};
+
+        for (int i = 1; i <= 2500; i++) {
+            Match match = generateRandomMatchStats(random);
+            matchLog.add(match);
+            addedMatches.add(match);
+
+            if (i % 50 != 0) {
+                continue;
+            }
+
+            for (int windowSize : windowSizes) {
+                // act
+                AggregateStats actualStats = matchLog.getStats(windowSize);
+
+                // assert
+                int windowMatches = Math.min(windowSize, matchLog.matchCount());
+                List<Match> window = addedMatches.subList(addedMatches.size() - windowMatches, addedMatches.size());
+                AggregateStats expectedStats = new AggregateStats();
+                window.forEach(expectedStats::addMatchStats);
+
+                assertThat(actualStats, equalTo(expectedStats));
+                assertThat(matchLog.getOldestMatch(windowSize), equalTo(window.isEmpty() ? null : window.get(0)));
+            }
+        }
+    }
+
 
     /**
      * Generate deterministic match data dependent of the match number.
@@ -64,6 +123,28 @@ public class MatchLogUTest {
     }
 
 
+    /**
+     * Generate matches with long streaks, so that runs of escapes/deaths enter and leave the aggregation window.
+     * Some matches have no result, which do not break the streaks.
+     */
+    private Match generateRandomMatchStats(Random random) {
+        Killer[] killers = {Killer.TRAPPER, Killer.HILLBILLY, Killer.NURSE};
+        RealmMap[] realmMaps = {RealmMap.COAL_TOWER, RealmMap.THOMPSON_HOUSE};
+        int outcome = random.nextInt(10);
+
+        return Match.builder()
+                .lobbiesFound(random.nextInt(5))
+                .secondsQueued(random.nextInt(300))
+                .secondsWaited(random.nextInt(300))
+                .secondsPlayed(random.nextInt(1200))
+                .killer(killers[random.nextInt(killers.length)])
+                .realmMap(realmMaps[random.nextInt(realmMaps.length)])
+                .escaped(outcome == 0 ? null : outcome <= 5)
+                .killCount(outcome == 0 ? null : random.nextInt(5))
+                .build();
+    }
+
+
     private void verifyRollingAggregation(RollingGroup group, int numMatchesAggregated) {
 
         AggregateStats actualStats = matchLog.getStats(group);
@@ -16,44 +16,58 @@ import java.util.Random;
 import java.util.UUID;
 
 /**
+ * Generates random data for testing. Also used for building the benchmark fixtures.
+ *
  * @author NickyRamone
  */
 @Slf4j
 public class DataGenerator {
 
-    private static final Random random = new Random();
-    private static final LoopDataService dataService = Factory.loopDataService();
+    private final Random random;
+
+
+    public DataGenerator() {
+        this(new Random());
+    }
+
+    /**
+     * @param random source of randomness; use a seeded one for reproducible data.
+     */
+    public DataGenerator(Random random) {
+        this.random = random;
+    }
 
 
     public static void main(String[] args) {
+        LoopDataService dataService = Factory.loopDataService();
         DataGenerator dg = new DataGenerator();
         Instant startInstant = Instant.now();
-        dg.addPlayers(2000);
-        dg.addMatches(2000);
+        dg.addPlayers(dataService, 2000);
+        dg.addMatches(dataService, 2000);
         dataService.save();
         log.info("Elapsed: {} seconds", Duration.between(startInstant, Instant.now()).toMillis() / 1000.0);
     }
 
-    private void addPlayers(int n) {
+    private void addPlayers(LoopDataService dataService, int n) {
         for (int i = 0; i < n; i++) {
             dataService.addPlayer(randomPlayer());
         }
     }
 
-    private void addMatches(int n) {
+    private void addMatches(LoopDataService dataService, int n) {
         for (int i = 0; i < n; i++) {
             dataService.addMatch(randomMatch());
         }
     }
 
 
-    private Player randomPlayer() {
-        String steamId = UUID.randomUUID().toString();
+    public Player randomPlayer() {
+        String steamId = randomUuid();
         int matchesPlayed = random.nextInt(20);
 
         return Player.builder()
                 .steamId64(steamId)
-                .dbdPlayerId(UUID.randomUUID().toString())
+                .dbdPlayerId(randomUuid())
                 .names(Arrays.asList("dummy name " + steamId))
                 .description("dummy description for " + steamId)
                 .rating(randomPlayerRating())
@@ -68,7 +82,7 @@ public class DataGenerator {
     }
 
 
-    private Match randomMatch() {
+    public Match randomMatch() {
         int secondsQueued = random.nextInt(180);
         int secondsWaited = secondsQueued + randomInt(60, 120);
 
@@ -77,8 +91,8 @@ public class DataGenerator {
                 .secondsWaited(secondsWaited)
                 .secondsPlayed(randomInt(3 * 60, 20 * 60))
                 .lobbiesFound(1)
-                .killerPlayerDbdId(UUID.randomUUID().toString())
-                .killerPlayerSteamId64(UUID.randomUUID().toString())
+                .killerPlayerDbdId(randomUuid())
+                .killerPlayerSteamId64(randomUuid())
                 .killer(randomKiller())
                 .realmMap(randomMap())
                 .escaped(random.nextBoolean())
@@ -86,6 +100,13 @@ public class DataGenerator {
                 .build();
     }
 
+    /**
+     * Taken from the random source (unlike {@link UUID#randomUUID()}), so that seeded data is reproducible.
+     */
+    private String randomUuid() {
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
     private int randomInt(int min, int max) {
         return random.nextInt((max - min) + 1) + min;
     }
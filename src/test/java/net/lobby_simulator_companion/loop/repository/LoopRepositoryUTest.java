@@ -0,0 +1,194 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import net.lobby_simulator_companion.loop.config.AppProperties;
+import net.lobby_simulator_companion.loop.config.LoopGsonFactory;
+import net.lobby_simulator_companion.loop.domain.LoopData;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.Stats;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author NickyRamone
+ */
+public class LoopRepositoryUTest {
+
+    private static final String STORAGE_FILE = "stabd.dat";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+
+    @Test
+    public void load__whenChangesWereSavedAfterDataFile__thenChangesShouldBeApplied() throws IOException {
+        // arrange
+        LoopRepository repository = createRepository(true);
+        LoopData loopData = new LoopData();
+        Player player1 = createPlayer("10.0.0.1");
+        loopData.addPlayers(Collections.singletonList(player1));
+        repository.save(loopData);
+
+        player1.setDescription("camper");
+        Player player2 = createPlayer("10.0.0.2");
+        repository.saveChanges(Arrays.asList(player1, player2), null);
+
+        Stats stats = new Stats();
+        stats.addMatchStats(Match.builder().escaped(true).build());
+        repository.saveChanges(Collections.emptyList(), stats);
+
+        // act
+        LoopData loadedData = repository.load();
+
+        // assert
+        assertThat(loadedData.getPlayers().size(), equalTo(2));
+        assertThat(loadedData.getPlayers().get(0).getIpHash(), equalTo(player1.getIpHash()));
+        assertThat(loadedData.getPlayers().get(0).getDescription(), equalTo("camper"));
+        assertThat(loadedData.getPlayers().get(1).getIpHash(), equalTo(player2.getIpHash()));
+        assertThat(loadedData.getStats().get(Stats.Period.GLOBAL).getEscapes(), equalTo(1));
+    }
+
+    @Test
+    public void save__whenChangesWereSaved__thenJournalShouldBeDiscarded() throws IOException {
+        // arrange
+        LoopRepository repository = createRepository(false);
+        LoopData loopData = new LoopData();
+        repository.save(loopData);
+
+        Player player = createPlayer("10.0.0.1");
+        repository.saveChanges(Collections.singletonList(player), null);
+        File journalFile = new File(tempFolder.getRoot(), STORAGE_FILE + ".journal");
+        boolean journalExistedBeforeSave = journalFile.exists();
+
+        // act
+        repository.save(loopData);
+
+        // assert
+        assertThat(journalExistedBeforeSave, equalTo(true));
+        assertThat(journalFile.exists(), equalTo(false));
+        assertThat(repository.load().getPlayers().isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void save__whenSnapshotIsSaved__thenOriginalChangesShouldNotBeSaved() throws IOException {
+        // arrange
+        LoopRepository repository = createRepository(true);
+        Player player = createPlayer("10.0.0.1");
+        Stats stats = new Stats();
+        LoopData snapshot = repository.snapshot(Collections.singletonList(player), stats);
+
+        player.setDescription("changed after the snapshot");
+        stats.addMatchStats(Match.builder().escaped(true).build());
+
+        // act
+        repository.save(snapshot);
+
+        // assert
+        LoopData loadedData = repository.load();
+        assertThat(loadedData.getPlayers().get(0).getDescription(), equalTo(null));
+        assertThat(loadedData.getStats().get(Stats.Period.GLOBAL).getMatchesPlayed(), equalTo(0));
+        assertThat(new File(tempFolder.getRoot(), STORAGE_FILE + ".tmp").exists(), equalTo(false));
+    }
+
+    @Test
+    public void load__whenDataFileHasMatchLog__thenMatchesAndStatsShouldBeRead() throws IOException {
+        // arrange
+        LoopRepository repository = createRepository(false);
+        Files.write(new File(tempFolder.getRoot(), STORAGE_FILE).toPath(), Collections.singletonList(
+                "{\"players\": [],"
+                        + " \"stats\": {\"global\": {\"matchesPlayed\": 3, \"escapes\": 2}},"
+                        + " \"matchLog\": {\"matches\": [{\"escaped\": true}, {\"escaped\": false, \"killCount\": 4}]}}"),
+                StandardCharsets.UTF_8);
+
+        // act
+        LoopData loadedData = repository.load();
+
+        // assert
+        assertThat(loadedData.getStats().get(Stats.Period.GLOBAL).getMatchesPlayed(), equalTo(3));
+        assertThat(loadedData.getStats().get(Stats.Period.GLOBAL).getEscapes(), equalTo(2));
+        assertThat(loadedData.getStats().get(Stats.Period.DAILY).getMatchesPlayed(), equalTo(0));
+        assertThat(loadedData.getMatchLog().matchCount(), equalTo(2));
+        assertThat(loadedData.getMatchLog().getMatches().get(1).getKillCount(), equalTo(4));
+    }
+
+    @Test
+    public void load__whenBinaryDataFileWasSaved__thenPlayersShouldBeRead() throws IOException {
+        // arrange
+        LoopRepository repository = createRepository(false);
+        Player player = createPlayer("10.0.0.1");
+        player.setSteamId64("76561198000000001");
+        player.setDbdPlayerId("0a1b2c3d-0000-1111-2222-333344445555");
+        player.addName("Dwight");
+        player.addName("Meg");
+        player.setRating(Player.Rating.THUMBS_DOWN);
+        player.setDescription("camper");
+        Player playerWithoutHash = new Player();
+        playerWithoutHash.setIpHash("not an md5 hash");
+        playerWithoutHash.setSteamId64("007");
+        repository.save(new LoopData(Arrays.asList(player, playerWithoutHash), new Stats()));
+
+        // act
+        LoopData loadedData = repository.load();
+
+        // assert
+        Player loadedPlayer = loadedData.getPlayers().get(0);
+        assertThat(loadedPlayer.getIpHash(), equalTo(player.getIpHash()));
+        assertThat(loadedPlayer.getSteamId64(), equalTo(player.getSteamId64()));
+        assertThat(loadedPlayer.getDbdPlayerId(), equalTo(player.getDbdPlayerId()));
+        assertThat(loadedPlayer.getNames(), equalTo(Arrays.asList("Dwight", "Meg")));
+        assertThat(loadedPlayer.getRating(), equalTo(Player.Rating.THUMBS_DOWN));
+        assertThat(loadedPlayer.getDescription(), equalTo("camper"));
+        assertThat(loadedPlayer.getTimesEncountered(), equalTo(1));
+        assertThat(loadedPlayer.getFirstSeen(), equalTo(player.getFirstSeen().withNano(0)));
+        assertThat(loadedData.getPlayers().get(1).getIpHash(), equalTo("not an md5 hash"));
+        assertThat(loadedData.getPlayers().get(1).getSteamId64(), equalTo("007"));
+    }
+
+    @Test(expected = IOException.class)
+    public void load__whenBinaryDataFileIsCorrupt__thenShouldFail() throws IOException {
+        // arrange
+        LoopRepository repository = createRepository(false);
+        repository.save(new LoopData(Collections.singletonList(createPlayer("10.0.0.1")), new Stats()));
+        File dataFile = new File(tempFolder.getRoot(), STORAGE_FILE);
+        byte[] contents = Files.readAllBytes(dataFile.toPath());
+        contents[contents.length / 2] ^= 1;
+        Files.write(dataFile.toPath(), contents);
+
+        // act
+        repository.load();
+    }
+
+
+    private LoopRepository createRepository(boolean encrypted) {
+        AppProperties appProperties = mock(AppProperties.class);
+        when(appProperties.get("app.home")).thenReturn(tempFolder.getRoot().getAbsolutePath());
+        when(appProperties.get("storage.file")).thenReturn(STORAGE_FILE);
+        when(appProperties.getBoolean("storage.read.encrypted")).thenReturn(encrypted);
+        when(appProperties.getBoolean("storage.write.encrypted")).thenReturn(encrypted);
+
+        return new LoopRepository(appProperties, LoopGsonFactory.gson(!encrypted));
+    }
+
+    private Player createPlayer(String ipAddress) throws IOException {
+        Player player = new Player();
+        player.setIpAddress(InetAddress.getByName(ipAddress));
+        player.incrementTimesEncountered();
+
+        return player;
+    }
+
+}
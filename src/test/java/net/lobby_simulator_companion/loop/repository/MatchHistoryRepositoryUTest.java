@@ -0,0 +1,188 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import net.lobby_simulator_companion.loop.domain.Killer;
+import net.lobby_simulator_companion.loop.domain.RealmMap;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * @author NickyRamone
+ */
+public class MatchHistoryRepositoryUTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MatchHistoryRepository repository;
+
+
+    @After
+    public void tearDown() throws IOException {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+
+    @Test
+    public void records__whenReopened__thenAllMatchDetailsShouldBeRead() throws IOException {
+        // arrange
+        Path file = tempFolder.getRoot().toPath().resolve("history.dat");
+        Match match = Match.builder()
+                .lobbiesFound(2)
+                .secondsQueued(30)
+                .secondsWaited(95)
+                .secondsPlayed(720)
+                .matchStartTime(LocalDateTime.of(2020, 7, 13, 19, 33, 30))
+                .escaped(false)
+                .killCount(3)
+                .killer(Killer.NURSE)
+                .realmMap(RealmMap.COAL_TOWER)
+                .killerPlayerSteamId64("76561198000000001")
+                .killerPlayerDbdId("0a1b2c3d-0000-1111-2222-333344445555")
+                .killerPlayerIpHash("0123456789abcdef0123456789abcdef")
+                .build();
+        Match emptyMatch = new Match();
+
+        repository = new MatchHistoryRepository(file, 10);
+        repository.open();
+        repository.append(match);
+        repository.append(emptyMatch);
+        repository.close();
+
+        // act
+        repository = new MatchHistoryRepository(file, 10);
+        repository.open();
+        MatchHistoryRepository.Records records = repository.records();
+
+        // assert
+        assertThat(records.size(), equalTo(2));
+        assertThat(records.get(0), equalTo(match));
+        assertThat(records.get(1), equalTo(emptyMatch));
+        assertThat(repository.getTail(), equalTo(Arrays.asList(match, emptyMatch)));
+    }
+
+    @Test
+    public void getTail__whenMoreMatchesThanTailSize__thenOnlyMostRecentMatchesShouldBeKept() throws IOException {
+        // arrange
+        Path file = tempFolder.getRoot().toPath().resolve("history.dat");
+        repository = new MatchHistoryRepository(file, 3);
+        repository.open();
+        for (int i = 1; i <= 5; i++) {
+            repository.append(Match.builder().secondsPlayed(i).build());
+        }
+        repository.close();
+
+        // act
+        repository = new MatchHistoryRepository(file, 3);
+        repository.open();
+        List<Match> tail = repository.getTail();
+
+        // assert
+        assertThat(repository.size(), equalTo(5L));
+        assertThat(tail.size(), equalTo(3));
+        assertThat(tail.get(0).getSecondsPlayed(), equalTo(3));
+        assertThat(tail.get(2).getSecondsPlayed(), equalTo(5));
+    }
+
+    @Test
+    public void open__whenLastRecordIsIncomplete__thenItShouldBeDiscarded() throws IOException {
+        // arrange
+        Path file = tempFolder.getRoot().toPath().resolve("history.dat");
+        repository = new MatchHistoryRepository(file, 10);
+        repository.open();
+        repository.append(Match.builder().escaped(true).build());
+        repository.append(Match.builder().escaped(false).build());
+        repository.close();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - MatchHistoryRepository.RECORD_SIZE / 2);
+        }
+
+        // act
+        repository = new MatchHistoryRepository(file, 10);
+        repository.open();
+        repository.append(Match.builder().killCount(4).build());
+
+        // assert
+        MatchHistoryRepository.Records records = repository.records();
+        assertThat(records.size(), equalTo(2));
+        assertThat(records.getEscaped(0), equalTo(true));
+        assertThat(records.get(1).getKillCount(), equalTo(4));
+    }
+
+    @Test
+    public void records__whenDictionaryHasOtherCodes__thenKillersShouldBeDecodedByName() throws IOException {
+        // arrange
+        Path file = tempFolder.getRoot().toPath().resolve("history.dat");
+        Files.write(tempFolder.getRoot().toPath().resolve("history.dat.dict"),
+                Arrays.asList("Killer:TRAPPER", "Killer:REMOVED_KILLER", "Killer:NURSE"), StandardCharsets.UTF_8);
+
+        repository = new MatchHistoryRepository(file, 10);
+        repository.open();
+        repository.append(Match.builder().killer(Killer.NURSE).build());
+        repository.append(Match.builder().killer(Killer.HAG).build());
+        repository.close();
+
+        // act
+        repository = new MatchHistoryRepository(file, 10);
+        repository.open();
+        MatchHistoryRepository.Records records = repository.records();
+
+        // assert
+        assertThat(records.getKiller(0), equalTo(Killer.NURSE));
+        assertThat(records.getKiller(1), equalTo(Killer.HAG));
+        assertThat(records.getRealmMap(1), equalTo(null));
+    }
+
+    @Test
+    public void insert__whenMatchesArePast__thenHistoryShouldBeInChronologicalOrder() throws IOException {
+        // arrange
+        Path file = tempFolder.getRoot().toPath().resolve("history.dat");
+        repository = new MatchHistoryRepository(file, 3);
+        repository.open();
+        repository.append(matchStartedAt(1));
+        repository.append(matchStartedAt(4));
+        repository.append(matchStartedAt(6));
+
+        // act
+        repository.insert(Arrays.asList(matchStartedAt(5), matchStartedAt(2)));
+        repository.close();
+        repository = new MatchHistoryRepository(file, 3);
+        repository.open();
+
+        // assert
+        MatchHistoryRepository.Records records = repository.records();
+        List<Integer> days = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            days.add(records.getMatchStartTime(i).getDayOfMonth());
+        }
+        assertThat(days, equalTo(Arrays.asList(1, 2, 4, 5, 6)));
+        assertThat(repository.getTail().stream().map(m -> m.getMatchStartTime().getDayOfMonth()).collect(toList()),
+                equalTo(Arrays.asList(4, 5, 6)));
+    }
+
+
+    private static Match matchStartedAt(int dayOfMonth) {
+        return Match.builder().matchStartTime(LocalDateTime.of(2020, 7, dayOfMonth, 12, 0)).build();
+    }
+
+}
@@ -0,0 +1,152 @@
+package net.lobby_simulator_companion.loop.repository;
+
+import net.lobby_simulator_companion.loop.domain.Player;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * @author NickyRamone
+ */
+public class PlayerRepositoryUTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private PlayerRepository repository;
+
+
+    @After
+    public void tearDown() throws IOException {
+        if (repository != null) {
+            repository.close();
+        }
+    }
+
+
+    @Test
+    public void get__whenPlayerWasUpdated__thenLatestVersionShouldBeRead() throws IOException {
+        // arrange
+        Path file = tempFolder.getRoot().toPath().resolve("players.dat");
+        Player player = createPlayer(1);
+        Player otherPlayer = createPlayer(2);
+        repository = new PlayerRepository(file);
+        repository.open();
+        repository.putAll(Arrays.asList(player, otherPlayer));
+        player.setDescription("camper");
+        player.addName("Trapper main");
+        repository.put(player);
+        repository.close();
+
+        // act
+        repository = new PlayerRepository(file);
+        repository.open();
+        Player storedPlayer = repository.get(player.getIpHash());
+
+        // assert
+        assertThat(repository.size(), equalTo(2));
+        assertThat(storedPlayer.getDescription(), equalTo("camper"));
+        assertThat(storedPlayer.getNames(), equalTo(player.getNames()));
+        assertThat(repository.get(otherPlayer.getIpHash()).getIpHash(), equalTo(otherPlayer.getIpHash()));
+        assertThat(repository.get(createPlayer(3).getIpHash()), equalTo(null));
+    }
+
+    @Test
+    public void open__whenIndexIsMissing__thenItShouldBeRebuilt() throws IOException {
+        // arrange
+        Path file = tempFolder.getRoot().toPath().resolve("players.dat");
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            players.add(createPlayer(i));
+        }
+        repository = new PlayerRepository(file);
+        repository.open();
+        repository.putAll(players);
+        repository.close();
+        Files.delete(tempFolder.getRoot().toPath().resolve("players.dat.idx"));
+
+        // act
+        repository = new PlayerRepository(file);
+        repository.open();
+
+        // assert
+        assertThat(repository.size(), equalTo(players.size()));
+        for (Player player : players) {
+            assertThat(repository.contains(player.getIpHash()), equalTo(true));
+        }
+        assertThat(repository.get(players.get(1234).getIpHash()).getSteamId64(), equalTo("76561198000001234"));
+    }
+
+    @Test
+    public void open__whenLastRecordIsIncomplete__thenItShouldBeDiscarded() throws IOException {
+        // arrange
+        Path file = tempFolder.getRoot().toPath().resolve("players.dat");
+        repository = new PlayerRepository(file);
+        repository.open();
+        repository.put(createPlayer(1));
+        repository.put(createPlayer(2));
+        repository.close();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        // act
+        repository = new PlayerRepository(file);
+        repository.open();
+        repository.put(createPlayer(3));
+
+        // assert
+        assertThat(repository.size(), equalTo(2));
+        assertThat(repository.contains(createPlayer(1).getIpHash()), equalTo(true));
+        assertThat(repository.contains(createPlayer(2).getIpHash()), equalTo(false));
+        assertThat(repository.get(createPlayer(3).getIpHash()).getSteamId64(), equalTo("76561198000000003"));
+    }
+
+    @Test
+    public void open__whenMostRecordsAreOutdated__thenDataFileShouldBeCompacted() throws IOException {
+        // arrange
+        Path file = tempFolder.getRoot().toPath().resolve("players.dat");
+        Player player = createPlayer(1);
+        repository = new PlayerRepository(file);
+        repository.open();
+        for (int i = 0; i < 20000; i++) {
+            player.incrementTimesEncountered();
+            repository.put(player);
+        }
+        repository.close();
+        long sizeBeforeCompaction = Files.size(file);
+
+        // act
+        repository = new PlayerRepository(file);
+        repository.open();
+
+        // assert
+        assertThat(Files.size(file) < sizeBeforeCompaction / 1000, equalTo(true));
+        assertThat(repository.get(player.getIpHash()).getTimesEncountered(), equalTo(20000));
+    }
+
+
+    private Player createPlayer(int n) throws IOException {
+        Player player = new Player();
+        player.setIpAddress(InetAddress.getByAddress(new byte[]{10, 0, (byte) (n >> 8), (byte) n}));
+        player.setSteamId64(String.valueOf(76561198000000000L + n));
+
+        return player;
+    }
+
+}
@@ -0,0 +1,173 @@
+package net.lobby_simulator_companion.loop.service;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * @author NickyRamone
+ */
+public class DbdLogReaderUTest {
+
+    private static final String LINE_1 = "[2020.07.10-20.00.00:000][  0]LogInit: Log file open, 07/10/20 20:00:00";
+    private static final String LINE_2 = "[2020.07.10-20.00.01:000][  1]LogOnline: Display: Searching for lobby";
+    private static final String LINE_3 = "[2020.07.10-20.00.02:000][  2]LogOnline: Display: Joined lobby";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private DbdLogReader reader;
+
+
+    @After
+    public void tearDown() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+
+    @Test
+    public void seek__whenCheckpointBelongsToSameLog__thenReadingShouldResumeAtItsOffset() throws IOException {
+        // arrange
+        Path logFile = writeLog(LINE_1 + "\n" + LINE_2 + "\r\n" + LINE_3 + "\n");
+        DbdLogReader.Checkpoint checkpoint;
+        try (DbdLogReader previousReader = new DbdLogReader(logFile.toFile())) {
+            previousReader.readLine();
+            previousReader.readLine();
+            checkpoint = previousReader.getCheckpoint();
+        }
+        reader = new DbdLogReader(logFile.toFile());
+
+        // act
+        boolean resumed = reader.seek(checkpoint);
+        String line = reader.readLine();
+
+        // assert
+        assertThat(checkpoint.getOffset(), equalTo((long) (LINE_1.length() + LINE_2.length() + 3)));
+        assertThat(resumed, equalTo(true));
+        assertThat(line, equalTo(LINE_3));
+        assertThat(reader.readLine(), equalTo(null));
+        assertThat(reader.getOffset(), equalTo(Files.size(logFile)));
+    }
+
+    @Test
+    public void seek__whenLogWasRecreatedWithDifferentHeader__thenCheckpointShouldNotBeApplied() throws IOException {
+        // arrange
+        Path logFile = writeLog(LINE_1 + "\n" + LINE_2 + "\n");
+        FileTime creationTime = Files.getLastModifiedTime(logFile);
+        DbdLogReader.Checkpoint checkpoint;
+        try (DbdLogReader previousReader = new DbdLogReader(logFile.toFile())) {
+            previousReader.readLine();
+            checkpoint = previousReader.getCheckpoint();
+        }
+        // same length and (where creation times are not supported and the modification time is reported instead)
+        // same creation time, so that only the header tells the logs apart
+        writeLog(LINE_1.replace("20:00:00", "21:00:00") + "\n" + LINE_2 + "\n");
+        Files.setLastModifiedTime(logFile, creationTime);
+        reader = new DbdLogReader(logFile.toFile());
+
+        // act
+        boolean resumed = reader.seek(checkpoint);
+
+        // assert
+        assertThat(resumed, equalTo(false));
+        assertThat(reader.getOffset(), equalTo(0L));
+        assertThat(reader.readLine(), equalTo(LINE_1.replace("20:00:00", "21:00:00")));
+    }
+
+    @Test
+    public void seek__whenLogWasTruncatedBeforeCheckpointOffset__thenCheckpointShouldNotBeApplied()
+            throws IOException {
+        // arrange
+        Path logFile = writeLog(LINE_1 + "\n" + LINE_2 + "\n" + LINE_3 + "\n");
+        DbdLogReader.Checkpoint checkpoint;
+        try (DbdLogReader previousReader = new DbdLogReader(logFile.toFile())) {
+            while (previousReader.readLine() != null) {
+                // skip to the end
+            }
+            checkpoint = previousReader.getCheckpoint();
+        }
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(LINE_1.length() + 1);
+        }
+        reader = new DbdLogReader(logFile.toFile());
+
+        // act
+        boolean resumed = reader.seek(checkpoint);
+
+        // assert
+        assertThat(resumed, equalTo(false));
+        assertThat(reader.getOffset(), equalTo(0L));
+    }
+
+    @Test
+    public void seek__whenCheckpointHeaderLengthIsOutOfBounds__thenCheckpointShouldNotBeApplied() throws IOException {
+        // arrange
+        Path logFile = writeLog(LINE_1 + "\n" + LINE_2 + "\n");
+        DbdLogReader.Checkpoint checkpoint;
+        try (DbdLogReader previousReader = new DbdLogReader(logFile.toFile())) {
+            previousReader.readLine();
+            checkpoint = previousReader.getCheckpoint();
+        }
+        DbdLogReader.Checkpoint negativeHeaderLength = new DbdLogReader.Checkpoint(checkpoint.getCreationTime(),
+                -1, checkpoint.getHeaderCrc(), checkpoint.getOffset());
+        DbdLogReader.Checkpoint oversizedHeaderLength = new DbdLogReader.Checkpoint(checkpoint.getCreationTime(),
+                (int) Files.size(logFile) + 1, checkpoint.getHeaderCrc(), checkpoint.getOffset());
+        reader = new DbdLogReader(logFile.toFile());
+
+        // act
+        boolean resumedWithNegativeLength = reader.seek(negativeHeaderLength);
+        boolean resumedWithOversizedLength = reader.seek(oversizedHeaderLength);
+
+        // assert
+        assertThat(resumedWithNegativeLength, equalTo(false));
+        assertThat(resumedWithOversizedLength, equalTo(false));
+        assertThat(reader.getOffset(), equalTo(0L));
+    }
+
+    @Test
+    public void readLine__whenLastLineIsPartial__thenItShouldBeReturnedOnceTerminated() throws IOException {
+        // arrange
+        int splitIndex = LINE_2.length() / 2;
+        Path logFile = writeLog(LINE_1 + "\n" + LINE_2.substring(0, splitIndex));
+        reader = new DbdLogReader(logFile.toFile());
+        reader.seek(0);
+
+        // act
+        String firstLine = reader.readLine();
+        String partialLine = reader.readLine();
+        long offsetBeforeTerminator = reader.getOffset();
+        Files.write(logFile, (LINE_2.substring(splitIndex) + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        String completedLine = reader.readLine();
+
+        // assert
+        assertThat(firstLine, equalTo(LINE_1));
+        assertThat(partialLine, equalTo(null));
+        assertThat(offsetBeforeTerminator, equalTo((long) LINE_1.length() + 1));
+        assertThat(completedLine, equalTo(LINE_2));
+        assertThat(reader.getOffset(), equalTo(Files.size(logFile)));
+    }
+
+
+    private Path writeLog(String content) throws IOException {
+        Path logFile = tempFolder.getRoot().toPath().resolve("DeadByDaylight.log");
+        Files.write(logFile, content.getBytes(StandardCharsets.UTF_8));
+
+        return logFile;
+    }
+
+}
@@ -0,0 +1,232 @@
+package net.lobby_simulator_companion.loop.service;
+
+import net.lobby_simulator_companion.loop.domain.MatchLog;
+import net.lobby_simulator_companion.loop.domain.stats.AggregateStats;
+import net.lobby_simulator_companion.loop.domain.stats.Match;
+import net.lobby_simulator_companion.loop.domain.stats.Stats;
+import net.lobby_simulator_companion.loop.repository.MatchHistoryRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static net.lobby_simulator_companion.loop.domain.MatchLog.RollingGroup.LAST_50_MATCHES;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * @author NickyRamone
+ */
+public class DbdLogReplayerUTest {
+
+    private static final DateTimeFormatter LOG_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final List<File> logFiles = new ArrayList<>();
+    private MatchHistoryRepository matchHistory;
+    private LoopDataService dataService;
+    private DbdLogReplayer replayer;
+
+
+    @Before
+    public void setUp() throws IOException {
+        matchHistory = new MatchHistoryRepository(tempFolder.getRoot().toPath().resolve("history.dat"),
+                MatchLog.CAPACITY);
+        matchHistory.open();
+        dataService = new LoopDataService(null, matchHistory);
+        replayer = new DbdLogReplayer(dataService);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        matchHistory.close();
+        logFiles.forEach(File::delete);
+    }
+
+
+    @Test
+    public void replay__whenLogHasMatch_thenTimesShouldBeTakenFromLogTimestamps() throws IOException {
+        // arrange
+        File logFile = createLog(
+                "Log file open, 07/13/20 19:29:59",
+                "[2020.07.13-19.30.00:000][  1]LogHttp: Display: POST https://latest.live.dbd.bhvronline.com/api/v1/queue]",
+                "[2020.07.13-19.31.30:000][  2]LogNet: UPendingNetGame::SendInitialJoin: RemoteAddr: 10.0.0.1:7777",
+                "[2020.07.13-19.33.30:000][  3]LogOnline: ^^^ OnEnteringOnlineMultiplayer ^^^",
+                "[2020.07.13-19.45.00:000][  4]LogDBDGeneral: player escaped = true",
+                "[2020.07.13-19.45.10:500][  5]LogHttp: POST https://latest.live.dbd.bhvronline.com/api/v1/softWallet/put/analytics",
+                "[2020.07.13-19.45.20:000][  6]LogOnline: FOnlineAsyncTaskMirrorsDestroyMatch");
+
+        // act
+        int matchCount = replayer.replay(logFile);
+
+        // assert
+        AggregateStats stats = dataService.getMatchLog().getStats(LAST_50_MATCHES);
+        assertThat(matchCount, equalTo(1));
+        assertThat(matchHistory.size(), equalTo(1L));
+        assertThat(stats.getMatchesPlayed(), equalTo(1));
+        assertThat(stats.getEscapes(), equalTo(1));
+        assertThat(stats.getSecondsQueued(), equalTo(90));
+        assertThat(stats.getSecondsWaited(), equalTo(210));
+        assertThat(stats.getSecondsPlayed(), equalTo(700));
+    }
+
+    @Test
+    public void replay__whenMatchIsTooShort_thenItShouldNotBeAdded() throws IOException {
+        // arrange
+        File logFile = createLog(
+                "[2020.07.13-19.30.00:000][  1]LogHttp: Display: POST https://latest.live.dbd.bhvronline.com/api/v1/queue]",
+                "[2020.07.13-19.31.30:000][  2]LogNet: UPendingNetGame::SendInitialJoin: RemoteAddr: 10.0.0.1:7777",
+                "[2020.07.13-19.33.30:000][  3]LogOnline: ^^^ OnEnteringOnlineMultiplayer ^^^",
+                "[2020.07.13-19.33.40:000][  4]LogHttp: POST https://latest.live.dbd.bhvronline.com/api/v1/softWallet/put/analytics");
+
+        // act
+        int matchCount = replayer.replay(logFile);
+
+        // assert
+        assertThat(matchCount, equalTo(0));
+        assertThat(dataService.getMatchLog().matchCount(), equalTo(0));
+    }
+
+
+    @Test
+    public void replay__whenSeveralLogs_thenMatchesShouldBeAddedInChronologicalOrder() throws IOException {
+        // arrange
+        List<File> logs = Arrays.asList(createMatchLog("2020.07.14", 1), createMatchLog("2020.07.12", 2),
+                createMatchLog("2020.07.13", 3));
+
+        // act
+        int matchCount = replayer.replay(logs);
+
+        // assert
+        // the only two escapes in a row are the last match of the 13th and the first match of the 14th
+        assertThat(matchCount, equalTo(9));
+        assertThat(dataService.getMatchLog().getOldestMatchForGroup(LAST_50_MATCHES).getMatchStartTime().toLocalDate(),
+                equalTo(LocalDate.of(2020, 7, 12)));
+        assertThat(dataService.getMatchLog().getStats(LAST_50_MATCHES).getMaxEscapesInARow(), equalTo(2));
+    }
+
+
+    @Test
+    public void replay__whenMatchesAreFromLastYear_thenOnlyGlobalStatsShouldChange() throws IOException {
+        // arrange
+        File logFile = createMatchLog(LocalDate.now().minusYears(1).format(LOG_DATE_FORMATTER), 1);
+
+        // act
+        replayer.replay(logFile);
+
+        // assert
+        Stats stats = dataService.getStats();
+        assertThat(stats.get(Stats.Period.DAILY).getMatchesPlayed(), equalTo(0));
+        assertThat(stats.get(Stats.Period.WEEKLY).getMatchesPlayed(), equalTo(0));
+        assertThat(stats.get(Stats.Period.MONTHLY).getMatchesPlayed(), equalTo(0));
+        assertThat(stats.get(Stats.Period.YEARLY).getMatchesPlayed(), equalTo(0));
+        assertThat(stats.get(Stats.Period.GLOBAL).getMatchesPlayed(), equalTo(3));
+        assertThat(stats.get(Stats.Period.GLOBAL).getEscapes(), equalTo(1));
+    }
+
+    @Test
+    public void replay__whenMatchesAreFromToday_thenTheyShouldCountForEveryPeriod() throws IOException {
+        // arrange
+        File logFile = createMatchLog(LocalDate.now().format(LOG_DATE_FORMATTER), 1);
+
+        // act
+        replayer.replay(logFile);
+
+        // assert
+        Stats stats = dataService.getStats();
+        for (Stats.Period period : Stats.Period.values()) {
+            assertThat(stats.get(period).getMatchesPlayed(), equalTo(3));
+        }
+    }
+
+    @Test
+    public void replay__whenSeveralLogs_thenStreaksShouldBeCountedInChronologicalOrderWithoutChangingCurrentOnes()
+            throws IOException {
+        // arrange
+        dataService.addMatch(Match.builder().matchStartTime(LocalDateTime.now()).escaped(true).build());
+        List<File> logs = Arrays.asList(createMatchLog("2020.07.14", 1), createMatchLog("2020.07.12", 2),
+                createMatchLog("2020.07.13", 3));
+
+        // act
+        replayer.replay(logs);
+
+        // assert
+        // in chronological order: death, escape, death, death, death, escape, escape, death, death
+        AggregateStats globalStats = dataService.getStats().get(Stats.Period.GLOBAL);
+        assertThat(globalStats.getMatchesPlayed(), equalTo(10));
+        assertThat(globalStats.getMaxEscapesInARow(), equalTo(2));
+        assertThat(globalStats.getMaxDeathsInARow(), equalTo(3));
+        assertThat(globalStats.getEscapesInARow(), equalTo(1));
+        assertThat(globalStats.getDeathsInARow(), equalTo(0));
+
+        // the current match stays the most recent one
+        MatchLog matchLog = dataService.getMatchLog();
+        AggregateStats lastMatchesStats = matchLog.getStats(LAST_50_MATCHES);
+        List<Match> matches = matchLog.getMatches();
+        assertThat(matches.get(matches.size() - 1).getMatchStartTime().toLocalDate(), equalTo(LocalDate.now()));
+        assertThat(matchLog.getOldestMatchForGroup(LAST_50_MATCHES).getMatchStartTime().toLocalDate(),
+                equalTo(LocalDate.of(2020, 7, 12)));
+        assertThat(lastMatchesStats.getMatchesPlayed(), equalTo(10));
+        assertThat(lastMatchesStats.getMaxEscapesInARow(), equalTo(2));
+        assertThat(lastMatchesStats.getMaxDeathsInARow(), equalTo(3));
+        assertThat(lastMatchesStats.getEscapesInARow(), equalTo(1));
+        assertThat(lastMatchesStats.getDeathsInARow(), equalTo(0));
+        assertThat(startTimes(matchHistory.getTail()), equalTo(startTimes(matches)));
+    }
+
+
+    /**
+     * @param escapeMatchNumber the match in the log (1 to 3) in which the user escapes
+     */
+    private File createMatchLog(String date, int escapeMatchNumber) throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        for (int i = 1; i <= 3; i++) {
+            String hour = String.valueOf(10 + i);
+            lines.add("[" + date + "-" + hour + ".00.00:000][  1]LogHttp: POST https://dbd/api/v1/queue]");
+            lines.add("[" + date + "-" + hour + ".01.00:000][  2]LogNet: UPendingNetGame::SendInitialJoin: RemoteAddr: 10.0.0.1");
+            lines.add("[" + date + "-" + hour + ".02.00:000][  3]LogOnline: ^^^ OnEnteringOnlineMultiplayer ^^^");
+            if (i == escapeMatchNumber) {
+                lines.add("[" + date + "-" + hour + ".10.00:000][  4]LogDBDGeneral: player escaped = true");
+            }
+            lines.add("[" + date + "-" + hour + ".12.00:000][  5]LogHttp: POST https://dbd/api/v1/softWallet/put/analytics");
+            lines.add("[" + date + "-" + hour + ".13.00:000][  6]LogOnline: FOnlineAsyncTaskMirrorsDestroyMatch");
+        }
+
+        return createLog(lines.toArray(new String[0]));
+    }
+
+    /**
+     * @return the start times of the matches, to the second (as they are stored in the match history).
+     */
+    private static List<LocalDateTime> startTimes(List<Match> matches) {
+        return matches.stream()
+                .map(m -> m.getMatchStartTime().truncatedTo(ChronoUnit.SECONDS))
+                .collect(toList());
+    }
+
+    private File createLog(String... lines) throws IOException {
+        File file = File.createTempFile("dbd-replay-log_", ".log");
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        logFiles.add(file);
+
+        return file;
+    }
+
+}
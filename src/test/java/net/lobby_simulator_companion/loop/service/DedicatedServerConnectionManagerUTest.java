@@ -0,0 +1,63 @@
+package net.lobby_simulator_companion.loop.service;
+
+import net.lobby_simulator_companion.loop.service.PcapCorpus.CaptureWriter;
+import net.lobby_simulator_companion.loop.service.PcapCorpus.RecordingSnifferListener;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static net.lobby_simulator_companion.loop.service.PcapCorpus.START_TIME;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class DedicatedServerConnectionManagerUTest {
+
+    private final RecordingSnifferListener listener = new RecordingSnifferListener();
+
+
+    @Test
+    public void start__whenCaptureHasLobby__thenConnectionWithAverageLatencyAndDisconnectionShouldBeNotified()
+            throws Exception {
+        // arrange
+        File captureFile = PcapCorpus.newCaptureFile();
+        try (CaptureWriter capture = new CaptureWriter(captureFile)) {
+            PcapCorpus.writeDedicatedServerLobby(capture, START_TIME);
+        }
+        DedicatedServerConnectionManager connectionManager = new DedicatedServerConnectionManager(
+                PcapCorpus.localAddress(), listener,
+                new PcapFilePacketSource(captureFile, PcapFilePacketSource.Speed.MAX));
+
+        // act
+        connectionManager.start();
+
+        // assert
+        int averageLatency = (2 * PcapCorpus.HANDSHAKE_LATENCY_MS + PcapCorpus.HANDSHAKE_LATENCY_MS) / 2;
+        assertThat(listener.getNotifications(), equalTo(Arrays.asList(
+                "connect 93.184.216.34:7777 from 51000, latency " + averageLatency,
+                "disconnect")));
+    }
+
+    @Test
+    public void start__whenCaptureEndsWhileConnected__thenDisconnectionShouldBeNotified() throws Exception {
+        // arrange
+        File captureFile = PcapCorpus.newCaptureFile();
+        try (CaptureWriter capture = new CaptureWriter(captureFile)) {
+            PcapCorpus.writeDedicatedServerHandshake(capture, START_TIME);
+        }
+        DedicatedServerConnectionManager connectionManager = new DedicatedServerConnectionManager(
+                PcapCorpus.localAddress(), listener,
+                new PcapFilePacketSource(captureFile, PcapFilePacketSource.Speed.MAX));
+
+        // act
+        connectionManager.start();
+
+        // assert
+        assertThat(listener.getNotifications().size(), equalTo(2));
+        assertThat(listener.getNotifications().get(1), equalTo("disconnect"));
+    }
+
+}
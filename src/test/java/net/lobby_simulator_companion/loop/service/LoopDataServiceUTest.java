@@ -0,0 +1,87 @@
+package net.lobby_simulator_companion.loop.service;
+
+import net.lobby_simulator_companion.loop.domain.MatchLog;
+import net.lobby_simulator_companion.loop.domain.Player;
+import net.lobby_simulator_companion.loop.repository.MatchHistoryRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * @author NickyRamone
+ */
+public class LoopDataServiceUTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MatchHistoryRepository matchHistory;
+    private LoopDataService dataService;
+
+
+    @Before
+    public void setUp() throws IOException {
+        matchHistory = new MatchHistoryRepository(tempFolder.getRoot().toPath().resolve("history.dat"),
+                MatchLog.CAPACITY);
+        matchHistory.open();
+        dataService = new LoopDataService(null, matchHistory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        matchHistory.close();
+    }
+
+
+    @Test
+    public void encounterPlayer__whenPlayerIsKnown__thenReturnedPlayersShouldNotChange() throws IOException {
+        // arrange
+        InetAddress address = InetAddress.getByAddress(new byte[]{10, 0, 0, 1});
+        Player firstEncounter = dataService.encounterPlayer(address, "dbd-id");
+
+        // act
+        Player secondEncounter = dataService.encounterPlayer(address, "dbd-id");
+
+        // assert
+        assertThat(firstEncounter.getTimesEncountered(), equalTo(1));
+        assertThat(secondEncounter.getTimesEncountered(), equalTo(2));
+        assertThat(secondEncounter.getDbdPlayerId(), equalTo("dbd-id"));
+        assertThat(dataService.getPlayerByInetAddress(address).get().getTimesEncountered(), equalTo(2));
+    }
+
+    @Test
+    public void updatePlayer__whenCalledFromSeveralThreads__thenNoChangeShouldBeLost() throws Exception {
+        // arrange
+        InetAddress address = InetAddress.getByAddress(new byte[]{10, 0, 0, 2});
+        String ipHash = dataService.encounterPlayer(address, null).getIpHash();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    dataService.updatePlayer(ipHash, Player::incrementEscapes);
+                }
+            }));
+        }
+
+        // act
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        dataService.flush();
+
+        // assert
+        assertThat(dataService.getPlayerByIpHash(ipHash).get().getEscapes(), equalTo(4000));
+    }
+
+}
@@ -0,0 +1,94 @@
+package net.lobby_simulator_companion.loop.service;
+
+import net.lobby_simulator_companion.loop.service.PcapCorpus.CaptureWriter;
+import net.lobby_simulator_companion.loop.service.PcapCorpus.RecordingSnifferListener;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static net.lobby_simulator_companion.loop.service.PcapCorpus.START_TIME;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class P2pConnectionManagerUTest {
+
+    private static final String CONNECT = "connect 93.184.216.34:7777 from 51000, latency null";
+    private static final String PING = "ping " + PcapCorpus.PING_MS;
+    private static final String DISCONNECT = "disconnect";
+
+    private final RecordingSnifferListener listener = new RecordingSnifferListener();
+
+
+    @Test
+    public void start__whenCaptureHasLobbies__thenConnectionsPingsAndDisconnectionsShouldBeNotified() throws Exception {
+        // arrange
+        File captureFile = PcapCorpus.newCaptureFile();
+        try (CaptureWriter capture = new CaptureWriter(captureFile)) {
+            long time = PcapCorpus.writeP2pLobby(capture, START_TIME);
+            PcapCorpus.writeP2pLobby(capture, time);
+        }
+        P2pConnectionManager connectionManager = new P2pConnectionManager(PcapCorpus.localAddress(), listener,
+                new PcapFilePacketSource(captureFile, PcapFilePacketSource.Speed.MAX));
+
+        // act
+        connectionManager.start();
+
+        // assert
+        List<String> expected = new ArrayList<>(expectedLobbyNotifications());
+        expected.addAll(expectedLobbyNotifications());
+        assertThat(listener.getNotifications(), equalTo(expected));
+    }
+
+    @Test
+    public void start__whenRequestIsNeverAnswered__thenItShouldTimeOutWithoutNotifications() throws Exception {
+        // arrange
+        File captureFile = PcapCorpus.newCaptureFile();
+        try (CaptureWriter capture = new CaptureWriter(captureFile)) {
+            long time = PcapCorpus.writeUnansweredP2pRequest(capture, START_TIME);
+            PcapCorpus.writeP2pLobby(capture, time);
+        }
+        P2pConnectionManager connectionManager = new P2pConnectionManager(PcapCorpus.localAddress(), listener,
+                new PcapFilePacketSource(captureFile, PcapFilePacketSource.Speed.MAX));
+
+        // act
+        connectionManager.start();
+
+        // assert
+        assertThat(listener.getNotifications(), equalTo(expectedLobbyNotifications()));
+    }
+
+    @Test
+    public void start__whenCaptureEndsWhileConnected__thenDisconnectionShouldBeNotified() throws Exception {
+        // arrange
+        File captureFile = PcapCorpus.newCaptureFile();
+        try (CaptureWriter capture = new CaptureWriter(captureFile)) {
+            PcapCorpus.writeP2pHandshake(capture, START_TIME);
+        }
+        P2pConnectionManager connectionManager = new P2pConnectionManager(PcapCorpus.localAddress(), listener,
+                new PcapFilePacketSource(captureFile, PcapFilePacketSource.Speed.MAX));
+
+        // act
+        connectionManager.start();
+
+        // assert
+        assertThat(listener.getNotifications(), equalTo(Arrays.asList(CONNECT, DISCONNECT)));
+    }
+
+
+    private static List<String> expectedLobbyNotifications() {
+        List<String> notifications = new ArrayList<>();
+        notifications.add(CONNECT);
+        notifications.addAll(Collections.nCopies(PcapCorpus.PINGS, PING));
+        notifications.add(DISCONNECT);
+
+        return notifications;
+    }
+
+}
@@ -0,0 +1,309 @@
+package net.lobby_simulator_companion.loop.service;
+
+import net.lobby_simulator_companion.loop.domain.Connection;
+import net.lobby_simulator_companion.loop.util.NetUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Synthetic captures of lobbies, in the classic pcap format (Ethernet frames), reproducing the traffic that the
+ * connection managers look for: the handshake with the host or server, game traffic with pings, and the silence after
+ * leaving, padded with unrelated traffic.
+ *
+ * @author NickyRamone
+ */
+final class PcapCorpus {
+
+    static final int LOCAL_ADDRESS = 0xC0A8000A; // 192.168.0.10
+    static final int LOCAL_PORT = 51000;
+    static final int ROUTER_ADDRESS = 0xC0A80001; // 192.168.0.1
+    static final int HOST_ADDRESS = 0x5DB8D822; // 93.184.216.34
+    static final int HOST_PORT = 7777;
+
+    static final long START_TIME = 1_656_000_000_000L;
+    static final int HANDSHAKE_LATENCY_MS = 40;
+    static final int PING_MS = 30;
+    static final int TRAFFIC_PACKETS = 400;
+    static final int TRAFFIC_INTERVAL_MS = 50;
+    static final int PINGS = TRAFFIC_PACKETS / 20;
+    static final int NOISE_PACKETS = 50;
+
+    /**
+     * Number of packets in a lobby capture (see {@link #writeP2pLobby(CaptureWriter, long)}).
+     */
+    static final int P2P_LOBBY_PACKETS = 4 * NOISE_PACKETS + 2 + TRAFFIC_PACKETS + 2 * PINGS;
+
+    private static final int STUN_MESSAGE_LENGTH__BINDING_REQUEST = 36;
+    private static final int STUN_MESSAGE_LENGTH__BINDING_RESPONSE = 48;
+    private static final int STUN_HEADER_LENGTH = 20;
+    private static final int SILENCE_AFTER_LOBBY_MS = 6000;
+    private static final int DNS_PORT = 53;
+
+
+    private PcapCorpus() {
+    }
+
+
+    static InetAddress localAddress() {
+        return NetUtil.toInetAddress(LOCAL_ADDRESS);
+    }
+
+    /**
+     * @return a temporary file which is deleted on exit.
+     */
+    static File newCaptureFile() throws IOException {
+        File file = File.createTempFile("loop-capture_", ".pcap");
+        file.deleteOnExit();
+        return file;
+    }
+
+
+    /**
+     * A P2P lobby: STUN binding request and response with the host, game traffic from the host with a ping every
+     * 20 packets, and then silence for longer than the connection timeout.
+     *
+     * @return the time after the lobby, once the connection has timed out.
+     */
+    static long writeP2pLobby(CaptureWriter capture, long startTime) throws IOException {
+        long time = writeP2pHandshake(capture, writeNoise(capture, startTime));
+
+        for (int i = 0; i < TRAFFIC_PACKETS; i++) {
+            time += TRAFFIC_INTERVAL_MS;
+            capture.udp(time, HOST_ADDRESS, HOST_PORT, LOCAL_ADDRESS, LOCAL_PORT, new byte[100]);
+
+            if (i % 20 == 0) {
+                int transactionId = i + 1;
+                capture.udp(time + 1, LOCAL_ADDRESS, LOCAL_PORT, HOST_ADDRESS, HOST_PORT, stunMessage(
+                        RawUdpPacket.STUN_TYPE__BINDING_REQUEST, STUN_MESSAGE_LENGTH__BINDING_REQUEST, transactionId));
+                capture.udp(time + 1 + PING_MS, HOST_ADDRESS, HOST_PORT, LOCAL_ADDRESS, LOCAL_PORT, stunMessage(
+                        RawUdpPacket.STUN_TYPE__BINDING_RESPONSE, STUN_MESSAGE_LENGTH__BINDING_RESPONSE, transactionId));
+            }
+        }
+
+        return writeNoise(capture, time + SILENCE_AFTER_LOBBY_MS);
+    }
+
+    /**
+     * A lobby on a dedicated server: two handshakes with the server (the first with twice the latency of the second),
+     * game traffic from the server, and then silence for longer than the connection timeout.
+     *
+     * @return the time after the lobby, once the connection has timed out.
+     */
+    static long writeDedicatedServerLobby(CaptureWriter capture, long startTime) throws IOException {
+        long time = writeDedicatedServerHandshake(capture, writeNoise(capture, startTime));
+
+        for (int i = 0; i < TRAFFIC_PACKETS; i++) {
+            time += TRAFFIC_INTERVAL_MS;
+            capture.udp(time, HOST_ADDRESS, HOST_PORT, LOCAL_ADDRESS, LOCAL_PORT, new byte[100]);
+        }
+
+        return writeNoise(capture, time + SILENCE_AFTER_LOBBY_MS);
+    }
+
+    /**
+     * STUN binding request and response with the host.
+     *
+     * @return the time of the response.
+     */
+    static long writeP2pHandshake(CaptureWriter capture, long startTime) throws IOException {
+        capture.udp(startTime, LOCAL_ADDRESS, LOCAL_PORT, HOST_ADDRESS, HOST_PORT,
+                stunMessage(RawUdpPacket.STUN_TYPE__BINDING_REQUEST, STUN_MESSAGE_LENGTH__BINDING_REQUEST, 0));
+        long time = startTime + HANDSHAKE_LATENCY_MS;
+        capture.udp(time, HOST_ADDRESS, HOST_PORT, LOCAL_ADDRESS, LOCAL_PORT,
+                stunMessage(RawUdpPacket.STUN_TYPE__BINDING_RESPONSE, STUN_MESSAGE_LENGTH__BINDING_RESPONSE, 0));
+
+        return time;
+    }
+
+    /**
+     * Two handshakes with the server, the first with twice the latency of the second.
+     *
+     * @return the time of the last response.
+     */
+    static long writeDedicatedServerHandshake(CaptureWriter capture, long startTime) throws IOException {
+        long time = startTime;
+        capture.udp(time, LOCAL_ADDRESS, LOCAL_PORT, HOST_ADDRESS, HOST_PORT, handshakeMessage(0x01));
+        time += 2 * HANDSHAKE_LATENCY_MS;
+        capture.udp(time, HOST_ADDRESS, HOST_PORT, LOCAL_ADDRESS, LOCAL_PORT, handshakeMessage(0x02));
+        time += 10;
+        capture.udp(time, LOCAL_ADDRESS, LOCAL_PORT, HOST_ADDRESS, HOST_PORT, handshakeMessage(0x03));
+        time += HANDSHAKE_LATENCY_MS;
+        capture.udp(time, HOST_ADDRESS, HOST_PORT, LOCAL_ADDRESS, LOCAL_PORT, handshakeMessage(0x04));
+
+        return time;
+    }
+
+    /**
+     * A connection attempt that never gets a response.
+     *
+     * @return the time after the attempt, once it has timed out.
+     */
+    static long writeUnansweredP2pRequest(CaptureWriter capture, long startTime) throws IOException {
+        capture.udp(startTime, LOCAL_ADDRESS, LOCAL_PORT, HOST_ADDRESS, HOST_PORT,
+                stunMessage(RawUdpPacket.STUN_TYPE__BINDING_REQUEST, STUN_MESSAGE_LENGTH__BINDING_REQUEST, 0));
+
+        return writeNoise(capture, startTime + SILENCE_AFTER_LOBBY_MS);
+    }
+
+    /**
+     * DNS queries and responses, which are small UDP packets like the ones of the handshakes.
+     */
+    private static long writeNoise(CaptureWriter capture, long startTime) throws IOException {
+        long time = startTime;
+        for (int i = 0; i < NOISE_PACKETS; i++) {
+            capture.udp(time, LOCAL_ADDRESS, LOCAL_PORT + 1 + i, ROUTER_ADDRESS, DNS_PORT, new byte[40]);
+            capture.udp(time + 5, ROUTER_ADDRESS, DNS_PORT, LOCAL_ADDRESS, LOCAL_PORT + 1 + i, new byte[60]);
+            time += 10;
+        }
+
+        return time;
+    }
+
+    private static byte[] stunMessage(int messageType, int messageLength, int transactionId) {
+        byte[] message = new byte[STUN_HEADER_LENGTH + messageLength];
+        message[0] = (byte) (messageType >>> 8);
+        message[1] = (byte) messageType;
+        message[2] = (byte) (messageLength >>> 8);
+        message[3] = (byte) messageLength;
+        for (int i = 0; i < 4; i++) {
+            message[16 + i] = (byte) (transactionId >>> (24 - 8 * i));
+        }
+
+        return message;
+    }
+
+    private static byte[] handshakeMessage(int messageType) {
+        byte[] message = new byte[29];
+        message[0] = (byte) messageType;
+        message[1] = 0x13;
+        message[5] = 0x42;
+
+        return message;
+    }
+
+
+    /**
+     * Writes a capture with Ethernet frames carrying UDP over IPv4.
+     */
+    static final class CaptureWriter implements Closeable {
+
+        private static final int MAGIC = 0xA1B2C3D4;
+        private static final int LINK_TYPE__ETHERNET = 1;
+        private static final int SNAPSHOT_LENGTH = 65535;
+        private static final int ETHERNET_HEADER_LENGTH = 14;
+        private static final int IP_HEADER_LENGTH = 20;
+        private static final int UDP_HEADER_LENGTH = 8;
+
+        private final DataOutputStream out;
+        private int packetCount;
+
+
+        CaptureWriter(File file) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(MAGIC);
+            out.writeShort(2);
+            out.writeShort(4);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(SNAPSHOT_LENGTH);
+            out.writeInt(LINK_TYPE__ETHERNET);
+        }
+
+
+        int getPacketCount() {
+            return packetCount;
+        }
+
+        void udp(long timestamp, int srcAddress, int srcPort, int dstAddress, int dstPort, byte[] payload)
+                throws IOException {
+
+            int ipLength = IP_HEADER_LENGTH + UDP_HEADER_LENGTH + payload.length;
+            recordHeader(timestamp, ETHERNET_HEADER_LENGTH + ipLength);
+
+            // Ethernet
+            out.write(new byte[12]);
+            out.writeShort(0x0800);
+
+            // IPv4
+            out.writeByte(0x45);
+            out.writeByte(0);
+            out.writeShort(ipLength);
+            out.writeInt(0);
+            out.writeByte(64);
+            out.writeByte(17);
+            out.writeShort(0);
+            out.writeInt(srcAddress);
+            out.writeInt(dstAddress);
+
+            // UDP
+            out.writeShort(srcPort);
+            out.writeShort(dstPort);
+            out.writeShort(UDP_HEADER_LENGTH + payload.length);
+            out.writeShort(0);
+            out.write(payload);
+
+            packetCount++;
+        }
+
+        /**
+         * Writes just the header of a packet record, so it can be followed by anything (or nothing).
+         */
+        void recordHeader(long timestamp, int packetLength) throws IOException {
+            out.writeInt((int) (timestamp / 1000));
+            out.writeInt((int) (timestamp % 1000) * 1000);
+            out.writeInt(packetLength);
+            out.writeInt(packetLength);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+
+    /**
+     * Keeps the notifications of a connection manager as strings, like "connect 93.184.216.34:7777", so that they can
+     * be compared easily.
+     */
+    static final class RecordingSnifferListener implements SnifferListener {
+
+        private final List<String> notifications = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void notifyMatchConnect(Connection connection) {
+            notifications.add(String.format("connect %s:%d from %d, latency %s",
+                    connection.getRemoteAddr().getHostAddress(), connection.getRemotePort(),
+                    connection.getLocalPort(), connection.getLatency()));
+        }
+
+        @Override
+        public void notifyMatchDisconnect() {
+            notifications.add("disconnect");
+        }
+
+        @Override
+        public void notifyPingUpdate(int ping) {
+            notifications.add("ping " + ping);
+        }
+
+        @Override
+        public void handleException(Exception e) {
+            notifications.add("exception " + e);
+        }
+
+        List<String> getNotifications() {
+            return notifications;
+        }
+    }
+
+}
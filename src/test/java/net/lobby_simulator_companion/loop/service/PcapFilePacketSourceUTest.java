@@ -0,0 +1,139 @@
+package net.lobby_simulator_companion.loop.service;
+
+import net.lobby_simulator_companion.loop.service.PcapCorpus.CaptureWriter;
+import org.junit.Test;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static net.lobby_simulator_companion.loop.service.PcapCorpus.HOST_ADDRESS;
+import static net.lobby_simulator_companion.loop.service.PcapCorpus.HOST_PORT;
+import static net.lobby_simulator_companion.loop.service.PcapCorpus.LOCAL_ADDRESS;
+import static net.lobby_simulator_companion.loop.service.PcapCorpus.LOCAL_PORT;
+import static net.lobby_simulator_companion.loop.service.PcapCorpus.START_TIME;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class PcapFilePacketSourceUTest {
+
+
+    @Test
+    public void loop__whenSpeedIsMax__thenAllPacketsShouldBeDeliveredWithTheirTimestamps() throws Exception {
+        // arrange
+        File captureFile = writeCapture(0, 150, 300);
+        PcapFilePacketSource packetSource = new PcapFilePacketSource(captureFile, PcapFilePacketSource.Speed.MAX);
+        RawUdpPacket packet = new RawUdpPacket(packetSource.getDataLinkType());
+        List<String> received = new ArrayList<>();
+
+        // act
+        packetSource.loop(rawPacket -> {
+            packet.parse(rawPacket);
+            received.add((packetSource.getTimestamp() - START_TIME) + ":" + packet.dstPort);
+        });
+
+        // assert
+        assertThat(packetSource.isLive(), equalTo(false));
+        assertThat(packetSource.getDataLinkType(), equalTo(DataLinkType.EN10MB));
+        assertThat(received, equalTo(Arrays.asList("0:7777", "150:7777", "300:7777")));
+    }
+
+    @Test
+    public void loop__whenSpeedIsOriginal__thenPacketsShouldBeDeliveredWithTheirOriginalTiming() throws Exception {
+        // arrange
+        File captureFile = writeCapture(0, 150, 300);
+        PcapFilePacketSource packetSource = new PcapFilePacketSource(captureFile, PcapFilePacketSource.Speed.ORIGINAL);
+        int[] packetCount = new int[1];
+        long startNanos = System.nanoTime();
+
+        // act
+        packetSource.loop(rawPacket -> packetCount[0]++);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        // assert
+        assertThat(packetCount[0], equalTo(3));
+        assertThat(elapsedMillis >= 300, equalTo(true));
+    }
+
+    @Test(expected = IOException.class)
+    public void constructor__whenFileIsNotACapture__thenExceptionShouldBeThrown() throws IOException {
+        // arrange
+        File file = PcapCorpus.newCaptureFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("2020.07.10-20.00.00:000 LogInit: Display: not a capture".getBytes());
+        }
+
+        // act
+        new PcapFilePacketSource(file, PcapFilePacketSource.Speed.MAX);
+    }
+
+    @Test
+    public void loop__whenPacketLengthIsInvalid__thenExceptionShouldBeThrownAfterPreviousPackets() throws Exception {
+        // arrange
+        File captureFile = PcapCorpus.newCaptureFile();
+        try (CaptureWriter capture = new CaptureWriter(captureFile)) {
+            capture.udp(START_TIME, LOCAL_ADDRESS, LOCAL_PORT, HOST_ADDRESS, HOST_PORT, new byte[10]);
+            capture.recordHeader(START_TIME + 10, -1);
+            capture.udp(START_TIME + 20, LOCAL_ADDRESS, LOCAL_PORT, HOST_ADDRESS, HOST_PORT, new byte[10]);
+        }
+        PcapFilePacketSource packetSource = new PcapFilePacketSource(captureFile, PcapFilePacketSource.Speed.MAX);
+        int[] packetCount = new int[1];
+        IOException exception = null;
+
+        // act
+        try {
+            packetSource.loop(rawPacket -> packetCount[0]++);
+        } catch (IOException e) {
+            exception = e;
+        }
+
+        // assert
+        assertThat(packetCount[0], equalTo(1));
+        assertThat(exception != null, equalTo(true));
+    }
+
+    @Test(expected = IOException.class)
+    public void loop__whenPacketLengthExceedsSnapshotLength__thenExceptionShouldBeThrown() throws Exception {
+        // arrange
+        File captureFile = PcapCorpus.newCaptureFile();
+        try (CaptureWriter capture = new CaptureWriter(captureFile)) {
+            capture.recordHeader(START_TIME, Integer.MAX_VALUE);
+        }
+        PcapFilePacketSource packetSource = new PcapFilePacketSource(captureFile, PcapFilePacketSource.Speed.MAX);
+
+        // act
+        packetSource.loop(rawPacket -> {
+        });
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void loop__whenLoopIsBroken__thenInterruptedExceptionShouldBeThrown() throws Exception {
+        // arrange
+        File captureFile = writeCapture(0, 150, 300);
+        PcapFilePacketSource packetSource = new PcapFilePacketSource(captureFile, PcapFilePacketSource.Speed.MAX);
+
+        // act
+        packetSource.loop(rawPacket -> packetSource.breakLoop());
+    }
+
+
+    private static File writeCapture(long... packetTimes) throws IOException {
+        File file = PcapCorpus.newCaptureFile();
+        try (CaptureWriter capture = new CaptureWriter(file)) {
+            for (long packetTime : packetTimes) {
+                capture.udp(START_TIME + packetTime, LOCAL_ADDRESS, LOCAL_PORT, HOST_ADDRESS, HOST_PORT, new byte[10]);
+            }
+        }
+
+        return file;
+    }
+
+}
@@ -0,0 +1,109 @@
+package net.lobby_simulator_companion.loop.service;
+
+import org.junit.Test;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class RawUdpPacketUTest {
+
+    private static final int ETHERNET_HEADER_LENGTH = 14;
+    private static final int IP_HEADER_LENGTH = 20;
+    private static final int UDP_HEADER_LENGTH = 8;
+
+    private final RawUdpPacket packet = new RawUdpPacket(DataLinkType.EN10MB);
+
+
+    @Test
+    public void parse__whenPacketIsStunBindingRequest__thenFieldsShouldBeRead() {
+        // arrange
+        byte[] stunMessage = new byte[56];
+        stunMessage[1] = 0x01;
+        stunMessage[3] = 36;
+        stunMessage[16] = 0x12;
+        stunMessage[17] = 0x34;
+        stunMessage[18] = 0x56;
+        stunMessage[19] = 0x78;
+        byte[] frame = createFrame(0x0800, 17, 0xC0A8000A, 0x5DB8D822, 51000, 3478, stunMessage);
+
+        // act
+        boolean parsed = packet.parse(frame);
+
+        // assert
+        assertThat(parsed, equalTo(true));
+        assertThat(packet.srcAddress, equalTo(0xC0A8000A));
+        assertThat(packet.dstAddress, equalTo(0x5DB8D822));
+        assertThat(packet.srcPort, equalTo(51000));
+        assertThat(packet.dstPort, equalTo(3478));
+        assertThat(packet.payloadLength, equalTo(56));
+        assertThat(packet.stunMessageType(), equalTo(RawUdpPacket.STUN_TYPE__BINDING_REQUEST));
+        assertThat(packet.stunMessageLength(), equalTo(36));
+        assertThat(packet.stunTransactionId(), equalTo(0x12345678));
+    }
+
+    @Test
+    public void parse__whenFrameIsPadded__thenPayloadLengthShouldComeFromUdpHeader() {
+        // arrange
+        byte[] frame = createFrame(0x0800, 17, 0x0A000001, 0x0A000002, 1000, 2000, new byte[4]);
+        byte[] paddedFrame = new byte[60];
+        System.arraycopy(frame, 0, paddedFrame, 0, frame.length);
+
+        // act
+        boolean parsed = packet.parse(paddedFrame);
+
+        // assert
+        assertThat(parsed, equalTo(true));
+        assertThat(packet.payloadLength, equalTo(4));
+        assertThat(packet.stunTransactionId(), equalTo(0));
+    }
+
+    @Test
+    public void parse__whenPacketIsNotUdpOverIpV4__thenItShouldBeRejected() {
+        // arrange
+        byte[] tcpFrame = createFrame(0x0800, 6, 0x0A000001, 0x0A000002, 1000, 2000, new byte[10]);
+        byte[] ipV6Frame = createFrame(0x86DD, 17, 0x0A000001, 0x0A000002, 1000, 2000, new byte[10]);
+        byte[] truncatedFrame = new byte[ETHERNET_HEADER_LENGTH + 10];
+        truncatedFrame[12] = 0x08;
+
+        // act & assert
+        assertThat(packet.parse(tcpFrame), equalTo(false));
+        assertThat(packet.parse(ipV6Frame), equalTo(false));
+        assertThat(packet.parse(truncatedFrame), equalTo(false));
+    }
+
+
+    private static byte[] createFrame(int etherType, int ipProtocol, int srcAddress, int dstAddress,
+                                      int srcPort, int dstPort, byte[] payload) {
+        byte[] frame = new byte[ETHERNET_HEADER_LENGTH + IP_HEADER_LENGTH + UDP_HEADER_LENGTH + payload.length];
+        int ip = ETHERNET_HEADER_LENGTH;
+        int udp = ip + IP_HEADER_LENGTH;
+
+        writeShort(frame, 12, etherType);
+        frame[ip] = 0x45;
+        writeShort(frame, ip + 2, IP_HEADER_LENGTH + UDP_HEADER_LENGTH + payload.length);
+        frame[ip + 9] = (byte) ipProtocol;
+        writeInt(frame, ip + 12, srcAddress);
+        writeInt(frame, ip + 16, dstAddress);
+        writeShort(frame, udp, srcPort);
+        writeShort(frame, udp + 2, dstPort);
+        writeShort(frame, udp + 4, UDP_HEADER_LENGTH + payload.length);
+        System.arraycopy(payload, 0, frame, udp + UDP_HEADER_LENGTH, payload.length);
+
+        return frame;
+    }
+
+    private static void writeShort(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 8);
+        data[offset + 1] = (byte) value;
+    }
+
+    private static void writeInt(byte[] data, int offset, int value) {
+        writeShort(data, offset, value >>> 16);
+        writeShort(data, offset + 2, value);
+    }
+
+}
@@ -0,0 +1,68 @@
+package net.lobby_simulator_companion.loop.service.log_processing;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+
+/**
+ * @author NickyRamone
+ */
+public class LogProcessorUtilUTest {
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("u.MM.dd-HH.mm.ss:SSS");
+
+
+    @Test
+    public void extractTimestamp__whenLineStartsWithTimestamp_thenShouldReturnIt() {
+        String logLine = "[2020.07.10-23.09.36:685][979]Interaction: Player [BP_CamperMale01_C_0] is in chase.";
+
+        assertThat(LogProcessorUtil.extractTimestamp(logLine),
+                equalTo(LocalDateTime.of(2020, 7, 10, 23, 9, 36, 685_000_000)));
+        assertThat(LogProcessorUtil.extractTimestampMillis(logLine),
+                equalTo(LocalDateTime.of(2020, 7, 10, 23, 9, 36, 685_000_000).toInstant(ZoneOffset.UTC).toEpochMilli()));
+    }
+
+    @Test
+    public void extractTimestamp__whenRandomDates_thenShouldMatchDateTimeFormatter() {
+        Random random = new Random(0);
+        long minEpochSecond = LocalDateTime.of(1970, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long maxEpochSecond = LocalDateTime.of(2100, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+        for (int i = 0; i < 10_000; i++) {
+            long epochSecond = minEpochSecond + (long) (random.nextDouble() * (maxEpochSecond - minEpochSecond));
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(epochSecond, random.nextInt(1000) * 1_000_000,
+                    ZoneOffset.UTC);
+            String logLine = "[" + DATE_TIME_FORMATTER.format(dateTime) + "][  0]LogInit: line";
+
+            assertThat(LogProcessorUtil.extractTimestamp(logLine), equalTo(dateTime));
+        }
+    }
+
+    @Test
+    public void extractTimestamp__whenLeapDay_thenShouldOnlyBeValidInLeapYears() {
+        assertThat(LogProcessorUtil.extractTimestamp("[2020.02.29-12.00.00:000][  0]LogInit: line"),
+                equalTo(LocalDateTime.of(2020, 2, 29, 12, 0)));
+        assertThat(LogProcessorUtil.extractTimestamp("[2021.02.29-12.00.00:000][  0]LogInit: line"), nullValue());
+        assertThat(LogProcessorUtil.extractTimestamp("[2000.02.29-12.00.00:000][  0]LogInit: line"),
+                equalTo(LocalDateTime.of(2000, 2, 29, 12, 0)));
+        assertThat(LogProcessorUtil.extractTimestamp("[2100.02.29-12.00.00:000][  0]LogInit: line"), nullValue());
+    }
+
+    @Test
+    public void extractTimestamp__whenLineDoesNotStartWithValidTimestamp_thenShouldReturnNothing() {
+        assertThat(LogProcessorUtil.extractTimestamp("Log file open, 07/10/20 23:00:00"), nullValue());
+        assertThat(LogProcessorUtil.extractTimestamp("[2020.07.10-23.09.36:685]"), nullValue());
+        assertThat(LogProcessorUtil.extractTimestamp("[Core] 2020.07.10-23.09.36:685 line"), nullValue());
+        assertThat(LogProcessorUtil.extractTimestamp("[2020.13.10-23.09.36:685][979]LogInit: line"), nullValue());
+        assertThat(LogProcessorUtil.extractTimestamp("[2020.07.10-24.09.36:685][979]LogInit: line"), nullValue());
+        assertThat(LogProcessorUtil.extractTimestampMillis(""), equalTo(LogProcessorUtil.NO_TIMESTAMP));
+    }
+
+}
@@ -0,0 +1,73 @@
+package net.lobby_simulator_companion.loop.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+
+/**
+ * @author NickyRamone
+ */
+public class AhoCorasickMatcherUTest {
+
+    private static final long HE = 1;
+    private static final long SHE = 1 << 1;
+    private static final long HIS = 1 << 2;
+    private static final long HERS = 1 << 3;
+
+
+    private final AhoCorasickMatcher matcher = new AhoCorasickMatcher(keywords());
+
+
+    @Test
+    public void match__whenNoKeywordIsContained_thenShouldReturnZero() {
+        assertThat(matcher.match("nothing to look at"), equalTo(0L));
+        assertThat(matcher.match(""), equalTo(0L));
+    }
+
+    @Test
+    public void match__whenKeywordsOverlap_thenAllShouldBeFound() {
+        assertThat(matcher.match("ushers"), equalTo(HE | SHE | HERS));
+    }
+
+    @Test
+    public void match__whenKeywordIsFoundAfterPartialMatch_thenShouldBeFound() {
+        assertThat(matcher.match("hhhis"), equalTo(HIS));
+        assertThat(matcher.match("shhe"), equalTo(HE));
+    }
+
+    @Test
+    public void match__whenTextHasNonAsciiChars_thenTheyShouldBreakMatches() {
+        assertThat(matcher.match("hé séhe"), equalTo(HE));
+    }
+
+    @Test
+    public void match__whenKeywordsShareMask_thenMasksShouldBeMerged() {
+        Map<String, Long> keywords = new HashMap<>();
+        keywords.put("is in chase", 1L);
+        keywords.put("is not in chase", 1L);
+        keywords.put("GameFlow:", 2L);
+        AhoCorasickMatcher logMatcher = new AhoCorasickMatcher(keywords);
+
+        assertThat(logMatcher.match("[2020.07.10-23.09.36:685][979]Interaction: Player [BP_CamperMale01_C_0] is in chase."),
+                equalTo(1L));
+        assertThat(logMatcher.match("[2020.07.13-19.59.09:349][644]GameFlow: ADBDGameState::SetGameLevelEnded"),
+                equalTo(2L));
+        assertThat(logMatcher.match("[2020.07.13-19.59.09:349][644]LogNet: irrelevant line"), equalTo(0L));
+    }
+
+
+    private static Map<String, Long> keywords() {
+        Map<String, Long> keywords = new HashMap<>();
+        keywords.put("he", HE);
+        keywords.put("she", SHE);
+        keywords.put("his", HIS);
+        keywords.put("hers", HERS);
+
+        return keywords;
+    }
+
+}
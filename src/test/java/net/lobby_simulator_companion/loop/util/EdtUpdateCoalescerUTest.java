@@ -0,0 +1,47 @@
+package net.lobby_simulator_companion.loop.util;
+
+import org.junit.Test;
+
+import javax.swing.SwingUtilities;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class EdtUpdateCoalescerUTest {
+
+    private final EdtUpdateCoalescer coalescer = new EdtUpdateCoalescer();
+    private final List<String> applied = new ArrayList<>();
+
+
+    @Test
+    public void request__whenSlotIsRequestedSeveralTimesInAFrame__thenOnlyLatestUpdateShouldBeApplied()
+            throws InterruptedException, InvocationTargetException {
+        // arrange
+        EdtUpdateCoalescer.Slot statsUpdate = coalescer.newSlot();
+        EdtUpdateCoalescer.Slot chaseUpdate = coalescer.newSlot();
+        CountDownLatch flushed = new CountDownLatch(1);
+
+        // act
+        SwingUtilities.invokeAndWait(() -> {
+            statsUpdate.request(() -> applied.add("stats1"));
+            chaseUpdate.request(() -> applied.add("chase"));
+            statsUpdate.request(() -> applied.add("stats2"));
+            coalescer.newSlot().request(flushed::countDown);
+        });
+        boolean done = flushed.await(5, TimeUnit.SECONDS);
+
+        // assert
+        assertThat(done, equalTo(true));
+        assertThat(applied, equalTo(Arrays.asList("stats2", "chase")));
+    }
+
+}
@@ -0,0 +1,79 @@
+package net.lobby_simulator_companion.loop.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class Hash128CacheUTest {
+
+
+    @Test
+    public void put__whenCapacityIsReached__thenPinnedEntriesShouldBeKept() {
+        // arrange
+        Hash128Cache<Integer> cache = new Hash128Cache<>(200, v -> v % 10 == 0);
+
+        // act
+        for (int i = 0; i < 1000; i++) {
+            cache.put(key(i), i, i);
+        }
+
+        // assert
+        assertThat(cache.size(), equalTo(200));
+        for (int i = 0; i < 1000; i += 10) {
+            assertThat(cache.get(key(i), i), equalTo(i));
+        }
+        assertThat(cache.get(key(999), 998), equalTo(null));
+    }
+
+    @Test
+    public void get__whenKeysCollide__thenEntriesShouldBeFoundAfterRemovals() {
+        // arrange
+        Hash128Cache<Integer> cache = new Hash128Cache<>(8, v -> false);
+
+        // act
+        for (int i = 0; i < 20; i++) {
+            // same high bits, so all of them are probed from the same slot
+            cache.put(0L, i, i);
+        }
+
+        // assert
+        assertThat(cache.size(), equalTo(8));
+        int found = 0;
+        for (int i = 0; i < 20; i++) {
+            Integer value = cache.get(0L, i);
+            if (value != null) {
+                assertThat(value, equalTo(i));
+                found++;
+            }
+        }
+        assertThat(found, equalTo(8));
+        assertThat(cache.get(0L, 19), equalTo(19));
+    }
+
+    @Test
+    public void putIfAbsent__whenKeyIsPresent__thenExistingValueShouldBeKept() {
+        // arrange
+        Hash128Cache<String> cache = new Hash128Cache<>(8, v -> false);
+        cache.put(key(1), 1, "newer");
+
+        // act
+        String presentResult = cache.putIfAbsent(key(1), 1, "older");
+        String absentResult = cache.putIfAbsent(key(2), 2, "other");
+
+        // assert
+        assertThat(presentResult, equalTo("newer"));
+        assertThat(cache.get(key(1), 1), equalTo("newer"));
+        assertThat(absentResult, equalTo("other"));
+        assertThat(cache.get(key(2), 2), equalTo("other"));
+    }
+
+
+    private static long key(int n) {
+        return n * 0x9E3779B97F4A7C15L;
+    }
+
+}
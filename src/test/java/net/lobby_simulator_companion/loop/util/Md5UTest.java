@@ -0,0 +1,26 @@
+package net.lobby_simulator_companion.loop.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class Md5UTest {
+
+
+    @Test
+    public void toHex__whenHashIsParsed__thenSameHexShouldBeReturned() {
+        // arrange
+        String hex = "0f1e2d3c4b5a69788796a5b4c3d2e1f0";
+
+        // act
+        String result = Md5.toHex(Md5.keyHigh(hex), Md5.keyLow(hex));
+
+        // assert
+        assertThat(result, equalTo(hex));
+    }
+
+}
@@ -0,0 +1,113 @@
+package net.lobby_simulator_companion.loop.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class SpscRingBufferUTest {
+
+
+    @Test
+    public void offer__whenBufferIsFull__thenElementShouldBeRejected() {
+        // arrange
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(3);
+        List<Integer> drained = new ArrayList<>();
+
+        // act
+        for (int i = 0; i < 4; i++) {
+            buffer.offer(i);
+        }
+        boolean accepted = buffer.offer(4);
+        buffer.drain(drained::add, 2);
+
+        // assert
+        assertThat(buffer.capacity(), equalTo(4));
+        assertThat(accepted, equalTo(false));
+        assertThat(drained.toString(), equalTo("[0, 1]"));
+        assertThat(buffer.size(), equalTo(2));
+        assertThat(buffer.getHighWaterMark(), equalTo(4));
+    }
+
+    @Test
+    public void drainWhenAvailable__whenProducerIsFasterThanConsumer__thenAllElementsShouldBeTakenInOrder()
+            throws InterruptedException {
+        // arrange
+        int elementCount = 200_000;
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(16);
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < elementCount; i++) {
+                    buffer.put(i);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        int[] next = new int[1];
+        boolean[] inOrder = {true};
+
+        // act
+        producer.start();
+        while (next[0] < elementCount) {
+            buffer.drainWhenAvailable(element -> inOrder[0] &= element == next[0]++, 8);
+        }
+        producer.join();
+
+        // assert
+        assertThat(inOrder[0], equalTo(true));
+        assertThat(buffer.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void isEmpty__whenLastElementIsBeingConsumed__thenBufferShouldNotBeEmpty() {
+        // arrange
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(4);
+        buffer.offer(1);
+        boolean[] emptyWhileConsuming = new boolean[1];
+
+        // act
+        buffer.drain(element -> emptyWhileConsuming[0] = buffer.isEmpty(), 1);
+
+        // assert
+        assertThat(emptyWhileConsuming[0], equalTo(false));
+        assertThat(buffer.isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void drainWhenAvailable__whenBufferStaysEmpty__thenConsumerShouldParkUntilElementIsOffered()
+            throws InterruptedException {
+        // arrange
+        SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                buffer.drainWhenAvailable(drained::add, 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // act
+        consumer.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (consumer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Thread.State idleState = consumer.getState();
+        buffer.offer(7);
+        consumer.join(5000);
+
+        // assert
+        // parked without a timeout, so an idle consumer is not woken up periodically
+        assertThat(idleState, equalTo(Thread.State.WAITING));
+        assertThat(drained.toString(), equalTo("[7]"));
+    }
+
+}
@@ -0,0 +1,82 @@
+package net.lobby_simulator_companion.loop.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class SupersedingTaskRunnerUTest {
+
+    private final ExecutorService executor = SupersedingTaskRunner.newBoundedExecutor("test", 2, 4);
+    private final List<String> results = Collections.synchronizedList(new ArrayList<>());
+
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+
+    @Test
+    public void submit__whenTaskIsSuperseded__thenOnlyLatestResultShouldBeConsumed() throws Exception {
+        // arrange
+        SupersedingTaskRunner runner = new SupersedingTaskRunner("test", executor, Runnable::run);
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        CountDownLatch firstTaskCanFinish = new CountDownLatch(1);
+        CountDownLatch secondTaskFinished = new CountDownLatch(1);
+
+        // act
+        runner.submit(() -> {
+            firstTaskStarted.countDown();
+            firstTaskCanFinish.await();
+            return "first";
+        }, results::add);
+        firstTaskStarted.await(5, TimeUnit.SECONDS);
+        runner.submit(() -> "second", result -> {
+            results.add(result);
+            secondTaskFinished.countDown();
+        });
+        secondTaskFinished.await(5, TimeUnit.SECONDS);
+        firstTaskCanFinish.countDown();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        // assert
+        assertThat(results, equalTo(Collections.singletonList("second")));
+    }
+
+    @Test
+    public void cancel__whenTaskIsRunning__thenResultShouldBeDiscarded() throws Exception {
+        // arrange
+        SupersedingTaskRunner runner = new SupersedingTaskRunner("test", executor, Runnable::run);
+        CountDownLatch taskStarted = new CountDownLatch(1);
+        CountDownLatch taskCanFinish = new CountDownLatch(1);
+        runner.submit(() -> {
+            taskStarted.countDown();
+            taskCanFinish.await();
+            return "cancelled";
+        }, results::add);
+        taskStarted.await(5, TimeUnit.SECONDS);
+
+        // act
+        runner.cancel();
+        taskCanFinish.countDown();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        // assert
+        assertThat(results.isEmpty(), equalTo(true));
+    }
+
+}
@@ -0,0 +1,72 @@
+package net.lobby_simulator_companion.loop.util.event;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author NickyRamone
+ */
+public class EventSupportUTest {
+
+    private enum TestEvent {FIRST, SECOND}
+
+    private enum OtherTestEvent {FIRST}
+
+    private final EventSupport eventSupport = new EventSupport();
+    private final List<String> received = new ArrayList<>();
+
+
+    @Test
+    public void fireEvent__whenListenersAreRegistered__thenGlobalListenersShouldBeNotifiedFirst() {
+        // arrange
+        eventSupport.registerListener(TestEvent.FIRST, e -> received.add("first:" + e.getType() + "=" + e.getValue()));
+        eventSupport.registerListener(e -> received.add("global:" + e.getType() + "=" + e.getValue()));
+        eventSupport.registerListener(TestEvent.SECOND, e -> received.add("second:" + e.getType()));
+
+        // act
+        eventSupport.fireEvent(TestEvent.FIRST, 1);
+        eventSupport.fireEvent(TestEvent.SECOND);
+
+        // assert
+        assertThat(received, equalTo(Arrays.asList(
+                "global:FIRST=1", "first:FIRST=1", "global:SECOND=null", "second:SECOND")));
+    }
+
+    @Test
+    public void fireEvent__whenTypesHaveSameName__thenTheyShouldBeTheSameType() {
+        // arrange
+        eventSupport.registerListener(TestEvent.FIRST, e -> received.add("enum"));
+        eventSupport.registerListener("FIRST", e -> received.add("string"));
+
+        // act
+        eventSupport.fireEvent(OtherTestEvent.FIRST);
+        eventSupport.fireEvent("FIRST");
+
+        // assert
+        assertThat(received, equalTo(Arrays.asList("enum", "string", "enum", "string")));
+    }
+
+    @Test
+    public void fireEvent__whenEventHasNoValue__thenSameEventShouldBeDelivered() {
+        // arrange
+        List<Event> events = new ArrayList<>();
+        eventSupport.registerListener(TestEvent.SECOND, events::add);
+
+        // act
+        eventSupport.fireEvent(TestEvent.SECOND);
+        eventSupport.fireEvent(TestEvent.SECOND);
+
+        // assert
+        assertThat(events.size(), equalTo(2));
+        assertThat(events.get(0), sameInstance(events.get(1)));
+        assertThat(events.get(0).getType(), equalTo("SECOND"));
+    }
+
+}